@@ -0,0 +1,47 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.benchmark;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import org.bson.types.ObjectId;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic patient fixtures shared by the benchmarks.
+ */
+final class BenchmarkPatients {
+
+    private static final String[] GENDERS = {"Male", "Female", "Other"};
+
+    private BenchmarkPatients() {
+    }
+
+    /**
+     * A valid patient whose email address and contact number are unique per {@code n}.
+     */
+    static Patient patient(long n) {
+        return Patient.builder()
+                .firstName("First" + n)
+                .lastName("Last" + n)
+                .dateOfBirth(LocalDate.of(1950, 1, 1).plusDays(n % 20_000))
+                .contactNumber(String.format("+94%010d", n))
+                .emailAddress("patient" + n + "@example.com")
+                .gender(GENDERS[(int) (n % GENDERS.length)])
+                .build();
+    }
+
+    /**
+     * {@code count} valid patients with ids and versions, as read back from the database.
+     */
+    static List<Patient> stored(int count) {
+        List<Patient> patients = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Patient patient = patient(i);
+            patient.setId(new ObjectId().toHexString());
+            patient.setVersion(1L);
+            patients.add(patient);
+        }
+        return patients;
+    }
+}
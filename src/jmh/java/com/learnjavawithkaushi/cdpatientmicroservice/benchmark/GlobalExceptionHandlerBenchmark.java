@@ -0,0 +1,78 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.benchmark;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.controller.PatientController;
+import com.learnjavawithkaushi.cdpatientmicroservice.exception.GlobalExceptionHandler;
+import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientNotFoundException;
+import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientProblems;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * The error path of the servlet API: creating the exception and turning it into a
+ * {@link ProblemDetail}. Exceptions are thrown {@code depth} frames down, roughly how deep a
+ * controller sits under Tomcat, Spring MVC and the filters; {@code notFoundWithStackTrace} is
+ * a miss as it cost while {@link PatientNotFoundException} still filled in its stack trace.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GlobalExceptionHandlerBenchmark {
+
+    private static final String ID = "665f1c2e8b3e4a2d9c0f1a2b";
+
+    @Param({"10", "120"})
+    private int depth;
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+    private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/patients/" + ID);
+    private MethodParameter createParameter;
+    private Patient invalid;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        createParameter = new MethodParameter(PatientController.class.getMethod("create", Patient.class), 0);
+        invalid = BenchmarkPatients.patient(1);
+    }
+
+    @Benchmark
+    public ResponseEntity<ProblemDetail> notFound() {
+        return handler.handlePatientNotFound(atDepth(depth, () -> new PatientNotFoundException(ID)), request);
+    }
+
+    @Benchmark
+    public ResponseEntity<ProblemDetail> notFoundWithStackTrace() {
+        RuntimeException miss = atDepth(depth, () -> new RuntimeException("Patient not found with id: " + ID));
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .body(PatientProblems.of(HttpStatus.NOT_FOUND, "Patient Not Found", miss.getMessage(),
+                        request.getRequestURI()));
+    }
+
+    @Benchmark
+    public ResponseEntity<ProblemDetail> validationFailed() {
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(invalid, "patient");
+        bindingResult.addError(new FieldError("patient", "contactNumber", "Contact number must be 10-15 digits"));
+        bindingResult.addError(new FieldError("patient", "emailAddress", "Email address must be valid"));
+        bindingResult.addError(new FieldError("patient", "gender", "Gender must be Male, Female, or Other"));
+        return handler.handleValidationExceptions(new MethodArgumentNotValidException(createParameter, bindingResult),
+                request);
+    }
+
+    private static <T> T atDepth(int frames, Supplier<T> supplier) {
+        return frames <= 0 ? supplier.get() : atDepth(frames - 1, supplier);
+    }
+}
@@ -0,0 +1,86 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.benchmark;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import com.learnjavawithkaushi.cdpatientmicroservice.repository.PatientRepository;
+import org.bson.types.ObjectId;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Mongo stand-in for {@link PatientRepository} keeping documents in a sorted map, so service
+ * benchmarks measure the service and cache rather than the network. Only the methods
+ * {@code PatientService} calls are implemented; anything else throws. Not meant for
+ * concurrent writers.
+ */
+final class InMemoryPatientRepository {
+
+    private InMemoryPatientRepository() {
+    }
+
+    static PatientRepository create() {
+        NavigableMap<String, Patient> documents = new ConcurrentSkipListMap<>();
+        // Stands in for the fingerprint index; entries of removed patients resolve to nothing
+        Map<String, String> byFingerprint = new ConcurrentHashMap<>();
+        return (PatientRepository) Proxy.newProxyInstance(
+                PatientRepository.class.getClassLoader(),
+                new Class<?>[]{PatientRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findById" -> Optional.ofNullable(documents.get((String) args[0]));
+                    case "existsById" -> documents.containsKey((String) args[0]);
+                    case "count", "estimatedCount" -> (long) documents.size();
+                    case "findAllById" -> {
+                        List<Patient> found = new ArrayList<>();
+                        for (Object id : (Iterable<?>) args[0]) {
+                            Patient patient = documents.get((String) id);
+                            if (patient != null) {
+                                found.add(patient);
+                            }
+                        }
+                        yield found;
+                    }
+                    // Every field is kept: the benchmarks only page with PatientFields.ALL
+                    case "findPage" -> first(args[0] == null ? documents : documents.tailMap((String) args[0], false),
+                            (int) args[1]);
+                    case "findFirstByFingerprint" -> Optional.ofNullable(byFingerprint.get((String) args[0]))
+                            .map(documents::get);
+                    case "save" -> {
+                        Patient patient = (Patient) args[0];
+                        if (patient.getId() == null) {
+                            patient.setId(new ObjectId().toHexString());
+                            patient.setVersion(0L);
+                        }
+                        documents.put(patient.getId(), patient);
+                        if (patient.getFingerprint() != null) {
+                            byFingerprint.putIfAbsent(patient.getFingerprint(), patient.getId());
+                        }
+                        yield patient;
+                    }
+                    case "replaceById" -> {
+                        Patient patient = (Patient) args[1];
+                        Patient stored = documents.get((String) args[0]);
+                        if (stored == null || (args[2] != null && !args[2].equals(stored.getVersion()))) {
+                            yield Optional.empty();
+                        }
+                        patient.setVersion(stored.getVersion() + 1);
+                        documents.put(patient.getId(), patient);
+                        yield Optional.of(patient);
+                    }
+                    case "removeById" -> documents.remove((String) args[0]) != null;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "InMemoryPatientRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static List<Patient> first(NavigableMap<String, Patient> documents, int limit) {
+        return documents.values().stream().limit(limit).toList();
+    }
+}
@@ -0,0 +1,79 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson (de)serialization of a single {@link Patient} (request/response bodies of the
+ * single-patient endpoints) and of a {@code List<Patient>} page.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PatientJsonBenchmark {
+
+    @Param({"100", "1000"})
+    private int pageSize;
+
+    private ObjectWriter patientWriter;
+    private ObjectReader patientReader;
+    private ObjectWriter pageWriter;
+    private ObjectReader pageReader;
+
+    private Patient patient;
+    private List<Patient> page;
+    private byte[] patientJson;
+    private byte[] pageJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Same defaults as the mapper Spring Boot auto-configures
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        TypeReference<List<Patient>> pageType = new TypeReference<>() {
+        };
+        patientWriter = mapper.writerFor(Patient.class);
+        patientReader = mapper.readerFor(Patient.class);
+        pageWriter = mapper.writerFor(pageType);
+        pageReader = mapper.readerFor(pageType);
+
+        page = BenchmarkPatients.stored(pageSize);
+        patient = page.get(0);
+        patientJson = patientWriter.writeValueAsBytes(patient);
+        pageJson = pageWriter.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] serializePatient() throws IOException {
+        return patientWriter.writeValueAsBytes(patient);
+    }
+
+    @Benchmark
+    public Patient deserializePatient() throws IOException {
+        return patientReader.readValue(patientJson);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws IOException {
+        return pageWriter.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public List<Patient> deserializePage() throws IOException {
+        return pageReader.readValue(pageJson);
+    }
+}
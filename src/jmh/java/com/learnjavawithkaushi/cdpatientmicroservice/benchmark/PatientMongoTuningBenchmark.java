@@ -0,0 +1,99 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.learnjavawithkaushi.cdpatientmicroservice.CdPatientMicroserviceApplication;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientFields;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientPage;
+import com.learnjavawithkaushi.cdpatientmicroservice.service.PatientCache;
+import com.learnjavawithkaushi.cdpatientmicroservice.service.PatientService;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code patient.mongo.*} client settings under concurrent load: wire compression, pool size
+ * and the read preference of list reads, against the database in {@code BENCHMARK_MONGODB_URI}
+ * (emptied at setup). Without that variable the benchmark fails at setup and JMH moves on to
+ * the next one. Compression only pays off across a real network, and
+ * {@code secondaryPreferred} only differs from {@code primary} on a replica set with secondaries.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class PatientMongoTuningBenchmark {
+
+    private static final int SEEDED = 5000;
+    private static final int PAGE_SIZE = 500;
+
+    @Param({"none", "zlib", "zstd"})
+    private String compressors;
+
+    @Param({"10", "100"})
+    private int maxPoolSize;
+
+    @Param({"primary", "secondaryPreferred"})
+    private String listReadPreference;
+
+    private ConfigurableApplicationContext context;
+    private PatientService service;
+    private PatientCache cache;
+    private List<String> ids;
+
+    @Setup
+    public void setUp() {
+        String uri = System.getenv("BENCHMARK_MONGODB_URI");
+        if (uri == null) {
+            throw new IllegalStateException("Set BENCHMARK_MONGODB_URI to a database the benchmark may empty");
+        }
+        context = new SpringApplicationBuilder(CdPatientMicroserviceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.data.mongodb.uri=" + uri, "spring.main.banner-mode=off",
+                        "patient.mongo.compressors=" + ("none".equals(compressors) ? "" : compressors),
+                        "patient.mongo.max-pool-size=" + maxPoolSize,
+                        "patient.mongo.list-read-preference=" + listReadPreference)
+                .run();
+        context.getBean(MongoTemplate.class).remove(new Query(), Patient.class);
+        service = context.getBean(PatientService.class);
+        cache = context.getBean(PatientCache.class);
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        for (long i = 0; i < SEEDED; i++) {
+            service.create(BenchmarkPatients.patient(i));
+        }
+        ids = service.getPage(null, SEEDED, PatientFields.ALL).getPatients().stream().map(Patient::getId).toList();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    /** A large page, where compression and the list read preference matter most. */
+    @Benchmark
+    public PatientPage getPage() {
+        return service.getPage(null, PAGE_SIZE, PatientFields.ALL);
+    }
+
+    /** Single documents from the primary; mostly bound by pool checkout and round trips. */
+    @Benchmark
+    public Optional<Patient> getByIdUncached() {
+        String id = ids.get(ThreadLocalRandom.current().nextInt(SEEDED));
+        cache.invalidate(id);
+        return service.getById(id);
+    }
+}
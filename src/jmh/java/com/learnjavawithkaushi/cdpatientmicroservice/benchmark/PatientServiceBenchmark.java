@@ -0,0 +1,117 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.learnjavawithkaushi.cdpatientmicroservice.CdPatientMicroserviceApplication;
+import com.learnjavawithkaushi.cdpatientmicroservice.config.PatientProperties;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientFields;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientPage;
+import com.learnjavawithkaushi.cdpatientmicroservice.service.PatientCache;
+import com.learnjavawithkaushi.cdpatientmicroservice.service.PatientService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PatientService} calls, cache included. The default {@code memory} store is an
+ * in-process stand-in for Mongo; run with {@code -Djmh.args="-p store=mongo"} to go through the
+ * real driver against the database in {@code BENCHMARK_MONGODB_URI} (default
+ * {@code mongodb://localhost:27017/patientdb_benchmark}, emptied at setup).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PatientServiceBenchmark {
+
+    private static final int SEEDED = 1000;
+    private static final int MGET_SIZE = 50;
+
+    @Param({"memory"})
+    private String store;
+
+    private ConfigurableApplicationContext context;
+    private PatientService service;
+    private PatientCache cache;
+    private List<String> ids;
+    private long next;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        if ("mongo".equals(store)) {
+            String uri = System.getenv().getOrDefault("BENCHMARK_MONGODB_URI",
+                    "mongodb://localhost:27017/patientdb_benchmark");
+            context = new SpringApplicationBuilder(CdPatientMicroserviceApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .properties("spring.data.mongodb.uri=" + uri, "spring.main.banner-mode=off")
+                    .run();
+            context.getBean(MongoTemplate.class).remove(new Query(), Patient.class);
+            service = context.getBean(PatientService.class);
+            cache = context.getBean(PatientCache.class);
+        } else {
+            PatientProperties properties = new PatientProperties();
+            cache = new PatientCache(properties, new SimpleMeterRegistry());
+            service = new PatientService(InMemoryPatientRepository.create(), cache, properties);
+        }
+        // Keep logging out of the numbers; RequestLoggingBenchmark measures it
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        for (next = 0; next < SEEDED; next++) {
+            service.create(BenchmarkPatients.patient(next));
+        }
+        ids = service.getPage(null, SEEDED, PatientFields.ALL).getPatients().stream().map(Patient::getId).toList();
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public Optional<Patient> getByIdCached() {
+        return service.getById(nextId());
+    }
+
+    @Benchmark
+    public Optional<Patient> getByIdUncached() {
+        String id = nextId();
+        cache.invalidate(id);
+        return service.getById(id);
+    }
+
+    @Benchmark
+    public List<Patient> getByIds() {
+        int from = (cursor = (cursor + MGET_SIZE) % (SEEDED - MGET_SIZE));
+        return service.getByIds(ids.subList(from, from + MGET_SIZE));
+    }
+
+    @Benchmark
+    public PatientPage getFirstPage() {
+        return service.getPage(null, 100, PatientFields.ALL);
+    }
+
+    @Benchmark
+    public Patient create() {
+        return service.create(BenchmarkPatients.patient(next++));
+    }
+
+    private String nextId() {
+        cursor = (cursor + 1) % SEEDED;
+        return ids.get(cursor);
+    }
+}
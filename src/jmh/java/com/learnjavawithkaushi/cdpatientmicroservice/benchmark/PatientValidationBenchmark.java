@@ -0,0 +1,71 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.benchmark;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import com.learnjavawithkaushi.cdpatientmicroservice.service.PatientValidator;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation of {@link Patient} for a valid patient and for one that breaks the
+ * {@code @Pattern} and {@code @Email} constraints: reflective Bean Validation next to
+ * {@link PatientValidator}, which the write endpoints and bulk ingest use instead.
+ * Run with {@code -prof gc} to compare allocations as well.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PatientValidationBenchmark {
+
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private PatientValidator patientValidator;
+    private Patient valid;
+    private Patient invalid;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        patientValidator = new PatientValidator(validator);
+        valid = BenchmarkPatients.patient(1);
+        invalid = BenchmarkPatients.patient(2);
+        invalid.setContactNumber("12-34");
+        invalid.setEmailAddress("not-an-email");
+        invalid.setGender("Unknown");
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Patient>> validPatient() {
+        return validator.validate(valid);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Patient>> invalidPatient() {
+        return validator.validate(invalid);
+    }
+
+    @Benchmark
+    public Map<String, String> validPatientHandWritten() {
+        return patientValidator.validate(valid);
+    }
+
+    @Benchmark
+    public Map<String, String> invalidPatientHandWritten() {
+        return patientValidator.validate(invalid);
+    }
+}
@@ -0,0 +1,97 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cost of putting a {@code List<Patient>} page on the wire and reading it back, per body
+ * format ({@code json}, {@code smile}, {@code cbor}) with and without gzip, the response
+ * compression {@code server.compression} applies. The payload size of each combination is
+ * reported as the {@code bytes} secondary result; CPU time here is weighed against bytes saved
+ * on the network.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PatientWireFormatBenchmark {
+
+    @Param({"100", "1000"})
+    private int pageSize;
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    @Param({"none", "gzip"})
+    private String compression;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private List<Patient> page;
+    private byte[] body;
+
+    @Setup
+    public void setUp() throws IOException {
+        // The builders apply the same defaults as the mappers BinaryFormatsConfig builds
+        ObjectMapper mapper = switch (format) {
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            default -> Jackson2ObjectMapperBuilder.json().build();
+        };
+        TypeReference<List<Patient>> pageType = new TypeReference<>() {
+        };
+        writer = mapper.writerFor(pageType);
+        reader = mapper.readerFor(pageType);
+        page = BenchmarkPatients.stored(pageSize);
+        body = encode();
+    }
+
+    @Benchmark
+    public byte[] write(Payload payload) throws IOException {
+        byte[] encoded = encode();
+        payload.bytes = encoded.length;
+        return encoded;
+    }
+
+    @Benchmark
+    public List<Patient> read(Payload payload) throws IOException {
+        payload.bytes = body.length;
+        InputStream bytes = new ByteArrayInputStream(body);
+        try (InputStream in = "gzip".equals(compression) ? new GZIPInputStream(bytes) : bytes) {
+            return reader.readValue(in);
+        }
+    }
+
+    private byte[] encode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+        try (OutputStream out = "gzip".equals(compression) ? new GZIPOutputStream(bytes) : bytes) {
+            writer.writeValue(out, page);
+        }
+        return bytes.toByteArray();
+    }
+
+    /** Size of the body, reported next to the timings instead of mixed into JMH's output. */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Payload {
+
+        public long bytes;
+    }
+}
@@ -0,0 +1,161 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.learnjavawithkaushi.cdpatientmicroservice.config.AccessLogFilter;
+import com.learnjavawithkaushi.cdpatientmicroservice.config.PatientProperties;
+import com.learnjavawithkaushi.cdpatientmicroservice.controller.PatientController;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import com.learnjavawithkaushi.cdpatientmicroservice.service.PatientCache;
+import com.learnjavawithkaushi.cdpatientmicroservice.service.PatientService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.Filter;
+import jakarta.servlet.http.HttpServletRequest;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.test.web.servlet.setup.StandaloneMockMvcBuilder;
+
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Logging cost of one {@code GET /api/patients/{id}} through MockMvc, the controller and
+ * {@link PatientService}, in three logging setups:
+ * <ul>
+ *     <li>{@code before}: the per-request INFO lines the application used to write (the two
+ *     controller lines, since removed, replayed by a filter, and the service lines, now DEBUG)
+ *     through a synchronous appender</li>
+ *     <li>{@code after}: the current setup, with the service lines disabled and a single
+ *     {@link AccessLogFilter} line through a bounded, non-blocking {@link AsyncAppender}</li>
+ *     <li>{@code off}: nothing logged, the baseline both are compared against</li>
+ * </ul>
+ * Both format with a Boot-like console pattern into a discarding stream. Run with
+ * {@code -prof gc} and compare {@code gc.alloc.rate.norm}, the bytes allocated per request
+ * (async appender thread included), against {@code off}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestLoggingBenchmark {
+
+    private static final int SEEDED = 1000;
+    private static final String PATTERN =
+            "%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p --- [%15.15t] [%16.16X{requestId}] %-40.40logger{39} : %m%n";
+
+    @Param({"off", "before", "after"})
+    private String logging;
+
+    private Appender<ILoggingEvent> appender;
+    private MockMvc mockMvc;
+    private List<String> ids;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        PatientProperties properties = new PatientProperties();
+        PatientService service = new PatientService(InMemoryPatientRepository.create(),
+                new PatientCache(properties, new SimpleMeterRegistry()), properties);
+        Map<String, Patient> patients = new HashMap<>();
+        for (int n = 0; n < SEEDED; n++) {
+            Patient patient = service.create(BenchmarkPatients.patient(n));
+            patients.put(patient.getId(), patient);
+        }
+        ids = List.copyOf(patients.keySet());
+
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        ch.qos.logback.classic.Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.detachAndStopAllAppenders();
+        root.setLevel(Level.WARN);
+        appender = "before".equals(logging) ? discarding(context) : async(context, discarding(context));
+        root.addAppender(appender);
+
+        PatientController controller = new PatientController(service, null, null, properties,
+                Jackson2ObjectMapperBuilder.json().build());
+        StandaloneMockMvcBuilder builder = MockMvcBuilders.standaloneSetup(controller);
+        switch (logging) {
+            case "before" -> {
+                context.getLogger("com.learnjavawithkaushi").setLevel(Level.DEBUG);
+                builder.addFilters(legacyControllerLogging(patients));
+            }
+            case "after" -> {
+                context.getLogger("com.learnjavawithkaushi").setLevel(Level.INFO);
+                context.getLogger("access").setLevel(Level.INFO);
+                builder.addFilters(new AccessLogFilter());
+            }
+            default -> context.getLogger("com.learnjavawithkaushi").setLevel(Level.INFO);
+        }
+        mockMvc = builder.build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        appender.stop();
+    }
+
+    @Benchmark
+    public MvcResult getById() throws Exception {
+        cursor = (cursor + 1) % SEEDED;
+        return mockMvc.perform(get("/api/patients/{id}", ids.get(cursor))).andReturn();
+    }
+
+    private static OutputStreamAppender<ILoggingEvent> discarding(LoggerContext context) {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+        OutputStreamAppender<ILoggingEvent> discarding = new OutputStreamAppender<>();
+        discarding.setContext(context);
+        discarding.setName("DISCARD");
+        discarding.setEncoder(encoder);
+        discarding.setOutputStream(OutputStream.nullOutputStream());
+        discarding.start();
+        return discarding;
+    }
+
+    /**
+     * Mirrors the {@code ASYNC_CONSOLE} appender in {@code logback-spring.xml}.
+     */
+    private static AsyncAppender async(LoggerContext context, Appender<ILoggingEvent> delegate) {
+        AsyncAppender async = new AsyncAppender();
+        async.setContext(context);
+        async.setName("ASYNC");
+        async.setQueueSize(8192);
+        async.setNeverBlock(true);
+        async.addAppender(delegate);
+        async.start();
+        return async;
+    }
+
+    /**
+     * The two INFO lines {@code PatientController.getById} wrote per request before the access log.
+     */
+    private static Filter legacyControllerLogging(Map<String, Patient> patients) {
+        Logger log = LoggerFactory.getLogger(PatientController.class);
+        return (request, response, chain) -> {
+            String uri = ((HttpServletRequest) request).getRequestURI();
+            String id = uri.substring(uri.lastIndexOf('/') + 1);
+            log.info("GET /api/patients/{} - Fetching patient by id", id);
+            chain.doFilter(request, response);
+            Patient patient = patients.get(id);
+            log.info("Found patient: {} {}", patient.getFirstName(), patient.getLastName());
+        };
+    }
+}
@@ -0,0 +1,98 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.client;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Coalesces id lookups from concurrent callers into batched {@code _mget} requests. A batch
+ * is sent once it reaches {@code maxBatchSize} ids or {@code window} after its first id
+ * arrived, whichever comes first. Lookups for an id that is already pending share its future.
+ */
+class PatientLookupBatcher {
+
+    private final Function<List<String>, Map<String, Patient>> fetch;
+    private final Executor executor;
+    private final ScheduledExecutorService timer;
+    private final int maxBatchSize;
+    private final long windowNanos;
+
+    private final Object lock = new Object();
+    private Map<String, CompletableFuture<Patient>> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    PatientLookupBatcher(Function<List<String>, Map<String, Patient>> fetch, Executor executor,
+                         ScheduledExecutorService timer, int maxBatchSize, Duration window) {
+        this.fetch = fetch;
+        this.executor = executor;
+        this.timer = timer;
+        this.maxBatchSize = maxBatchSize;
+        this.windowNanos = window.toNanos();
+    }
+
+    /**
+     * @return a future completed with the patient, or with {@code null} when the id is unknown
+     */
+    CompletableFuture<Patient> load(String id) {
+        Map<String, CompletableFuture<Patient>> full = null;
+        CompletableFuture<Patient> future;
+        synchronized (lock) {
+            future = pending.computeIfAbsent(id, key -> new CompletableFuture<>());
+            if (pending.size() >= maxBatchSize) {
+                full = takePending();
+            } else if (scheduledFlush == null) {
+                scheduledFlush = timer.schedule(this::flush, windowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+        return future;
+    }
+
+    private void flush() {
+        Map<String, CompletableFuture<Patient>> batch;
+        synchronized (lock) {
+            batch = takePending();
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+    }
+
+    private Map<String, CompletableFuture<Patient>> takePending() {
+        Map<String, CompletableFuture<Patient>> batch = pending;
+        pending = new LinkedHashMap<>();
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        return batch;
+    }
+
+    private void dispatch(Map<String, CompletableFuture<Patient>> batch) {
+        try {
+            executor.execute(() -> {
+                try {
+                    Map<String, Patient> found = fetch.apply(new ArrayList<>(batch.keySet()));
+                    batch.forEach((id, future) -> future.complete(found.get(id)));
+                } catch (RuntimeException e) {
+                    batch.values().forEach(future -> future.completeExceptionally(e));
+                }
+            });
+        } catch (RuntimeException e) {
+            // Executor rejected the batch (e.g. the client was closed)
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+}
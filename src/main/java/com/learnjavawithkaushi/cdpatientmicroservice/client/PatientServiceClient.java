@@ -1,37 +1,163 @@
 package com.learnjavawithkaushi.cdpatientmicroservice.client;
 
+import com.learnjavawithkaushi.cdpatientmicroservice.config.PatientProperties;
 import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.core.IntervalFunction;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedRetryMetrics;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
+/**
+ * Client for the patients API. Every call has a blocking and a {@link CompletableFuture}
+ * variant; at most {@code patient.client.max-concurrent-requests} requests are in flight at
+ * once across both, and further calls wait for a free slot. Close the client when it is not
+ * managed by Spring to stop its worker threads. Bodies are sent and preferably received as
+ * {@code patient.client.media-type}: JSON by default, Smile or CBOR to skip text parsing.
+ * <p>
+ * All calls go through one circuit breaker: once I/O errors and 5xx responses exceed
+ * {@code patient.client.failure-rate-threshold}, calls fail fast with a
+ * {@link CallNotPermittedException} cause until a few
+ * half-open probes succeed. Idempotent calls (GET, PUT, DELETE and the read-only
+ * {@code _mget} POST) are retried on I/O errors, 429, 502, 503 and 504 with jittered
+ * exponential backoff; {@code createPatient} is never retried. Call latency per operation
+ * and outcome, breaker state, retry outcomes and hedged requests are published as metrics
+ * when the client is bound to a {@link MeterRegistry}.
+ */
 @Component
 @Slf4j
-public class PatientServiceClient {
+public class PatientServiceClient implements AutoCloseable, MeterBinder {
+
+    /** Circuit breaker name, used as the {@code name} tag of the breaker metrics. */
+    public static final String SERVICE_NAME = "patient-service";
+
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final ParameterizedTypeReference<List<Patient>> PATIENT_LIST = new ParameterizedTypeReference<>() {
+    };
 
     private final RestTemplate restTemplate;
     private final String baseUrl;
+    private final Semaphore inFlight;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService timer;
+    private final PatientLookupBatcher batcher;
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final CircuitBreaker circuitBreaker;
+    private final RetryRegistry retries;
+    private final Duration hedgeDelay;
+    private final MediaType mediaType;
+    private final List<MediaType> accept;
+    private final AtomicLong hedgedRequests = new AtomicLong();
+    private volatile MeterRegistry meterRegistry;
 
     public PatientServiceClient(RestTemplate restTemplate) {
+        this(restTemplate, new PatientProperties.Client());
+    }
+
+    @Autowired
+    public PatientServiceClient(RestTemplate restTemplate, PatientProperties properties) {
+        this(restTemplate, properties.getClient());
+    }
+
+    public PatientServiceClient(RestTemplate restTemplate, PatientProperties.Client config) {
+        String url = config.getBaseUrl();
         this.restTemplate = restTemplate;
-        this.baseUrl = "http://localhost:8080/api/patients";
+        this.baseUrl = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+        this.inFlight = new Semaphore(config.getMaxConcurrentRequests(), true);
+        // One worker per permit: async calls never queue up more threads than can make progress
+        this.executor = Executors.newFixedThreadPool(config.getMaxConcurrentRequests(), daemonThreads("patient-client-"));
+        this.timer = Executors.newSingleThreadScheduledExecutor(daemonThreads("patient-client-batcher-"));
+        this.batcher = new PatientLookupBatcher(this::fetchBatch, executor, timer,
+                config.getMgetBatchSize(), config.getCoalesceWindow());
+        this.circuitBreakers = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .failureRateThreshold(config.getFailureRateThreshold())
+                .slidingWindowSize(config.getSlidingWindowSize())
+                .minimumNumberOfCalls(config.getSlidingWindowSize())
+                .waitDurationInOpenState(config.getOpenStateWait())
+                .permittedNumberOfCallsInHalfOpenState(config.getHalfOpenCalls())
+                // 4xx answers mean the service is up; only outages count against it
+                .recordExceptions(ResourceAccessException.class, HttpServerErrorException.class)
+                .build());
+        this.circuitBreaker = circuitBreakers.circuitBreaker(SERVICE_NAME);
+        this.circuitBreaker.getEventPublisher().onStateTransition(event ->
+                log.warn("Circuit breaker {}: {}", SERVICE_NAME, event.getStateTransition()));
+        this.retries = RetryRegistry.of(RetryConfig.custom()
+                .maxAttempts(config.getMaxAttempts())
+                .intervalFunction(IntervalFunction.ofExponentialRandomBackoff(
+                        config.getRetryBackoff(), 2, 0.5, config.getMaxRetryBackoff()))
+                .retryExceptions(ResourceAccessException.class,
+                        HttpClientErrorException.TooManyRequests.class,
+                        HttpServerErrorException.BadGateway.class,
+                        HttpServerErrorException.ServiceUnavailable.class,
+                        HttpServerErrorException.GatewayTimeout.class)
+                .build());
+        this.retries.getEventPublisher().onEntryAdded(event -> event.getAddedEntry().getEventPublisher()
+                .onRetry(retry -> log.warn("Retrying {} (attempt {}) in {}: {}", retry.getName(),
+                        retry.getNumberOfRetryAttempts(), retry.getWaitInterval(),
+                        retry.getLastThrowable().getMessage())));
+        this.hedgeDelay = config.getHedgeDelay();
+        this.mediaType = config.getMediaType();
+        this.accept = MediaType.APPLICATION_JSON.equalsTypeAndSubtype(mediaType)
+                ? List.of(MediaType.APPLICATION_JSON)
+                : List.of(mediaType, new MediaType("application", "json", 0.9));
     }
 
     public List<Patient> getAllPatients() {
-        log.info("Calling GET /api/patients");
+        log.debug("Calling GET /api/patients");
         try {
-            ResponseEntity<List<Patient>> response = restTemplate.exchange(
-                    baseUrl,
-                    HttpMethod.GET,
-                    null,
-                    new ParameterizedTypeReference<List<Patient>>() {}
-            );
-            log.info("Successfully retrieved {} patients", response.getBody().size());
-            return response.getBody();
+            List<Patient> patients = new ArrayList<>();
+            String cursor = null;
+            do {
+                String after = cursor;
+                HttpEntity<Void> request = new HttpEntity<>(headers(false));
+                ResponseEntity<List<Patient>> response = callIdempotent("getAllPatients", () -> after == null
+                        ? restTemplate.exchange(baseUrl, HttpMethod.GET, request, PATIENT_LIST)
+                        : restTemplate.exchange(baseUrl + "?after={after}", HttpMethod.GET, request, PATIENT_LIST, after));
+                patients.addAll(response.getBody());
+                cursor = response.getHeaders().getFirst(NEXT_CURSOR_HEADER);
+            } while (cursor != null);
+            if (log.isDebugEnabled()) {
+                log.debug("Successfully retrieved {} patients", patients.size());
+            }
+            return patients;
         } catch (Exception e) {
             log.error("Error retrieving all patients: {}", e.getMessage());
             throw new RuntimeException("Failed to retrieve patients", e);
@@ -39,13 +165,20 @@ public class PatientServiceClient {
     }
 
     public Patient getPatientById(String id) {
-        log.info("Calling GET /api/patients/{}", id);
+        return hedgeDelay == null ? fetchPatient(id) : join(getPatientByIdAsync(id));
+    }
+
+    private Patient fetchPatient(String id) {
+        log.debug("Calling GET /api/patients/{}", id);
         try {
-            ResponseEntity<Patient> response = restTemplate.getForEntity(
-                    baseUrl + "/" + id,
-                    Patient.class
-            );
-            log.info("Successfully retrieved patient with id: {}", id);
+            ResponseEntity<Patient> response = callIdempotent("getPatientById", () -> restTemplate.exchange(
+                    baseUrl + "/{id}",
+                    HttpMethod.GET,
+                    new HttpEntity<>(headers(false)),
+                    Patient.class,
+                    id
+            ));
+            log.debug("Successfully retrieved patient with id: {}", id);
             return response.getBody();
         } catch (Exception e) {
             log.error("Error retrieving patient with id {}: {}", id, e.getMessage());
@@ -54,18 +187,16 @@ public class PatientServiceClient {
     }
 
     public Patient createPatient(Patient patient) {
-        log.info("Calling POST /api/patients");
+        log.debug("Calling POST /api/patients");
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<Patient> request = new HttpEntity<>(patient, headers);
+            HttpEntity<Patient> request = new HttpEntity<>(patient, headers(true));
 
-            ResponseEntity<Patient> response = restTemplate.postForEntity(
+            ResponseEntity<Patient> response = call("createPatient", () -> restTemplate.postForEntity(
                     baseUrl,
                     request,
                     Patient.class
-            );
-            log.info("Successfully created patient with id: {}", response.getBody().getId());
+            ));
+            log.debug("Successfully created patient with id: {}", response.getBody().getId());
             return response.getBody();
         } catch (Exception e) {
             log.error("Error creating patient: {}", e.getMessage());
@@ -74,19 +205,18 @@ public class PatientServiceClient {
     }
 
     public Patient updatePatient(String id, Patient patient) {
-        log.info("Calling PUT /api/patients/{}", id);
+        log.debug("Calling PUT /api/patients/{}", id);
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<Patient> request = new HttpEntity<>(patient, headers);
+            HttpEntity<Patient> request = new HttpEntity<>(patient, headers(true));
 
-            ResponseEntity<Patient> response = restTemplate.exchange(
-                    baseUrl + "/" + id,
+            ResponseEntity<Patient> response = callIdempotent("updatePatient", () -> restTemplate.exchange(
+                    baseUrl + "/{id}",
                     HttpMethod.PUT,
                     request,
-                    Patient.class
-            );
-            log.info("Successfully updated patient with id: {}", id);
+                    Patient.class,
+                    id
+            ));
+            log.debug("Successfully updated patient with id: {}", id);
             return response.getBody();
         } catch (Exception e) {
             log.error("Error updating patient with id {}: {}", id, e.getMessage());
@@ -95,10 +225,13 @@ public class PatientServiceClient {
     }
 
     public void deletePatient(String id) {
-        log.info("Calling DELETE /api/patients/{}", id);
+        log.debug("Calling DELETE /api/patients/{}", id);
         try {
-            restTemplate.delete(baseUrl + "/" + id);
-            log.info("Successfully deleted patient with id: {}", id);
+            callIdempotent("deletePatient", () -> {
+                restTemplate.delete(baseUrl + "/{id}", id);
+                return null;
+            });
+            log.debug("Successfully deleted patient with id: {}", id);
         } catch (Exception e) {
             log.error("Error deleting patient with id {}: {}", id, e.getMessage());
             throw new RuntimeException("Failed to delete patient with id: " + id, e);
@@ -106,16 +239,264 @@ public class PatientServiceClient {
     }
 
     public String getHealthStatus() {
-        log.info("Calling GET /api/patients/health");
+        log.debug("Calling GET /api/patients/health");
         try {
-            ResponseEntity<String> response = restTemplate.getForEntity(
+            ResponseEntity<String> response = callIdempotent("getHealthStatus", () -> restTemplate.getForEntity(
                     baseUrl + "/health",
                     String.class
-            );
+            ));
             return response.getBody();
         } catch (Exception e) {
             log.error("Error checking health status: {}", e.getMessage());
             throw new RuntimeException("Failed to check health status", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Fetches many patients, batching ids into {@code POST /_mget} requests of at most
+     * {@code patient.client.mget-batch-size}. Lookups from concurrent callers made within
+     * {@code patient.client.coalesce-window} share batches. Unknown ids are left out.
+     *
+     * @return the found patients keyed by id, in the order the ids were given
+     */
+    public Map<String, Patient> getPatientsByIds(Collection<String> ids) {
+        if (log.isDebugEnabled()) {
+            log.debug("Fetching {} patients by id", ids.size());
+        }
+        try {
+            return getPatientsByIdsAsync(ids).join();
+        } catch (CompletionException e) {
+            log.error("Error retrieving patients by id: {}", e.getCause().getMessage());
+            throw new RuntimeException("Failed to retrieve patients by id", e.getCause());
+        }
+    }
+
+    public CompletableFuture<Map<String, Patient>> getPatientsByIdsAsync(Collection<String> ids) {
+        Map<String, CompletableFuture<Patient>> lookups = new LinkedHashMap<>();
+        for (String id : new LinkedHashSet<>(ids)) {
+            lookups.put(id, batcher.load(id));
+        }
+        return CompletableFuture.allOf(lookups.values().toArray(CompletableFuture[]::new))
+                .thenApply(done -> {
+                    Map<String, Patient> found = new LinkedHashMap<>();
+                    lookups.forEach((id, lookup) -> {
+                        Patient patient = lookup.join();
+                        if (patient != null) {
+                            found.put(id, patient);
+                        }
+                    });
+                    return found;
+                });
+    }
+
+    public CompletableFuture<List<Patient>> getAllPatientsAsync() {
+        return CompletableFuture.supplyAsync(this::getAllPatients, executor);
+    }
+
+    /**
+     * With {@code patient.client.hedge-delay} set, a second request is sent when the first
+     * has not answered in time, and the first successful answer wins.
+     */
+    public CompletableFuture<Patient> getPatientByIdAsync(String id) {
+        if (hedgeDelay == null) {
+            return CompletableFuture.supplyAsync(() -> fetchPatient(id), executor);
+        }
+        return hedged(() -> fetchPatient(id));
+    }
+
+    public CompletableFuture<Patient> createPatientAsync(Patient patient) {
+        return CompletableFuture.supplyAsync(() -> createPatient(patient), executor);
+    }
+
+    public CompletableFuture<Patient> updatePatientAsync(String id, Patient patient) {
+        return CompletableFuture.supplyAsync(() -> updatePatient(id, patient), executor);
+    }
+
+    public CompletableFuture<Void> deletePatientAsync(String id) {
+        return CompletableFuture.runAsync(() -> deletePatient(id), executor);
+    }
+
+    public CompletableFuture<String> getHealthStatusAsync() {
+        return CompletableFuture.supplyAsync(this::getHealthStatus, executor);
+    }
+
+    /**
+     * Binds {@code patient.client.requests} (per operation and outcome, retries and backoff
+     * included), {@code resilience4j.circuitbreaker.*} (state, calls, failure rate),
+     * {@code resilience4j.retry.calls} tagged by operation and outcome, and
+     * {@code patient.client.hedged.requests}. Single attempts are timed by the
+     * {@code RestTemplate} as {@code http.client.requests}.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.meterRegistry = registry;
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakers).bindTo(registry);
+        TaggedRetryMetrics.ofRetryRegistry(retries).bindTo(registry);
+        FunctionCounter.builder("patient.client.hedged.requests", hedgedRequests, AtomicLong::get)
+                .description("Second getPatientById requests sent because the first was slow")
+                .register(registry);
+    }
+
+    public CircuitBreaker.State getCircuitBreakerState() {
+        return circuitBreaker.getState();
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        executor.shutdown();
+    }
+
+    private Map<String, Patient> fetchBatch(List<String> ids) {
+        if (log.isDebugEnabled()) {
+            log.debug("Calling POST /api/patients/_mget with {} ids", ids.size());
+        }
+        ResponseEntity<List<Patient>> response = callIdempotent("getPatientsByIds", () -> restTemplate.exchange(
+                baseUrl + "/_mget",
+                HttpMethod.POST,
+                new HttpEntity<>(ids, headers(true)),
+                PATIENT_LIST
+        ));
+        Map<String, Patient> found = new LinkedHashMap<>();
+        for (Patient patient : response.getBody()) {
+            found.put(patient.getId(), patient);
+        }
+        return found;
+    }
+
+    /**
+     * Asks for {@code patient.client.media-type} (JSON as fallback) and, for calls with a
+     * body, sends it in that format.
+     */
+    private HttpHeaders headers(boolean withBody) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(accept);
+        if (withBody) {
+            headers.setContentType(mediaType);
+        }
+        return headers;
+    }
+
+    /**
+     * Runs one HTTP exchange through the circuit breaker, without retries.
+     */
+    private <T> T call(String operation, Supplier<T> exchange) {
+        return timed(operation, () -> attempt(exchange));
+    }
+
+    /**
+     * Runs an idempotent HTTP exchange, retrying transient failures. Every attempt goes
+     * through the circuit breaker, so an open circuit stops the retries too, and the in-flight
+     * slot is released while backing off.
+     */
+    private <T> T callIdempotent(String operation, Supplier<T> exchange) {
+        Retry retry = retries.retry(operation);
+        return timed(operation, () -> retry.executeSupplier(() -> attempt(exchange)));
+    }
+
+    private <T> T attempt(Supplier<T> exchange) {
+        return circuitBreaker.executeSupplier(() -> withSlot(exchange));
+    }
+
+    private <T> T timed(String operation, Supplier<T> call) {
+        MeterRegistry registry = meterRegistry;
+        if (registry == null) {
+            return call.get();
+        }
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "SUCCESS";
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            outcome = outcome(e);
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("patient.client.requests")
+                    .description("PatientServiceClient calls as seen by the caller, retries included")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+    }
+
+    private static String outcome(RuntimeException e) {
+        if (e instanceof CallNotPermittedException) {
+            return "CIRCUIT_OPEN";
+        }
+        if (e instanceof HttpClientErrorException) {
+            return "CLIENT_ERROR";
+        }
+        if (e instanceof HttpServerErrorException) {
+            return "SERVER_ERROR";
+        }
+        if (e instanceof ResourceAccessException) {
+            return "IO_ERROR";
+        }
+        return "UNKNOWN";
+    }
+
+    /**
+     * Starts {@code request} and, if it has not completed after the hedge delay, a second copy
+     * of it. Completes with the first success, or with the last failure once every started
+     * request has failed. The slower request is left to finish; its answer is discarded.
+     */
+    private <T> CompletableFuture<T> hedged(Supplier<T> request) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger running = new AtomicInteger(1);
+        Runnable attempt = () -> CompletableFuture.supplyAsync(request, executor).whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+            } else if (running.decrementAndGet() == 0) {
+                result.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+            }
+        });
+        attempt.run();
+        ScheduledFuture<?> hedge = timer.schedule(() -> {
+            if (!result.isDone()) {
+                running.incrementAndGet();
+                hedgedRequests.incrementAndGet();
+                attempt.run();
+            }
+        }, hedgeDelay.toNanos(), TimeUnit.NANOSECONDS);
+        result.whenComplete((value, error) -> hedge.cancel(false));
+        return result;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Runs one HTTP exchange while holding an in-flight slot.
+     */
+    private <T> T withSlot(Supplier<T> exchange) {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a request slot", e);
+        }
+        try {
+            return exchange.get();
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
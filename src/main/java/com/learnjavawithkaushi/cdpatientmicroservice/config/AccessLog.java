@@ -0,0 +1,61 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+
+import java.util.HexFormat;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The one INFO event logged per request, on the {@code access} logger, as
+ * {@code method=... path=... status=... duration_ms=...}. The path never includes the query
+ * string, which can carry search terms such as names. The request id is taken from an inbound
+ * {@code X-Request-Id} when it is well formed, generated otherwise, echoed on the response and
+ * put in the MDC as {@code requestId}.
+ */
+@Slf4j(topic = "access")
+final class AccessLog {
+
+    static final String REQUEST_ID_HEADER = "X-Request-Id";
+    static final String MDC_KEY = "requestId";
+
+    private static final int MAX_REQUEST_ID_LENGTH = 64;
+    private static final HexFormat HEX = HexFormat.of();
+
+    private AccessLog() {
+    }
+
+    static String requestId(String header) {
+        return isWellFormed(header) ? header : HEX.toHexDigits(ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Only ids that cannot forge or break log lines are propagated.
+     */
+    private static boolean isWellFormed(String requestId) {
+        if (requestId == null || requestId.isEmpty() || requestId.length() > MAX_REQUEST_ID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < requestId.length(); i++) {
+            char c = requestId.charAt(i);
+            if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9'
+                    || c == '-' || c == '_' || c == '.' || c == ':')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static void log(String requestId, String method, String path, int status, long startNanos) {
+        if (!log.isInfoEnabled()) {
+            return;
+        }
+        double durationMillis = (System.nanoTime() - startNanos) / 1000 / 1000.0;
+        MDC.put(MDC_KEY, requestId);
+        try {
+            log.info("method={} path={} status={} duration_ms={}", method, path, status, durationMillis);
+        } finally {
+            MDC.remove(MDC_KEY);
+        }
+    }
+}
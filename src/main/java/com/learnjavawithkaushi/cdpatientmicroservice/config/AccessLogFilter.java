@@ -0,0 +1,71 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.config;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Writes the servlet stack's {@link AccessLog} line. Runs first, so everything logged on the
+ * request thread carries the request id; async requests (NDJSON streaming) are logged when
+ * they complete.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        String requestId = AccessLog.requestId(request.getHeader(AccessLog.REQUEST_ID_HEADER));
+        response.setHeader(AccessLog.REQUEST_ID_HEADER, requestId);
+        MDC.put(AccessLog.MDC_KEY, requestId);
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = false;
+        } finally {
+            MDC.remove(AccessLog.MDC_KEY);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new CompletionListener(requestId, request, response, start));
+            } else {
+                // An exception escaping the chain becomes a 500 once the container's error page handles it
+                AccessLog.log(requestId, request.getMethod(), request.getRequestURI(),
+                        failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus(), start);
+            }
+        }
+    }
+
+    private record CompletionListener(String requestId, HttpServletRequest request, HttpServletResponse response,
+                                      long start) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            AccessLog.log(requestId, request.getMethod(), request.getRequestURI(), response.getStatus(), start);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
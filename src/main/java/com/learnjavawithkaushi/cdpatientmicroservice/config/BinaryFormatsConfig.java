@@ -0,0 +1,135 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.reactivestreams.Publisher;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Smile and CBOR next to JSON, chosen per request through {@code Accept} and
+ * {@code Content-Type}. Spring would register both formats on its own with a plain mapper;
+ * these are built from Boot's {@link Jackson2ObjectMapperBuilder} instead, so binary bodies
+ * carry the same modules and settings as JSON (ISO dates, {@code spring.jackson.*}).
+ */
+@Configuration
+public class BinaryFormatsConfig {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    public static final MediaType APPLICATION_SMILE = MediaType.parseMediaType(APPLICATION_SMILE_VALUE);
+
+    /** What the patient endpoints produce; JSON first, so {@code *}{@code /*} and no Accept get JSON. */
+    public static final List<MediaType> PRODUCIBLE = List.of(MediaType.APPLICATION_JSON, APPLICATION_SMILE,
+            MediaType.APPLICATION_CBOR);
+
+    private static final Comparator<MediaType> PREFERENCE = Comparator.comparingDouble(MediaType::getQualityValue)
+            .reversed()
+            .thenComparing(MediaType::isWildcardType)
+            .thenComparing(MediaType::isWildcardSubtype);
+
+    /** Replaces the servlet default of the same type. */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(smile(builder));
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(cbor(builder));
+    }
+
+    /**
+     * WebFlux counterpart. Its defaults include Smile but not Jackson CBOR, which is
+     * registered as a custom codec. The CBOR decoder only reads whole bodies, so handlers
+     * must use {@code bodyToMono} for CBOR requests.
+     */
+    @Bean
+    public CodecCustomizer binaryFormatCodecs(Jackson2ObjectMapperBuilder smileBuilder,
+                                              Jackson2ObjectMapperBuilder cborBuilder) {
+        ObjectMapper smile = smile(smileBuilder);
+        ObjectMapper cbor = cbor(cborBuilder);
+        return configurer -> {
+            // Given a mapper but no MIME types, the Jackson Smile and CBOR codecs fall back to
+            // application/json: Smile would never be chosen, and CBOR, a custom codec consulted
+            // before the JSON ones, would claim JSON requests
+            configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smile, APPLICATION_SMILE));
+            configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smile, APPLICATION_SMILE));
+            configurer.customCodecs().register(new CborEncoder(cbor));
+            configurer.customCodecs().register(new Jackson2CborDecoder(cbor, MediaType.APPLICATION_CBOR));
+        };
+    }
+
+    /**
+     * The first of {@link #PRODUCIBLE} the accepted types allow, by quality and then
+     * specificity: JSON when nothing is accepted explicitly, {@code null} when none is
+     * acceptable, which callers answer with a 406.
+     */
+    public static MediaType negotiate(List<MediaType> accepted) {
+        if (accepted.isEmpty()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> sorted = new ArrayList<>(accepted);
+        sorted.sort(PREFERENCE);
+        for (MediaType accept : sorted) {
+            for (MediaType producible : PRODUCIBLE) {
+                if (accept.isCompatibleWith(producible)) {
+                    return producible;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * {@link Jackson2CborEncoder} refuses {@code encode}, which WebFlux calls for every body,
+     * single values included. Encodes a single value as is and a stream as one CBOR array.
+     */
+    static class CborEncoder extends Jackson2CborEncoder {
+
+        CborEncoder(ObjectMapper mapper) {
+            super(mapper, MediaType.APPLICATION_CBOR);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> input, DataBufferFactory bufferFactory, ResolvableType elementType,
+                                       MimeType mimeType, Map<String, Object> hints) {
+            if (input instanceof Mono<?> value) {
+                return value.map(item -> encodeValue(item, bufferFactory, elementType, mimeType, hints)).flux();
+            }
+            ResolvableType listType = ResolvableType.forClassWithGenerics(List.class, elementType);
+            return Flux.from(input).collectList()
+                    .map(items -> encodeValue(items, bufferFactory, listType, mimeType, hints))
+                    .flux();
+        }
+    }
+
+    // Each parameter is a fresh builder: Boot declares Jackson2ObjectMapperBuilder as a prototype
+    private static ObjectMapper smile(Jackson2ObjectMapperBuilder builder) {
+        return builder.factory(new SmileFactory()).build();
+    }
+
+    private static ObjectMapper cbor(Jackson2ObjectMapperBuilder builder) {
+        return builder.factory(new CBORFactory()).build();
+    }
+}
@@ -0,0 +1,22 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Instrumentation on top of what Boot already records ({@code http.server.requests},
+ * {@code mongodb.driver.commands}, the Mongo pool gauges and {@code @Timed} service timers).
+ * Together with {@link TimedValidator}, installed by {@link ValidationConfig}, they split a slow
+ * request into container, validation, service and Mongo time.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoConnectionCheckoutMetrics(MeterRegistry meterRegistry) {
+        MongoConnectionCheckoutMetrics listener = new MongoConnectionCheckoutMetrics(meterRegistry);
+        return settings -> settings.applyToConnectionPoolSettings(pool -> pool.addConnectionPoolListener(listener));
+    }
+}
@@ -0,0 +1,71 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.config;
+
+import com.mongodb.MongoCompressor;
+import com.mongodb.ReadPreference;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ClassUtils;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies {@code patient.mongo.*} (pool, timeouts, wire compression, default read preference)
+ * to the Mongo clients Boot creates for both web stacks. The read preference and concern of
+ * list reads are applied per query by the patient repositories.
+ */
+@Configuration
+public class MongoClientConfig {
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoClientTuning(PatientProperties properties) {
+        PatientProperties.Mongo mongo = properties.getMongo();
+        List<MongoCompressor> compressors = compressors(mongo.getCompressors());
+        ReadPreference readPreference = ReadPreference.valueOf(mongo.getReadPreference());
+        return settings -> settings
+                .applyToConnectionPoolSettings(pool -> pool
+                        .maxSize(mongo.getMaxPoolSize())
+                        .minSize(mongo.getMinPoolSize())
+                        .maxConnecting(mongo.getMaxConnecting())
+                        .maxWaitTime(mongo.getMaxWaitTime().toMillis(), TimeUnit.MILLISECONDS)
+                        .maxConnectionIdleTime(mongo.getMaxConnectionIdleTime().toMillis(), TimeUnit.MILLISECONDS))
+                .applyToSocketSettings(socket -> socket
+                        .connectTimeout(mongo.getConnectTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                        .readTimeout(mongo.getReadTimeout().toMillis(), TimeUnit.MILLISECONDS))
+                .applyToClusterSettings(cluster -> cluster
+                        .serverSelectionTimeout(mongo.getServerSelectionTimeout().toMillis(), TimeUnit.MILLISECONDS))
+                .compressorList(compressors)
+                .readPreference(readPreference);
+    }
+
+    /**
+     * Fails at startup on an unknown compressor, or one whose library is missing, rather than
+     * on the first connection that negotiates it.
+     */
+    static List<MongoCompressor> compressors(List<String> names) {
+        return names.stream()
+                .map(name -> switch (name.trim().toLowerCase(Locale.ROOT)) {
+                    case "zstd" -> {
+                        requireLibrary(name, "com.github.luben.zstd.Zstd");
+                        yield MongoCompressor.createZstdCompressor();
+                    }
+                    case "snappy" -> {
+                        requireLibrary(name, "org.xerial.snappy.Snappy");
+                        yield MongoCompressor.createSnappyCompressor();
+                    }
+                    case "zlib" -> MongoCompressor.createZlibCompressor();
+                    default -> throw new IllegalArgumentException(
+                            "Unknown patient.mongo.compressors entry: " + name + " (zstd, snappy or zlib)");
+                })
+                .toList();
+    }
+
+    private static void requireLibrary(String compressor, String className) {
+        if (!ClassUtils.isPresent(className, MongoClientConfig.class.getClassLoader())) {
+            throw new IllegalStateException("The " + compressor + " compressor needs " + className
+                    + " on the classpath");
+        }
+    }
+}
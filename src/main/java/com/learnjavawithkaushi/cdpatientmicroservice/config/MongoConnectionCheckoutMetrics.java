@@ -0,0 +1,46 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.config;
+
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how long operations wait to check a connection out of the Mongo pool as
+ * {@code mongodb.driver.pool.checkout}, tagged by server and outcome. Complements Boot's pool
+ * gauges ({@code mongodb.driver.pool.checkedout}, {@code waitqueuesize}, ...), which show
+ * pool occupancy but not the latency it adds to commands.
+ */
+class MongoConnectionCheckoutMetrics implements ConnectionPoolListener {
+
+    private final MeterRegistry registry;
+
+    MongoConnectionCheckoutMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        record(event.getConnectionId().getServerId(), "success", event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+        record(event.getServerId(), event.getReason().name().toLowerCase(Locale.ROOT), event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    private void record(ServerId serverId, String outcome, long nanos) {
+        Timer.builder("mongodb.driver.pool.checkout")
+                .description("Time spent waiting for a pooled connection")
+                .tag("server.address", serverId.getAddress().toString())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,47 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.config;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.connection.ClusterDescription;
+import org.bson.Document;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mongo readiness: UP when a {@code ping} to a writable server answers. A cluster without a
+ * writable server, as last seen by the driver's monitoring heartbeats, is reported DOWN at
+ * once, instead of waiting out the driver's server selection timeout and the probe's own
+ * timeout with it. Replaces Boot's {@code mongo} indicator under the same name (it backs off
+ * from a bean called {@code mongoHealthIndicator}) in both web stacks.
+ */
+@Component("mongoHealthIndicator")
+public class MongoPingHealthIndicator implements HealthIndicator {
+
+    private static final Document PING = new Document("ping", 1);
+
+    private final MongoClient mongoClient;
+    private final MongoTemplate mongoTemplate;
+
+    public MongoPingHealthIndicator(MongoClient mongoClient, MongoTemplate mongoTemplate) {
+        this.mongoClient = mongoClient;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Health health() {
+        ClusterDescription cluster = mongoClient.getClusterDescription();
+        if (!cluster.hasWritableServer()) {
+            return Health.down()
+                    .withDetail("cluster", cluster.getType())
+                    .withDetail("error", "No writable server")
+                    .build();
+        }
+        long start = System.nanoTime();
+        mongoTemplate.executeCommand(PING);
+        return Health.up()
+                .withDetail("cluster", cluster.getType())
+                .withDetail("pingMillis", (System.nanoTime() - start) / 1_000_000)
+                .build();
+    }
+}
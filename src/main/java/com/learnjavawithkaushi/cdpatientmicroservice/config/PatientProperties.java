@@ -0,0 +1,186 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.config;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientValidationException;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.MediaType;
+
+import java.time.Duration;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "patient")
+public class PatientProperties {
+
+    private Pagination pagination = new Pagination();
+    private Bulk bulk = new Bulk();
+    private Cache cache = new Cache();
+    private Indexes indexes = new Indexes();
+    private Client client = new Client();
+    private Changes changes = new Changes();
+    private Mongo mongo = new Mongo();
+
+    @Data
+    public static class Pagination {
+        /** Page size used when the client does not pass {@code limit}. */
+        private int defaultLimit = 100;
+        /** Upper bound for {@code limit}; larger values are clamped. */
+        private int maxLimit = 1000;
+
+        public int resolveLimit(Integer limit) {
+            if (limit == null) {
+                return defaultLimit;
+            }
+            if (limit < 1) {
+                throw new PatientValidationException("limit must be a positive number");
+            }
+            return Math.min(limit, maxLimit);
+        }
+    }
+
+    @Data
+    public static class Bulk {
+        /** Number of valid documents sent to Mongo per unordered bulk write. */
+        private int batchSize = 500;
+        /** Largest number of ids accepted by one {@code POST /api/patients/_mget}. */
+        private int maxMgetIds = 1000;
+
+        public List<String> requireMgetIds(List<String> ids) {
+            if (ids.size() > maxMgetIds) {
+                throw new PatientValidationException("At most " + maxMgetIds + " ids can be fetched at once");
+            }
+            if (ids.stream().anyMatch(id -> id == null || id.isBlank())) {
+                throw new PatientValidationException("ids must not be blank");
+            }
+            return ids;
+        }
+    }
+
+    @Data
+    public static class Cache {
+        /** Upper bound on cached entries; Caffeine evicts by W-TinyLFU beyond it. */
+        private long maximumSize = 100_000;
+        /** How long a found patient stays cached after it was loaded. */
+        private Duration ttl = Duration.ofMinutes(10);
+        /** How long a miss (unknown id) stays cached. */
+        private Duration negativeTtl = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Indexes {
+        /** Create the search indexes in the background once the application is ready. */
+        private boolean createOnStartup = true;
+    }
+
+    @Data
+    public static class Changes {
+        /**
+         * Change feed streams and long polls open at once in servlet mode, each holding a
+         * thread and a change stream cursor; further requests get a 503.
+         */
+        private int maxSubscribers = 100;
+        /** How long a long poll waits for the first change; keep it below the async request timeout. */
+        private Duration pollWait = Duration.ofSeconds(20);
+        /** A stream without changes sends an SSE comment this often, which also notices gone clients. */
+        private Duration heartbeat = Duration.ofSeconds(15);
+        /** A stream is closed after this long; EventSource clients reconnect with {@code Last-Event-ID}. */
+        private Duration streamTimeout = Duration.ofMinutes(30);
+        /**
+         * {@code GET /api/patients/changes} leaves out writes younger than this. Write times are
+         * taken before the write commits, so a recent one could still commit behind a page.
+         */
+        private Duration deltaLag = Duration.ofSeconds(5);
+        /** How long deletes stay visible to {@code GET /api/patients/changes}. */
+        private Duration tombstoneRetention = Duration.ofDays(30);
+    }
+
+    /**
+     * Mongo client tuning, applied by {@link MongoClientConfig} on top of
+     * {@code spring.data.mongodb.uri}; these win over the same options in the URI.
+     */
+    @Data
+    public static class Mongo {
+        /** Pooled connections per server. */
+        private int maxPoolSize = 100;
+        /** Connections kept open per server even when idle. */
+        private int minPoolSize = 0;
+        /** Connections a pool establishes at once; more wait their turn. */
+        private int maxConnecting = 2;
+        /** How long an operation waits for a pooled connection before failing (the driver waits 2 minutes). */
+        private Duration maxWaitTime = Duration.ofSeconds(2);
+        /** Idle pooled connections are closed after this long. */
+        private Duration maxConnectionIdleTime = Duration.ofMinutes(5);
+        /** Time to establish a connection. */
+        private Duration connectTimeout = Duration.ofSeconds(10);
+        /**
+         * Time to wait for a reply on an established connection; zero waits forever. Keep it
+         * above {@code patient.changes.heartbeat}, which change streams wait on the server.
+         */
+        private Duration readTimeout = Duration.ofSeconds(30);
+        /** How long an operation waits for a suitable server (the driver waits 30 seconds). */
+        private Duration serverSelectionTimeout = Duration.ofSeconds(5);
+        /**
+         * Wire compressors offered to the server in order of preference: {@code zstd},
+         * {@code snappy} (needs {@code snappy-java} on the classpath) or {@code zlib}.
+         */
+        private List<String> compressors = List.of();
+        /** Read preference of every read not listed below, e.g. {@code getById} and the cache loads. */
+        private String readPreference = "primary";
+        /**
+         * Read preference of list pages, search and the NDJSON export, e.g.
+         * {@code secondaryPreferred}. Reads from a secondary can lag behind recent writes.
+         */
+        private String listReadPreference = "primary";
+        /** Read concern level of those list reads, e.g. {@code local} or {@code majority}; unset uses the server default. */
+        private String listReadConcern;
+    }
+
+    @Data
+    public static class Client {
+        /** Base URL of the patients API called by {@code PatientServiceClient}. */
+        private String baseUrl = "http://localhost:8080/api/patients";
+        /** Pooled connections across all routes. */
+        private int maxConnections = 200;
+        /** Pooled connections per host; the client mostly talks to a single route. */
+        private int maxConnectionsPerRoute = 50;
+        /** Time to establish a TCP connection. */
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        /** Time to wait for response data once the request was sent. */
+        private Duration readTimeout = Duration.ofSeconds(5);
+        /** Time to wait for a free pooled connection before failing fast. */
+        private Duration connectionRequestTimeout = Duration.ofSeconds(1);
+        /** Idle connections are kept open this long for reuse, then evicted. */
+        private Duration keepAlive = Duration.ofSeconds(30);
+        /** Requests the client keeps in flight at once; further calls wait for a slot. */
+        private int maxConcurrentRequests = 32;
+        /** Ids per {@code _mget} request when batching lookups. */
+        private int mgetBatchSize = 100;
+        /** How long a lookup waits for concurrent lookups to join its batch. */
+        private Duration coalesceWindow = Duration.ofMillis(2);
+        /** Failure rate (I/O errors and 5xx responses, in percent) that opens the circuit. */
+        private float failureRateThreshold = 50;
+        /** Recent calls the failure rate is computed over; the circuit stays closed until this many were made. */
+        private int slidingWindowSize = 20;
+        /** How long an open circuit fails fast before letting probe calls through (half-open). */
+        private Duration openStateWait = Duration.ofSeconds(10);
+        /** Probe calls allowed while half-open; their failure rate closes or re-opens the circuit. */
+        private int halfOpenCalls = 3;
+        /** Attempts per idempotent call (GET, PUT, DELETE and {@code _mget}), the first one included. */
+        private int maxAttempts = 3;
+        /** Backoff before the first retry; doubles with every attempt and is randomized by +/-50%. */
+        private Duration retryBackoff = Duration.ofMillis(100);
+        /** Upper bound for a single retry backoff. */
+        private Duration maxRetryBackoff = Duration.ofSeconds(2);
+        /**
+         * {@code getPatientById} sends a second request when the first has not answered after
+         * this long and uses whichever answers first. Unset disables hedging.
+         */
+        private Duration hedgeDelay;
+        /**
+         * Format of request bodies and preferred response format, e.g.
+         * {@code application/x-jackson-smile} to skip text JSON between services. JSON stays
+         * acceptable for responses, so a server without the binary formats still answers.
+         */
+        private MediaType mediaType = MediaType.APPLICATION_JSON;
+    }
+}
@@ -0,0 +1,53 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.config;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import com.learnjavawithkaushi.cdpatientmicroservice.service.PatientValidator;
+import org.springframework.validation.Errors;
+import org.springframework.validation.SmartValidator;
+
+/**
+ * Validates {@code @Valid Patient} request bodies with {@link PatientValidator} instead of
+ * reflective Bean Validation; every other type, and validation groups, go to {@code delegate}.
+ * Rejected fields carry the constraint message as their default message, which is what
+ * {@code GlobalExceptionHandler} reports.
+ */
+class PatientRequestValidator implements SmartValidator {
+
+    private final PatientValidator patientValidator;
+    private final SmartValidator delegate;
+
+    PatientRequestValidator(PatientValidator patientValidator, SmartValidator delegate) {
+        this.patientValidator = patientValidator;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean supports(Class<?> clazz) {
+        return delegate.supports(clazz);
+    }
+
+    @Override
+    public void validate(Object target, Errors errors) {
+        validate(target, errors, new Object[0]);
+    }
+
+    @Override
+    public void validate(Object target, Errors errors, Object... validationHints) {
+        if (target instanceof Patient patient && validationHints.length == 0) {
+            patientValidator.validate(patient).forEach((field, message) -> errors.rejectValue(field, "invalid", message));
+        } else {
+            delegate.validate(target, errors, validationHints);
+        }
+    }
+
+    @Override
+    public void validateValue(Class<?> targetType, String fieldName, Object value, Errors errors,
+                              Object... validationHints) {
+        delegate.validateValue(targetType, fieldName, value, errors, validationHints);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> type) {
+        return delegate.unwrap(type);
+    }
+}
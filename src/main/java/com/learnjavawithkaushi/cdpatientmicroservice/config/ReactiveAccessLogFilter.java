@@ -0,0 +1,39 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Writes the reactive stack's {@link AccessLog} line once the exchange completes. Handlers
+ * hop threads, so the request id is only in the MDC for the access log line itself.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ReactiveAccessLogFilter implements WebFilter {
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        long start = System.nanoTime();
+        ServerHttpRequest request = exchange.getRequest();
+        String requestId = AccessLog.requestId(request.getHeaders().getFirst(AccessLog.REQUEST_ID_HEADER));
+        exchange.getResponse().getHeaders().set(AccessLog.REQUEST_ID_HEADER, requestId);
+        return chain.filter(exchange).doFinally(signal -> {
+            HttpStatusCode status = exchange.getResponse().getStatusCode();
+            if (status == null) {
+                status = signal == SignalType.ON_ERROR ? HttpStatus.INTERNAL_SERVER_ERROR : HttpStatus.OK;
+            }
+            AccessLog.log(requestId, request.getMethod().name(), request.getPath().value(), status.value(), start);
+        });
+    }
+}
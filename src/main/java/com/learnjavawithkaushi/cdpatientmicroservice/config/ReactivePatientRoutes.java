@@ -0,0 +1,62 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.config;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.controller.ReactivePatientHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RequestPredicate;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.contentType;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+/**
+ * Reactive execution mode, enabled with {@code spring.main.web-application-type=reactive}
+ * (the {@code reactive} profile). Mirrors the routes of {@code PatientController}.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactivePatientRoutes {
+
+    /**
+     * Only an explicit NDJSON Accept header selects streaming; {@code *}{@code /*} keeps the paged JSON list.
+     */
+    private static final RequestPredicate ACCEPTS_NDJSON = request -> request.headers().accept().stream()
+            .anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype);
+
+    @Bean
+    public RouterFunction<ServerResponse> patientRoutes(ReactivePatientHandler handler) {
+        return route()
+                .path("/api/patients", builder -> builder
+                        .GET("/health", handler::health)
+                        .GET("", ACCEPTS_NDJSON, handler::streamAll)
+                        .GET("", handler::getAll)
+                        .GET("/search", handler::search)
+                        .GET("/changes", handler::getChanges)
+                        .GET("/changes/stream", handler::streamChanges)
+                        .GET("/changes/poll", handler::pollChanges)
+                        .POST("/_bulk", contentType(MediaType.APPLICATION_JSON, MediaType.APPLICATION_NDJSON,
+                                BinaryFormatsConfig.APPLICATION_SMILE, MediaType.APPLICATION_CBOR), handler::bulk)
+                        .POST("/_bulk/stream", contentType(MediaType.APPLICATION_JSON, MediaType.APPLICATION_NDJSON),
+                                handler::bulkStream)
+                        .POST("/_mget", contentType(MediaType.APPLICATION_JSON, BinaryFormatsConfig.APPLICATION_SMILE,
+                                MediaType.APPLICATION_CBOR), handler::getByIds)
+                        .GET("/{id}", handler::getById)
+                        .POST("", handler::create)
+                        .PUT("/{id}", handler::update)
+                        .DELETE("/{id}", handler::delete))
+                .onError(Throwable.class, handler::handleError)
+                .build();
+    }
+
+    /**
+     * Both Tomcat and Netty are on the classpath; serve the reactive stack from Netty's event loop.
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
@@ -1,14 +1,83 @@
 package com.learnjavawithkaushi.cdpatientmicroservice.config;
 
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+/**
+ * {@link RestTemplate} backed by a pooled Apache HttpClient 5 connector, so calls reuse
+ * keep-alive connections instead of opening one per request. Gzip responses are
+ * decompressed transparently (the client advertises {@code Accept-Encoding} by default).
+ */
 @Configuration
 public class RestTemplateConfig {
 
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager patientClientConnectionManager(PatientProperties properties) {
+        PatientProperties.Client client = properties.getClient();
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(client.getMaxConnections())
+                .setMaxConnPerRoute(client.getMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(client.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(client.getReadTimeout()))
+                        // Cheap staleness check before reusing a connection idle for a while
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient patientHttpClient(PoolingHttpClientConnectionManager connectionManager,
+                                                 PatientProperties properties) {
+        PatientProperties.Client client = properties.getClient();
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(client.getConnectionRequestTimeout()))
+                        .setResponseTimeout(Timeout.of(client.getReadTimeout()))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(client.getKeepAlive()))
+                .build();
+    }
+
+    /**
+     * Boot only auto-configures {@link RestTemplateBuilder} (with its observation and message
+     * converter setup) in servlet mode; the reactive mode falls back to a plain builder and
+     * gets the observation registry set directly, so {@code http.client.requests} is recorded
+     * in both modes.
+     */
+    @Bean
+    public RestTemplate restTemplate(ObjectProvider<RestTemplateBuilder> builder, CloseableHttpClient patientHttpClient,
+                                     ObjectProvider<ObservationRegistry> observationRegistry) {
+        RestTemplate restTemplate = builder.getIfAvailable(RestTemplateBuilder::new)
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(patientHttpClient))
+                .build();
+        observationRegistry.ifAvailable(restTemplate::setObservationRegistry);
+        return restTemplate;
+    }
+
+    /**
+     * Publishes {@code httpcomponents.httpclient.pool.*} gauges (leased, pending, available, max)
+     * under {@code /actuator/metrics}.
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public MeterBinder patientClientPoolMetrics(PoolingHttpClientConnectionManager patientClientConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(patientClientConnectionManager, "patient-service");
     }
 }
@@ -0,0 +1,79 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.config;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.validation.Errors;
+import org.springframework.validation.SmartValidator;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Times validation of {@code @Valid} request bodies as {@code patient.validation},
+ * tagged by the validated type and whether it passed. The timers are registered once per
+ * type, the {@link Patient} ones up front, so a request only looks them up.
+ */
+class TimedValidator implements SmartValidator {
+
+    private final SmartValidator delegate;
+    private final MeterRegistry registry;
+    private final Map<Class<?>, Timers> timers = new ConcurrentHashMap<>();
+
+    TimedValidator(SmartValidator delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+        timers.put(Patient.class, timers(Patient.class));
+    }
+
+    @Override
+    public boolean supports(Class<?> clazz) {
+        return delegate.supports(clazz);
+    }
+
+    @Override
+    public void validate(Object target, Errors errors) {
+        validate(target, errors, new Object[0]);
+    }
+
+    @Override
+    public void validate(Object target, Errors errors, Object... validationHints) {
+        Timer.Sample sample = Timer.start(registry);
+        try {
+            delegate.validate(target, errors, validationHints);
+        } finally {
+            Timers timers = this.timers.get(target.getClass());
+            if (timers == null) {
+                timers = this.timers.computeIfAbsent(target.getClass(), this::timers);
+            }
+            sample.stop(errors.hasErrors() ? timers.invalid() : timers.valid());
+        }
+    }
+
+    private Timers timers(Class<?> type) {
+        return new Timers(timer(type, "valid"), timer(type, "invalid"));
+    }
+
+    private Timer timer(Class<?> type, String outcome) {
+        return Timer.builder("patient.validation")
+                .description("Validation of request bodies")
+                .tag("type", type.getSimpleName())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    @Override
+    public void validateValue(Class<?> targetType, String fieldName, Object value, Errors errors,
+                              Object... validationHints) {
+        delegate.validateValue(targetType, fieldName, value, errors, validationHints);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> type) {
+        return delegate.unwrap(type);
+    }
+
+    private record Timers(Timer valid, Timer invalid) {
+    }
+}
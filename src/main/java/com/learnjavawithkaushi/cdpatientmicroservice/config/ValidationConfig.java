@@ -0,0 +1,32 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.config;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.service.PatientValidator;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.Validator;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * The validator Spring MVC applies to {@code @Valid} arguments: {@link PatientRequestValidator}
+ * for patients and Boot's Bean Validation for the rest, timed by {@link TimedValidator}.
+ * The reactive handler calls {@link PatientValidator} itself.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ValidationConfig implements WebMvcConfigurer {
+
+    private final Validator validator;
+
+    ValidationConfig(LocalValidatorFactoryBean defaultValidator, PatientValidator patientValidator,
+                     MeterRegistry meterRegistry) {
+        this.validator = new TimedValidator(new PatientRequestValidator(patientValidator, defaultValidator),
+                meterRegistry);
+    }
+
+    @Override
+    public Validator getValidator() {
+        return validator;
+    }
+}
@@ -0,0 +1,72 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.BulkItemResult;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.BulkItemStatus;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Patients of a streamed bulk request, parsed one at a time. A malformed record ends the input
+ * rather than failing the request: by then earlier chunks have been written and answered, and
+ * {@link #failure()} reports it at the index it would have had.
+ */
+final class BulkInput implements Iterator<Patient> {
+
+    private final MappingIterator<Patient> patients;
+    private Patient next;
+    private boolean ready;
+    private int read;
+    private String error;
+
+    BulkInput(MappingIterator<Patient> patients) {
+        this.patients = patients;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!ready && error == null) {
+            try {
+                if (patients.hasNextValue()) {
+                    next = patients.nextValue();
+                    ready = true;
+                }
+            } catch (JsonProcessingException e) {
+                error = e.getOriginalMessage();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return ready;
+    }
+
+    @Override
+    public Patient next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        ready = false;
+        read++;
+        return next;
+    }
+
+    /**
+     * @return the result reporting the malformed record that ended the input, or {@code null}
+     */
+    BulkItemResult failure() {
+        return error == null ? null : malformed(read, error);
+    }
+
+    static BulkItemResult malformed(int index, String message) {
+        return BulkItemResult.builder()
+                .index(index)
+                .status(BulkItemStatus.FAILED)
+                .message("Malformed bulk input: " + message + "; this and later items were not read")
+                .build();
+    }
+}
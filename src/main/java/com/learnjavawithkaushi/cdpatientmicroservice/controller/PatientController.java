@@ -1,68 +1,365 @@
 package com.learnjavawithkaushi.cdpatientmicroservice.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.learnjavawithkaushi.cdpatientmicroservice.config.BinaryFormatsConfig;
+import com.learnjavawithkaushi.cdpatientmicroservice.config.PatientProperties;
 import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientNotFoundException;
+import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientValidationException;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.BulkItemResult;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.BulkResult;
 import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientChange;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientChangePage;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientFields;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientPage;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientSearchCriteria;
+import com.learnjavawithkaushi.cdpatientmicroservice.service.PatientBulkService;
+import com.learnjavawithkaushi.cdpatientmicroservice.service.PatientChangeFeed;
 import com.learnjavawithkaushi.cdpatientmicroservice.service.PatientService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
-import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.*;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/patients")
-@Slf4j
 public class PatientController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String RESUME_TOKEN_HEADER = "X-Resume-Token";
+    static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
     private final PatientService service;
+    private final PatientBulkService bulkService;
+    private final PatientChangeFeed changeFeed;
+    private final PatientProperties properties;
+    private final ObjectWriter ndjsonWriter;
+    private final ObjectReader ndjsonReader;
+    private final ObjectWriter bulkResultWriter;
 
-    public PatientController(PatientService service) {
+    public PatientController(PatientService service, PatientBulkService bulkService, PatientChangeFeed changeFeed,
+                             PatientProperties properties, ObjectMapper objectMapper) {
         this.service = service;
+        this.bulkService = bulkService;
+        this.changeFeed = changeFeed;
+        this.properties = properties;
+        this.ndjsonWriter = objectMapper.writerFor(Patient.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.ndjsonReader = objectMapper.readerFor(Patient.class);
+        this.bulkResultWriter = objectMapper.writerFor(BulkItemResult.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
+    /**
+     * Pages through all patients. {@code fields} (e.g. {@code id,firstName,lastName,dateOfBirth})
+     * restricts what is loaded and returned; see {@link PatientFields}.
+     */
     @GetMapping
-    public ResponseEntity<List<Patient>> getAll() {
-        log.info("GET /api/patients - Fetching all patients");
-        List<Patient> patients = service.getAll();
-        return ResponseEntity.ok(patients);
+    public ResponseEntity<List<Patient>> getAll(@RequestParam(required = false) String after,
+                                                @RequestParam(required = false) Integer limit,
+                                                @RequestParam(required = false) String fields,
+                                                @RequestHeader HttpHeaders headers)
+            throws HttpMediaTypeNotAcceptableException {
+        PatientFields selected = PatientFields.parse(fields);
+        MediaType format = format(headers);
+        PatientPage page = service.getPage(after, properties.getPagination().resolveLimit(limit), selected);
+        return pageResponse(page, format, selected);
+    }
+
+    /**
+     * Filters on name prefixes, date-of-birth range, gender, email and contact number, all
+     * case-insensitive. Pages and takes {@code fields} like
+     * {@link #getAll(String, Integer, String, HttpHeaders)}.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<Patient>> search(PatientSearchCriteria criteria,
+                                                @RequestParam(required = false) String after,
+                                                @RequestParam(required = false) Integer limit,
+                                                @RequestParam(required = false) String fields,
+                                                @RequestHeader HttpHeaders headers)
+            throws HttpMediaTypeNotAcceptableException {
+        PatientFields selected = PatientFields.parse(fields);
+        MediaType format = format(headers);
+        PatientPage page = service.search(criteria, after, properties.getPagination().resolveLimit(limit), selected);
+        return pageResponse(page, format, selected);
+    }
+
+    /**
+     * The page ETag lets Spring answer a matching If-None-Match with 304 before serializing.
+     * There is no Last-Modified: a delete changes the page without leaving a newer timestamp.
+     */
+    private static ResponseEntity<List<Patient>> pageResponse(PatientPage page, MediaType format,
+                                                              PatientFields fields) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(PatientETags.of(page.getPatients(), format, fields))
+                .cacheControl(PatientETags.CACHE_CONTROL)
+                .varyBy(HttpHeaders.ACCEPT);
+        return withNextLink(response, page.getNextCursor()).body(page.getPatients());
+    }
+
+    private static ResponseEntity.BodyBuilder withNextLink(ResponseEntity.BodyBuilder response, String nextCursor) {
+        if (nextCursor != null) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", nextCursor)
+                    .toUriString();
+            response.header(NEXT_CURSOR_HEADER, nextCursor)
+                    .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response;
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        StreamingResponseBody body = out -> {
+            try (Stream<Patient> patients = service.streamAll();
+                 JsonGenerator generator = ndjsonWriter.createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                Iterator<Patient> it = patients.iterator();
+                while (it.hasNext()) {
+                    ndjsonWriter.writeValue(generator, it.next());
+                    generator.writeRaw('\n');
+                }
+            }
+        };
+        // Same URL as the JSON page, chosen by Accept
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(body);
+    }
+
+    /**
+     * Delta for incremental exports: the patients created, updated or deleted since
+     * {@code since} (an ISO-8601 instant), oldest first. Pages like
+     * {@link #getAll(String, Integer, String, HttpHeaders)}; the next export passes the {@code time} of the last change it received as {@code since}.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<List<PatientChange>> getChanges(@RequestParam(required = false) String since,
+                                                          @RequestParam(required = false) String after,
+                                                          @RequestParam(required = false) Integer limit) {
+        PatientChangePage page = service.getChanges(since, after, properties.getPagination().resolveLimit(limit));
+        return withNextLink(ResponseEntity.ok(), page.getNextCursor()).body(page.getChanges());
+    }
+
+    /**
+     * Server-Sent Events with every patient write after {@code after}, or after now. Each event's
+     * id is its resume token, so an EventSource reconnects behind the last event it received
+     * through {@code Last-Event-ID}, which takes precedence over {@code after}.
+     */
+    @GetMapping(value = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) String after,
+                                    @RequestHeader(value = LAST_EVENT_ID_HEADER, required = false) String lastEventId) {
+        SseEmitter emitter = new SseEmitter(properties.getChanges().getStreamTimeout().toMillis());
+        changeFeed.subscribe(lastEventId != null ? lastEventId : after, new PatientChangeFeed.ChangeSink() {
+            @Override
+            public void change(PatientChange change) throws IOException {
+                emitter.send(SseEmitter.event().id(change.getToken()).data(change, MediaType.APPLICATION_JSON));
+            }
+
+            @Override
+            public void idle() throws IOException {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+        }).whenComplete((done, error) -> {
+            if (error == null) {
+                emitter.complete();
+            } else {
+                emitter.completeWithError(error);
+            }
+        });
+        return emitter;
+    }
+
+    /**
+     * Long poll for the writes after {@code after}: answers as soon as changes arrive, or empty
+     * after {@code patient.changes.poll-wait}. {@code X-Resume-Token} is the {@code after} of
+     * the next poll. The wait runs on a change feed thread, not a request thread.
+     */
+    @GetMapping("/changes/poll")
+    public CompletableFuture<ResponseEntity<List<PatientChange>>> pollChanges(
+            @RequestParam(required = false) String after, @RequestParam(required = false) Integer limit) {
+        return changeFeed.poll(after, properties.getPagination().resolveLimit(limit))
+                .thenApply(batch -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                    if (batch.getResumeToken() != null) {
+                        response.header(RESUME_TOKEN_HEADER, batch.getResumeToken());
+                    }
+                    return response.body(batch.getChanges());
+                });
     }
 
+    /**
+     * A conditional request (If-None-Match or If-Modified-Since) is first checked against the
+     * patient's version and update time alone, so a 304 never loads or serializes the document.
+     * A projected patient ({@code fields} given) carries an ETag only when {@code version} is
+     * selected, and a Last-Modified only when {@code updatedAt} is.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<Patient> getById(@PathVariable String id) {
-        log.info("GET /api/patients/{} - Fetching patient by id", id);
-        return service.getById(id)
-                .map(patient -> {
-                    log.info("Found patient: {} {}", patient.getFirstName(), patient.getLastName());
-                    return ResponseEntity.ok(patient);
-                })
+    public ResponseEntity<Patient> getById(@PathVariable String id,
+                                           @RequestParam(required = false) String fields,
+                                           @RequestHeader HttpHeaders headers)
+            throws HttpMediaTypeNotAcceptableException {
+        PatientFields selected = PatientFields.parse(fields);
+        MediaType format = format(headers);
+        if (PatientETags.isConditional(headers)) {
+            Patient current = service.getById(id, PatientFields.VERSION)
+                    .orElseThrow(() -> new PatientNotFoundException(id));
+            if (PatientETags.notModified(current, format, selected, headers)) {
+                return withCacheHeaders(ResponseEntity.status(HttpStatus.NOT_MODIFIED), selected.project(current),
+                        format, selected).build();
+            }
+        }
+        return service.getById(id, selected)
+                .map(patient -> withCacheHeaders(ResponseEntity.ok(), patient, format, selected).body(patient))
                 .orElseThrow(() -> new PatientNotFoundException(id));
     }
 
+    private static ResponseEntity.BodyBuilder withCacheHeaders(ResponseEntity.BodyBuilder response, Patient patient,
+                                                               MediaType format, PatientFields fields) {
+        if (patient.getUpdatedAt() != null) {
+            response.lastModified(patient.getUpdatedAt());
+        }
+        return response.eTag(PatientETags.of(patient, format, fields))
+                .cacheControl(PatientETags.CACHE_CONTROL)
+                .varyBy(HttpHeaders.ACCEPT);
+    }
+
+    /**
+     * The format the body is written in, for its ETag; Spring MVC negotiates the same way from
+     * {@link BinaryFormatsConfig#PRODUCIBLE}. Spring would only reject an unacceptable
+     * {@code Accept} once the body is written, so a write is refused before it happens.
+     */
+    private static MediaType format(HttpHeaders headers) throws HttpMediaTypeNotAcceptableException {
+        MediaType format = BinaryFormatsConfig.negotiate(headers.getAccept());
+        if (format == null) {
+            throw new HttpMediaTypeNotAcceptableException(BinaryFormatsConfig.PRODUCIBLE);
+        }
+        return format;
+    }
+
+    /**
+     * Fetches many patients by id in one round trip; unknown ids are left out of the response.
+     */
+    @PostMapping(value = "/_mget", consumes = {MediaType.APPLICATION_JSON_VALUE,
+            BinaryFormatsConfig.APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<List<Patient>> getByIds(@RequestBody List<String> ids) {
+        return ResponseEntity.ok(service.getByIds(properties.getBulk().requireMgetIds(ids)));
+    }
+
     @PostMapping
-    public ResponseEntity<Patient> create(@Valid @RequestBody Patient patient) {
-        log.info("POST /api/patients - Creating new patient");
+    public ResponseEntity<Patient> create(@Valid @RequestBody Patient patient, @RequestHeader HttpHeaders headers)
+            throws HttpMediaTypeNotAcceptableException {
+        MediaType format = format(headers);
         Patient createdPatient = service.create(patient);
-        return new ResponseEntity<>(createdPatient, HttpStatus.CREATED);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .eTag(PatientETags.of(createdPatient, format, PatientFields.ALL))
+                .body(createdPatient);
+    }
+
+    @PostMapping(value = "/_bulk", consumes = {MediaType.APPLICATION_JSON_VALUE,
+            BinaryFormatsConfig.APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<BulkResult> bulk(@RequestBody List<Patient> patients) {
+        return ResponseEntity.ok(bulkService.ingest(patients.iterator()));
+    }
+
+    @PostMapping(value = "/_bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BulkResult> bulkNdjson(InputStream body) throws IOException {
+        try (MappingIterator<Patient> patients = ndjsonReader.readValues(body)) {
+            return ResponseEntity.ok(bulkService.ingest(patients));
+        } catch (RuntimeException e) {
+            // MappingIterator surfaces parse and mapping failures as unchecked exceptions
+            if (e instanceof RuntimeJsonMappingException || e.getCause() instanceof JsonProcessingException) {
+                throw new PatientValidationException("Malformed NDJSON input: " + e.getMessage());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Bulk ingest for imports of any size. The JSON array or NDJSON body is parsed one patient at
+     * a time and written in chunks of {@code patient.bulk.batch-size}, and each chunk's results
+     * go out as NDJSON lines before the next chunk is read, so memory stays at one chunk. The
+     * response is written on the request thread, where the async request timeout of a
+     * {@link StreamingResponseBody} cannot cut a long import short. A malformed record ends the
+     * import with a {@code FAILED} line at its index; everything before it has been written.
+     */
+    @PostMapping(value = "/_bulk/stream",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void bulkStream(InputStream body, HttpServletResponse response) throws IOException {
+        MappingIterator<Patient> patients;
+        try {
+            patients = ndjsonReader.readValues(body);
+        } catch (JsonProcessingException e) {
+            throw new PatientValidationException("Malformed bulk input: " + e.getOriginalMessage());
+        }
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        try (patients; JsonGenerator generator = bulkResultWriter.createGenerator(response.getOutputStream())) {
+            generator.setRootValueSeparator(null);
+            BulkInput input = new BulkInput(patients);
+            bulkService.ingest(input, results -> {
+                for (BulkItemResult result : results) {
+                    writeLine(generator, result);
+                }
+                generator.flush();
+            });
+            if (input.failure() != null) {
+                writeLine(generator, input.failure());
+            }
+        }
+    }
+
+    private void writeLine(JsonGenerator generator, BulkItemResult result) throws IOException {
+        bulkResultWriter.writeValue(generator, result);
+        generator.writeRaw('\n');
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Patient> update(@PathVariable String id, @Valid @RequestBody Patient patient) {
-        log.info("PUT /api/patients/{} - Updating patient", id);
-        Patient updatedPatient = service.update(id, patient);
-        return ResponseEntity.ok(updatedPatient);
+    public ResponseEntity<Patient> update(@PathVariable String id, @Valid @RequestBody Patient patient,
+                                          @RequestHeader HttpHeaders headers)
+            throws HttpMediaTypeNotAcceptableException {
+        MediaType format = format(headers);
+        Patient updatedPatient = service.update(id, patient,
+                PatientETags.expectedVersion(id, headers.getFirst(HttpHeaders.IF_MATCH)));
+        return ResponseEntity.ok()
+                .eTag(PatientETags.of(updatedPatient, format, PatientFields.ALL))
+                .body(updatedPatient);
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> delete(@PathVariable String id) {
-        log.info("DELETE /api/patients/{} - Deleting patient", id);
-        service.delete(id);
+    public ResponseEntity<Void> delete(@PathVariable String id,
+                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        service.delete(id, PatientETags.expectedVersion(id, ifMatch));
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * The count is estimated from collection metadata, so this never scans the collection.
+     * Probes should use {@code /actuator/health/liveness} and {@code /actuator/health/readiness}.
+     */
     @GetMapping("/health")
     public ResponseEntity<String> health() {
-        long count = service.count();
+        long count = service.estimatedCount();
         return ResponseEntity.ok("Patient Service is running. Total patients: " + count);
     }
 }
\ No newline at end of file
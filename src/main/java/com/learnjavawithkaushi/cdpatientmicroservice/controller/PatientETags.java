@@ -0,0 +1,130 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.controller;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.config.BinaryFormatsConfig;
+import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientPreconditionFailedException;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientFields;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * ETag, Last-Modified and conditional request handling shared by the servlet controller and
+ * the reactive handler. ETags are strong, so each names one representation: the format and
+ * field set are part of it, and reads send {@code Vary: Accept}.
+ */
+public final class PatientETags {
+
+    /** Clients may keep patients but must revalidate them; shared caches must not store them. */
+    public static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /** Names a format in ETags; JSON, the default, is left out. */
+    private static final String SMILE_TAG = "smile";
+    private static final String CBOR_TAG = "cbor";
+
+    private PatientETags() {
+    }
+
+    /**
+     * ETag of one representation of a patient: the document version, then the format unless it
+     * is JSON and a hash of the field set unless every field is selected, e.g. {@code "3"} for
+     * the full JSON document, {@code "3-cbor"} or {@code "3-smile-f<hash>"}.
+     */
+    public static String of(Patient patient, MediaType format, PatientFields fields) {
+        return patient.getVersion() == null ? null : "\"" + patient.getVersion() + variant(format, fields) + "\"";
+    }
+
+    /**
+     * ETag of a page, hashed from its format and field set and the id and version of each
+     * patient on it; {@code null} when a version is missing, e.g. from a projection without
+     * {@code version}.
+     */
+    public static String of(List<Patient> patients, MediaType format, PatientFields fields) {
+        long hash = fnv(FNV_OFFSET, variant(format, fields));
+        for (Patient patient : patients) {
+            if (patient.getVersion() == null) {
+                return null;
+            }
+            hash = fnv(fnv(hash, patient.getId()), patient.getVersion().toString());
+        }
+        return "\"p" + HexFormat.of().toHexDigits(hash) + "\"";
+    }
+
+    /**
+     * Evaluates If-None-Match, or If-Modified-Since when there is none, against the stored
+     * patient in the requested representation (RFC 9110 section 13.2.2). If-None-Match uses
+     * the weak comparison, so {@code W/"3"} matches {@code "3"}.
+     */
+    public static boolean notModified(Patient patient, MediaType format, PatientFields fields, HttpHeaders request) {
+        List<String> ifNoneMatch = request.getIfNoneMatch();
+        if (!ifNoneMatch.isEmpty()) {
+            String etag = of(patient, format, fields);
+            return etag != null && ifNoneMatch.stream()
+                    .anyMatch(tag -> tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(etag));
+        }
+        long ifModifiedSince = request.getIfModifiedSince();
+        Instant lastModified = patient.getUpdatedAt();
+        // HTTP dates have whole seconds
+        return ifModifiedSince >= 0 && lastModified != null && lastModified.getEpochSecond() * 1000 <= ifModifiedSince;
+    }
+
+    public static boolean isConditional(HttpHeaders request) {
+        return request.containsKey(HttpHeaders.IF_NONE_MATCH) || request.containsKey(HttpHeaders.IF_MODIFIED_SINCE);
+    }
+
+    /**
+     * Maps an If-Match header onto the version the write must match. {@code *} and an absent
+     * header mean "any version"; the ETag of any representation stands for its version, and a
+     * weak or foreign tag can never match.
+     */
+    public static Long expectedVersion(String id, String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                String value = tag.substring(1, tag.length() - 1);
+                int variant = value.indexOf('-');
+                return Long.parseLong(variant < 0 ? value : value.substring(0, variant));
+            } catch (NumberFormatException ignored) {
+                // fall through: not one of our ETags
+            }
+        }
+        throw new PatientPreconditionFailedException(id);
+    }
+
+    private static String variant(MediaType format, PatientFields fields) {
+        StringBuilder variant = new StringBuilder();
+        if (BinaryFormatsConfig.APPLICATION_SMILE.equalsTypeAndSubtype(format)) {
+            variant.append('-').append(SMILE_TAG);
+        } else if (MediaType.APPLICATION_CBOR.equalsTypeAndSubtype(format)) {
+            variant.append('-').append(CBOR_TAG);
+        }
+        if (!fields.isAll()) {
+            // Sorted: the order of fields= does not change the body
+            long hash = FNV_OFFSET;
+            for (String name : new TreeSet<>(fields.names())) {
+                hash = fnv(hash, name);
+            }
+            variant.append("-f").append(HexFormat.of().toHexDigits(hash));
+        }
+        return variant.toString();
+    }
+
+    // 64-bit FNV-1a; the separator keeps "ab"+"c" and "a"+"bc" apart
+    private static long fnv(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return (hash ^ ',') * FNV_PRIME;
+    }
+}
@@ -0,0 +1,423 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.controller;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.config.BinaryFormatsConfig;
+import com.learnjavawithkaushi.cdpatientmicroservice.config.PatientProperties;
+import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientDuplicateException;
+import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientNotFoundException;
+import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientPreconditionFailedException;
+import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientProblems;
+import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientValidationException;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.BulkItemResult;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientChange;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientFields;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientPage;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientSearchCriteria;
+import com.learnjavawithkaushi.cdpatientmicroservice.service.PatientBulkService;
+import com.learnjavawithkaushi.cdpatientmicroservice.service.PatientChangeFeed;
+import com.learnjavawithkaushi.cdpatientmicroservice.service.PatientValidator;
+import com.learnjavawithkaushi.cdpatientmicroservice.service.ReactivePatientChangeFeed;
+import com.learnjavawithkaushi.cdpatientmicroservice.service.ReactivePatientService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.NotAcceptableStatusException;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * WebFlux handlers mirroring {@link PatientController}'s routes, headers and the
+ * {@link com.learnjavawithkaushi.cdpatientmicroservice.exception.GlobalExceptionHandler} error contract.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Slf4j
+public class ReactivePatientHandler {
+
+    private static final ParameterizedTypeReference<List<String>> ID_LIST = new ParameterizedTypeReference<>() {
+    };
+    private static final ParameterizedTypeReference<List<Patient>> PATIENT_LIST = new ParameterizedTypeReference<>() {
+    };
+    private static final ParameterizedTypeReference<ServerSentEvent<PatientChange>> PATIENT_CHANGE_EVENT =
+            new ParameterizedTypeReference<>() {
+            };
+
+    private final ReactivePatientService service;
+    private final PatientBulkService bulkService;
+    private final ReactivePatientChangeFeed changeStream;
+    private final PatientChangeFeed changeFeed;
+    private final PatientProperties properties;
+    private final PatientValidator validator;
+
+    public ReactivePatientHandler(ReactivePatientService service, PatientBulkService bulkService,
+                                  ReactivePatientChangeFeed changeStream, PatientChangeFeed changeFeed,
+                                  PatientProperties properties, PatientValidator validator) {
+        this.service = service;
+        this.bulkService = bulkService;
+        this.changeStream = changeStream;
+        this.changeFeed = changeFeed;
+        this.properties = properties;
+        this.validator = validator;
+    }
+
+    public Mono<ServerResponse> getAll(ServerRequest request) {
+        String after = request.queryParam("after").orElse(null);
+
+        return Mono.defer(() -> {
+            MediaType format = format(request);
+            Integer limit = request.queryParam("limit").map(Integer::valueOf).orElse(null);
+            return service.getPage(after, properties.getPagination().resolveLimit(limit), fields(request))
+                    .flatMap(page -> pageResponse(request, format, page));
+        });
+    }
+
+    public Mono<ServerResponse> search(ServerRequest request) {
+        String after = request.queryParam("after").orElse(null);
+
+        return Mono.defer(() -> {
+            MediaType format = format(request);
+            Integer limit = request.queryParam("limit").map(Integer::valueOf).orElse(null);
+            PatientSearchCriteria criteria = PatientSearchCriteria.builder()
+                    .firstName(request.queryParam("firstName").orElse(null))
+                    .lastName(request.queryParam("lastName").orElse(null))
+                    .dateOfBirthFrom(request.queryParam("dateOfBirthFrom").map(LocalDate::parse).orElse(null))
+                    .dateOfBirthTo(request.queryParam("dateOfBirthTo").map(LocalDate::parse).orElse(null))
+                    .gender(request.queryParam("gender").orElse(null))
+                    .emailAddress(request.queryParam("emailAddress").orElse(null))
+                    .contactNumber(request.queryParam("contactNumber").orElse(null))
+                    .build();
+            return service.search(criteria, after, properties.getPagination().resolveLimit(limit), fields(request))
+                    .flatMap(page -> pageResponse(request, format, page));
+        });
+    }
+
+    public Mono<ServerResponse> streamAll(ServerRequest request) {
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(service.streamAll(), Patient.class);
+    }
+
+    /**
+     * @see PatientController#getChanges(String, String, Integer)
+     */
+    public Mono<ServerResponse> getChanges(ServerRequest request) {
+        return Mono.defer(() -> {
+                    Integer limit = request.queryParam("limit").map(Integer::valueOf).orElse(null);
+                    return service.getChanges(request.queryParam("since").orElse(null),
+                            request.queryParam("after").orElse(null), properties.getPagination().resolveLimit(limit));
+                })
+                .flatMap(page -> withNextLink(request, ServerResponse.ok().contentType(MediaType.APPLICATION_JSON),
+                        page.getNextCursor()).bodyValue(page.getChanges()));
+    }
+
+    /**
+     * @see PatientController#streamChanges(String, String)
+     */
+    public Mono<ServerResponse> streamChanges(ServerRequest request) {
+        return Mono.defer(() -> {
+            String after = request.headers().firstHeader(PatientController.LAST_EVENT_ID_HEADER);
+            Flux<ServerSentEvent<PatientChange>> changes = changeStream
+                    .watch(after != null ? after : request.queryParam("after").orElse(null))
+                    .map(change -> ServerSentEvent.builder(change).id(change.getToken()).build());
+            Flux<ServerSentEvent<PatientChange>> heartbeats = Flux.interval(properties.getChanges().getHeartbeat())
+                    .map(tick -> ServerSentEvent.<PatientChange>builder().comment("heartbeat").build());
+            // Heartbeats stop with the change stream, e.g. once the collection was dropped
+            return ServerResponse.ok()
+                    .contentType(MediaType.TEXT_EVENT_STREAM)
+                    .body(changes.publish(events -> Flux.merge(events, heartbeats.takeUntilOther(events.then()))),
+                            PATIENT_CHANGE_EVENT);
+        });
+    }
+
+    /**
+     * @see PatientController#pollChanges(String, Integer)
+     */
+    public Mono<ServerResponse> pollChanges(ServerRequest request) {
+        return Mono.defer(() -> {
+                    Integer limit = request.queryParam("limit").map(Integer::valueOf).orElse(null);
+                    // Opens the change stream on the calling thread, so keep it off the event loop
+                    return Mono.fromCallable(() -> changeFeed.poll(request.queryParam("after").orElse(null),
+                                    properties.getPagination().resolveLimit(limit)))
+                            .subscribeOn(Schedulers.boundedElastic())
+                            .flatMap(Mono::fromFuture);
+                })
+                .flatMap(batch -> {
+                    ServerResponse.BodyBuilder response = ServerResponse.ok().contentType(MediaType.APPLICATION_JSON);
+                    if (batch.getResumeToken() != null) {
+                        response.header(PatientController.RESUME_TOKEN_HEADER, batch.getResumeToken());
+                    }
+                    return response.bodyValue(batch.getChanges());
+                });
+    }
+
+    /**
+     * @see PatientController#getById(String, String, HttpHeaders)
+     */
+    public Mono<ServerResponse> getById(ServerRequest request) {
+        String id = request.pathVariable("id");
+        HttpHeaders headers = request.headers().asHttpHeaders();
+        return Mono.defer(() -> {
+            MediaType format = format(request);
+            PatientFields selected = fields(request);
+            Mono<ServerResponse> full = Mono.defer(() -> service.getById(id, selected))
+                    .switchIfEmpty(Mono.error(() -> new PatientNotFoundException(id)))
+                    .flatMap(patient -> withCacheHeaders(ok(format), patient, format, selected)
+                            .bodyValue(patient));
+            if (!PatientETags.isConditional(headers)) {
+                return full;
+            }
+            return service.getById(id, PatientFields.VERSION)
+                    .switchIfEmpty(Mono.error(() -> new PatientNotFoundException(id)))
+                    .flatMap(current -> PatientETags.notModified(current, format, selected, headers)
+                            ? withCacheHeaders(ServerResponse.status(HttpStatus.NOT_MODIFIED), selected.project(current),
+                                    format, selected).build()
+                            : full);
+        });
+    }
+
+    public Mono<ServerResponse> getByIds(ServerRequest request) {
+        return Mono.defer(() -> {
+            MediaType format = format(request);
+            return required(request.bodyToMono(ID_LIST))
+                    .map(ids -> properties.getBulk().requireMgetIds(ids))
+                    .flatMap(ids -> service.getByIds(ids).collectList())
+                    .flatMap(patients -> ok(format).bodyValue(patients));
+        });
+    }
+
+    public Mono<ServerResponse> create(ServerRequest request) {
+        return Mono.defer(() -> {
+            MediaType format = format(request);
+            return required(request.bodyToMono(Patient.class))
+                    .flatMap(patient -> validated(request, patient, valid -> service.create(valid)
+                            .flatMap(created -> withETag(ServerResponse.status(HttpStatus.CREATED).contentType(format),
+                                    created, format, PatientFields.ALL).bodyValue(created))));
+        });
+    }
+
+    public Mono<ServerResponse> bulk(ServerRequest request) {
+        // The bulk writer is blocking; it pulls decoded items on a bounded-elastic thread so
+        // backpressure reaches the request body and nothing blocks an event-loop thread
+        // Jackson's CBOR decoder cannot split a stream into items, so a CBOR array is decoded whole
+        Flux<Patient> patients = request.headers().contentType().filter(MediaType.APPLICATION_CBOR::isCompatibleWith)
+                .map(cbor -> request.bodyToMono(PATIENT_LIST).flatMapIterable(Function.identity()))
+                .orElseGet(() -> request.bodyToFlux(Patient.class));
+        return Mono.defer(() -> {
+            MediaType format = format(request);
+            return Mono.fromCallable(() -> bulkService.ingest(patients.toIterable().iterator()))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .onErrorMap(ReactivePatientHandler::isMalformedBody,
+                            e -> new PatientValidationException("Malformed bulk input: " + e.getCause().getMessage()))
+                    .flatMap(result -> ok(format).bodyValue(result));
+        });
+    }
+
+    /**
+     * Counterpart of {@code PatientController.bulkStream}. The body is decoded one patient at a
+     * time and written in chunks of {@code patient.bulk.batch-size}, one chunk after the other;
+     * results go out as NDJSON as each chunk completes, and backpressure keeps the body from
+     * being read further ahead than that. Malformed input ends the body with a {@code FAILED}
+     * line; patients that arrived in the same network buffer as the malformed one are not
+     * decoded, and the line's index says where decoding stopped.
+     */
+    public Mono<ServerResponse> bulkStream(ServerRequest request) {
+        int batchSize = properties.getBulk().getBatchSize();
+        AtomicInteger read = new AtomicInteger();
+        AtomicReference<String> error = new AtomicReference<>();
+        Flux<BulkItemResult> results = request.bodyToFlux(Patient.class)
+                .doOnNext(patient -> read.incrementAndGet())
+                .onErrorResume(ReactivePatientHandler::isMalformedBody, e -> {
+                    error.set(e.getCause().getMessage());
+                    return Flux.empty();
+                })
+                .buffer(batchSize)
+                .index()
+                .concatMap(chunk -> Mono.fromCallable(() -> bulkService.ingestChunk(chunk.getT2(),
+                                Math.toIntExact(chunk.getT1() * batchSize)))
+                        .subscribeOn(Schedulers.boundedElastic()), 1)
+                .flatMapIterable(Function.identity())
+                .concatWith(Mono.fromSupplier(() -> error.get() == null ? null
+                        : BulkInput.malformed(read.get(), error.get())));
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_NDJSON).body(results, BulkItemResult.class);
+    }
+
+    public Mono<ServerResponse> update(ServerRequest request) {
+        String id = request.pathVariable("id");
+        return Mono.defer(() -> {
+            MediaType format = format(request);
+            Long expectedVersion = PatientETags.expectedVersion(id, request.headers().firstHeader(HttpHeaders.IF_MATCH));
+            return required(request.bodyToMono(Patient.class))
+                    .flatMap(patient -> validated(request, patient, valid -> service.update(id, valid, expectedVersion)
+                            .flatMap(updated -> withETag(ok(format), updated, format, PatientFields.ALL)
+                                    .bodyValue(updated))));
+        });
+    }
+
+    public Mono<ServerResponse> delete(ServerRequest request) {
+        String id = request.pathVariable("id");
+        return Mono.defer(() -> {
+            Long expectedVersion = PatientETags.expectedVersion(id, request.headers().firstHeader(HttpHeaders.IF_MATCH));
+            return service.delete(id, expectedVersion)
+                    .then(ServerResponse.noContent().build());
+        });
+    }
+
+    public Mono<ServerResponse> health(ServerRequest request) {
+        return service.estimatedCount()
+                .flatMap(count -> ServerResponse.ok()
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .bodyValue("Patient Service is running. Total patients: " + count));
+    }
+
+    /**
+     * Maps failures onto the same status codes and {@link PatientProblems} bodies as the
+     * servlet stack's {@code GlobalExceptionHandler}.
+     */
+    public Mono<ServerResponse> handleError(Throwable ex, ServerRequest request) {
+        if (ex instanceof PatientNotFoundException) {
+            return error(HttpStatus.NOT_FOUND, "Patient Not Found", ex.getMessage(), request);
+        }
+        if (ex instanceof PatientPreconditionFailedException) {
+            return error(HttpStatus.PRECONDITION_FAILED, "Precondition Failed", ex.getMessage(), request);
+        }
+        if (ex instanceof PatientDuplicateException) {
+            return error(HttpStatus.CONFLICT, "Conflict", ex.getMessage(), request);
+        }
+        if (ex instanceof RejectedExecutionException) {
+            return error(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", ex.getMessage(), request);
+        }
+        if (ex instanceof PatientValidationException || ex instanceof NumberFormatException
+                || ex instanceof DateTimeParseException) {
+            return error(HttpStatus.BAD_REQUEST, "Bad Request", ex.getMessage(), request);
+        }
+        if (ex instanceof DecodingException || ex.getCause() instanceof DecodingException) {
+            return error(HttpStatus.BAD_REQUEST, "Bad Request", "Malformed request body", request);
+        }
+        if (ex instanceof ResponseStatusException status) {
+            // WebFlux's own request errors, e.g. 415 for a body it cannot read and 406 for an Accept
+            // nothing is produced in, with the status and detail they carry
+            ProblemDetail body = status.getBody();
+            ProblemDetail problem = PatientProblems.of(HttpStatus.valueOf(status.getStatusCode().value()),
+                    body.getTitle(), body.getDetail(), request.path());
+            return ServerResponse.status(problem.getStatus())
+                    .headers(headers -> headers.addAll(status.getHeaders()))
+                    .contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                    .bodyValue(problem);
+        }
+        log.error("Unexpected error handling {} {}", request.method(), request.path(), ex);
+        return error(HttpStatus.INTERNAL_SERVER_ERROR, "Internal Server Error", "An unexpected error occurred",
+                request);
+    }
+
+    private static Mono<ServerResponse> pageResponse(ServerRequest request, MediaType format, PatientPage page) {
+        ServerResponse.BodyBuilder response = ok(format).cacheControl(PatientETags.CACHE_CONTROL)
+                .varyBy(HttpHeaders.ACCEPT);
+        String etag = PatientETags.of(page.getPatients(), format, fields(request));
+        if (etag != null) {
+            response.eTag(etag);
+        }
+        return withNextLink(request, response, page.getNextCursor()).bodyValue(page.getPatients());
+    }
+
+    private static ServerResponse.BodyBuilder withNextLink(ServerRequest request, ServerResponse.BodyBuilder response,
+                                                           String nextCursor) {
+        if (nextCursor != null) {
+            String next = request.uriBuilder()
+                    .replaceQueryParam("after", nextCursor)
+                    .build().toString();
+            response.header(PatientController.NEXT_CURSOR_HEADER, nextCursor)
+                    .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response;
+    }
+
+    private Mono<ServerResponse> validated(ServerRequest request, Patient patient,
+                                           Function<Patient, Mono<ServerResponse>> next) {
+        Map<String, String> errors = validator.validate(patient);
+        if (errors.isEmpty()) {
+            return next.apply(patient);
+        }
+        return problem(PatientProblems.invalid(errors, request.path()));
+    }
+
+    /**
+     * An empty body decodes to an empty {@link Mono}; the servlet stack answers it with a 400.
+     */
+    private static <T> Mono<T> required(Mono<T> body) {
+        return body.switchIfEmpty(Mono.error(() -> new PatientValidationException("Request body is required")));
+    }
+
+    /**
+     * {@code bodyToMono} and {@code bodyToFlux} wrap decoding failures in a {@link ServerWebInputException}.
+     */
+    private static boolean isMalformedBody(Throwable ex) {
+        return ex instanceof ServerWebInputException && ex.getCause() instanceof DecodingException;
+    }
+
+    private static PatientFields fields(ServerRequest request) {
+        return PatientFields.parse(request.queryParam("fields").orElse(null));
+    }
+
+    private static ServerResponse.BodyBuilder ok(MediaType format) {
+        return ServerResponse.ok().contentType(format);
+    }
+
+    /**
+     * Functional endpoints do not negotiate on their own; the format follows the Accept header
+     * like {@code PatientController}'s does, and an Accept none of them satisfies is a 406.
+     * Handlers resolve it before they read or write anything.
+     */
+    private static MediaType format(ServerRequest request) {
+        MediaType format = BinaryFormatsConfig.negotiate(request.headers().accept());
+        if (format == null) {
+            throw new NotAcceptableStatusException(BinaryFormatsConfig.PRODUCIBLE);
+        }
+        return format;
+    }
+
+    private static ServerResponse.BodyBuilder withETag(ServerResponse.BodyBuilder builder, Patient patient,
+                                                       MediaType format, PatientFields fields) {
+        String etag = PatientETags.of(patient, format, fields);
+        return etag == null ? builder : builder.eTag(etag);
+    }
+
+    private static ServerResponse.BodyBuilder withCacheHeaders(ServerResponse.BodyBuilder builder, Patient patient,
+                                                               MediaType format, PatientFields fields) {
+        if (patient.getUpdatedAt() != null) {
+            builder.lastModified(patient.getUpdatedAt());
+        }
+        return withETag(builder, patient, format, fields).cacheControl(PatientETags.CACHE_CONTROL)
+                .varyBy(HttpHeaders.ACCEPT);
+    }
+
+    private static Mono<ServerResponse> error(HttpStatus status, String title, String detail, ServerRequest request) {
+        return problem(PatientProblems.of(status, title, detail, request.path()));
+    }
+
+    private static Mono<ServerResponse> problem(ProblemDetail problem) {
+        return ServerResponse.status(problem.getStatus()).contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .bodyValue(problem);
+    }
+}
@@ -1,60 +1,138 @@
 package com.learnjavawithkaushi.cdpatientmicroservice.exception;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.FieldError;
+import org.springframework.web.ErrorResponse;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.HttpMediaTypeNotSupportedException;
+import org.springframework.web.HttpRequestMethodNotSupportedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.servlet.resource.NoResourceFoundException;
 
-import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
+/**
+ * Turns failures into {@link PatientProblems} bodies whose {@code instance} is the request path.
+ * Malformed requests get the same 400, 406 and 415 as in reactive mode; only unexpected
+ * exceptions are a 500, and those are logged.
+ */
 @RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@Slf4j
 public class GlobalExceptionHandler {
 
     @ExceptionHandler(PatientNotFoundException.class)
-    public ResponseEntity<ErrorResponse> handlePatientNotFound(PatientNotFoundException ex) {
-        ErrorResponse error = ErrorResponse.builder()
-                .timestamp(LocalDateTime.now())
-                .status(HttpStatus.NOT_FOUND.value())
-                .error("Patient Not Found")
-                .message(ex.getMessage())
-                .path("/api/patients")
-                .build();
-        return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
+    public ResponseEntity<ProblemDetail> handlePatientNotFound(PatientNotFoundException ex,
+                                                               HttpServletRequest request) {
+        return problem(PatientProblems.of(HttpStatus.NOT_FOUND, "Patient Not Found", ex.getMessage(),
+                request.getRequestURI()));
+    }
+
+    @ExceptionHandler(PatientPreconditionFailedException.class)
+    public ResponseEntity<ProblemDetail> handlePreconditionFailed(PatientPreconditionFailedException ex,
+                                                                  HttpServletRequest request) {
+        return problem(PatientProblems.of(HttpStatus.PRECONDITION_FAILED, "Precondition Failed", ex.getMessage(),
+                request.getRequestURI()));
+    }
+
+    @ExceptionHandler(PatientDuplicateException.class)
+    public ResponseEntity<ProblemDetail> handleDuplicate(PatientDuplicateException ex, HttpServletRequest request) {
+        return problem(PatientProblems.of(HttpStatus.CONFLICT, "Conflict", ex.getMessage(),
+                request.getRequestURI()));
+    }
+
+    @ExceptionHandler(PatientValidationException.class)
+    public ResponseEntity<ProblemDetail> handlePatientValidation(PatientValidationException ex,
+                                                                 HttpServletRequest request) {
+        return problem(PatientProblems.of(HttpStatus.BAD_REQUEST, "Bad Request", ex.getMessage(),
+                request.getRequestURI()));
+    }
+
+    /**
+     * The change feed is at {@code patient.changes.max-subscribers}.
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<ProblemDetail> handleRejected(RejectedExecutionException ex, HttpServletRequest request) {
+        return problem(PatientProblems.of(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", ex.getMessage(),
+                request.getRequestURI()));
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
-    public ResponseEntity<ErrorResponse> handleValidationExceptions(MethodArgumentNotValidException ex) {
+    public ResponseEntity<ProblemDetail> handleValidationExceptions(MethodArgumentNotValidException ex,
+                                                                    HttpServletRequest request) {
         Map<String, String> errors = new HashMap<>();
         ex.getBindingResult().getAllErrors().forEach((error) -> {
             String fieldName = ((FieldError) error).getField();
             String errorMessage = error.getDefaultMessage();
             errors.put(fieldName, errorMessage);
         });
+        return problem(PatientProblems.invalid(errors, request.getRequestURI()));
+    }
+
+    /**
+     * A query parameter that does not convert, e.g. {@code ?limit=abc}.
+     */
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<ProblemDetail> handleTypeMismatch(MethodArgumentTypeMismatchException ex,
+                                                            HttpServletRequest request) {
+        return problem(PatientProblems.of(HttpStatus.BAD_REQUEST, "Bad Request",
+                "Invalid value for parameter '" + ex.getName() + "'", request.getRequestURI()));
+    }
 
-        ErrorResponse error = ErrorResponse.builder()
-                .timestamp(LocalDateTime.now())
-                .status(HttpStatus.BAD_REQUEST.value())
-                .error("Validation Failed")
-                .message("Invalid input data")
-                .path("/api/patients")
-                .validationErrors(errors)
-                .build();
-        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<ProblemDetail> handleNotReadable(HttpMessageNotReadableException ex,
+                                                           HttpServletRequest request) {
+        return problem(PatientProblems.of(HttpStatus.BAD_REQUEST, "Bad Request", "Malformed request body",
+                request.getRequestURI()));
+    }
+
+    /**
+     * Spring MVC's own request errors, with the status and detail they carry: 404 for an unknown
+     * path, 405, 406 for an {@code Accept} no endpoint produces, 415, a missing parameter, and
+     * 503 when an SSE stream or long poll outlives the async request timeout. A stream that has
+     * already sent events just ends.
+     */
+    @ExceptionHandler({NoResourceFoundException.class, HttpRequestMethodNotSupportedException.class,
+            HttpMediaTypeNotAcceptableException.class, HttpMediaTypeNotSupportedException.class,
+            MissingServletRequestParameterException.class, AsyncRequestTimeoutException.class})
+    public ResponseEntity<ProblemDetail> handleRequestError(Exception ex, HttpServletRequest request,
+                                                            HttpServletResponse response) {
+        if (response.isCommitted()) {
+            return null;
+        }
+        ErrorResponse error = (ErrorResponse) ex;
+        ProblemDetail body = error.getBody();
+        ProblemDetail problem = PatientProblems.of(HttpStatus.valueOf(error.getStatusCode().value()), body.getTitle(),
+                body.getDetail(), request.getRequestURI());
+        return ResponseEntity.status(problem.getStatus())
+                .headers(error.getHeaders())
+                .contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .body(problem);
     }
 
     @ExceptionHandler(Exception.class)
-    public ResponseEntity<ErrorResponse> handleGenericException(Exception ex) {
-        ErrorResponse error = ErrorResponse.builder()
-                .timestamp(LocalDateTime.now())
-                .status(HttpStatus.INTERNAL_SERVER_ERROR.value())
-                .error("Internal Server Error")
-                .message("An unexpected error occurred")
-                .path("/api/patients")
-                .build();
-        return new ResponseEntity<>(error, HttpStatus.INTERNAL_SERVER_ERROR);
+    public ResponseEntity<ProblemDetail> handleGenericException(Exception ex, HttpServletRequest request) {
+        log.error("Unexpected error on {} {}", request.getMethod(), request.getRequestURI(), ex);
+        return problem(PatientProblems.of(HttpStatus.INTERNAL_SERVER_ERROR, "Internal Server Error",
+                "An unexpected error occurred", request.getRequestURI()));
+    }
+
+    private static ResponseEntity<ProblemDetail> problem(ProblemDetail problem) {
+        return ResponseEntity.status(problem.getStatus()).contentType(MediaType.APPLICATION_PROBLEM_JSON).body(problem);
     }
 }
@@ -0,0 +1,7 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.exception;
+
+public class PatientDuplicateException extends RuntimeException {
+    public PatientDuplicateException(String field) {
+        super("A patient with the same " + field + " already exists");
+    }
+}
@@ -1,7 +1,12 @@
 package com.learnjavawithkaushi.cdpatientmicroservice.exception;
 
+/**
+ * Thrown for every unknown id, often by clients probing ids, so it skips the stack trace:
+ * filling one in walks the whole request stack and costs more than answering the 404. The
+ * cause of a miss is always the id, which the message carries.
+ */
 public class PatientNotFoundException extends RuntimeException {
     public PatientNotFoundException(String id) {
-        super("Patient not found with id: " + id);
+        super("Patient not found with id: " + id, null, false, false);
     }
-}
\ No newline at end of file
+}
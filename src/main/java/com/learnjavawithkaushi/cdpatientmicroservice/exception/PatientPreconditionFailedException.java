@@ -0,0 +1,7 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.exception;
+
+public class PatientPreconditionFailedException extends RuntimeException {
+    public PatientPreconditionFailedException(String id) {
+        super("Patient with id: " + id + " has been modified; refetch and retry");
+    }
+}
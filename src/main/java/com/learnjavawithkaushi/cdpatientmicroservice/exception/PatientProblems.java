@@ -0,0 +1,33 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * RFC 7807 bodies ({@code application/problem+json}) of both web stacks: {@code title},
+ * {@code status}, {@code detail} and {@code instance}, the path of the failed request, plus a
+ * {@code timestamp} and, for invalid patients, {@code validationErrors} by field.
+ */
+public final class PatientProblems {
+
+    private PatientProblems() {
+    }
+
+    public static ProblemDetail of(HttpStatus status, String title, String detail, String path) {
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(status, detail);
+        problem.setTitle(title);
+        problem.setInstance(URI.create(path));
+        problem.setProperty("timestamp", Instant.now());
+        return problem;
+    }
+
+    public static ProblemDetail invalid(Map<String, String> validationErrors, String path) {
+        ProblemDetail problem = of(HttpStatus.BAD_REQUEST, "Validation Failed", "Invalid input data", path);
+        problem.setProperty("validationErrors", validationErrors);
+        return problem;
+    }
+}
@@ -0,0 +1,23 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkItemResult {
+    private int index;
+    private String id;
+    private BulkItemStatus status;
+    private String message;
+    private String possibleDuplicateOf;
+    private Map<String, String> validationErrors;
+}
@@ -0,0 +1,9 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.model;
+
+public enum BulkItemStatus {
+    CREATED,
+    UPDATED,
+    INVALID,
+    DUPLICATE,
+    FAILED
+}
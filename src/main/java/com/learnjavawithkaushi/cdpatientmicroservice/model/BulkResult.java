@@ -0,0 +1,27 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkResult {
+    private int created;
+    private int updated;
+    private int failed;
+    private List<BulkItemResult> items = new ArrayList<>();
+
+    public void add(BulkItemResult item) {
+        switch (item.getStatus()) {
+            case CREATED -> created++;
+            case UPDATED -> updated++;
+            default -> failed++;
+        }
+        items.add(item);
+    }
+}
@@ -1,15 +1,22 @@
 package com.learnjavawithkaushi.cdpatientmicroservice.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import jakarta.validation.constraints.*;
 
+import java.time.Instant;
 import java.time.LocalDate;
 
 @Document("patients")
+// Leaves unset fields, e.g. those outside a requested PatientFields projection, out of the JSON
+@JsonInclude(JsonInclude.Include.NON_NULL)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -18,6 +25,9 @@ public class Patient {
     @Id
     private String id;
 
+    @Version
+    private Long version;
+
     @NotBlank(message = "First name is required")
     @Size(min = 2, max = 50, message = "First name must be between 2 and 50 characters")
     private String firstName;
@@ -42,4 +52,27 @@ public class Patient {
     @NotBlank(message = "Gender is required")
     @Pattern(regexp = "^(Male|Female|Other)$", message = "Gender must be Male, Female, or Other")
     private String gender;
+
+    /** Digits of {@link #contactNumber}; backs the unique contact index. Derived, see {@link PatientIdentity}. */
+    @JsonIgnore
+    private String normalizedContactNumber;
+
+    /** Normalized name and date of birth for duplicate detection. Derived, see {@link PatientIdentity}. */
+    @JsonIgnore
+    private String fingerprint;
+
+    /** Id of an existing patient with the same fingerprint at creation time, if any. */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private String possibleDuplicateOf;
+
+    /** Set by the server when the patient is created. Absent on documents written before it existed. */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Instant createdAt;
+
+    /**
+     * Set by the server on every write; backs {@code Last-Modified} and the
+     * {@code /api/patients/changes} delta. Absent on documents written before it existed.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Instant updatedAt;
 }
@@ -0,0 +1,29 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One write to the {@code patients} collection, as delivered by the change feed and the
+ * {@code GET /api/patients/changes} delta.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PatientChange {
+    /** Change feed resume token of this change; pass it back as {@code after} to continue behind it. */
+    private String token;
+    private PatientChangeType type;
+    private String id;
+    /** When the write was applied: as recorded by Mongo in the feed, {@code updatedAt} or {@code deletedAt} in the delta. */
+    private Instant time;
+    /** The patient as it was after the write; absent for deletes and for patients deleted since. */
+    private Patient patient;
+}
@@ -0,0 +1,16 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientChangeBatch {
+    private List<PatientChange> changes;
+    /** Where the next poll continues; set even when no change arrived, unless none is known yet. */
+    private String resumeToken;
+}
@@ -0,0 +1,22 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of the patient delta returned by {@code GET /api/patients/changes}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientChangePage {
+    private List<PatientChange> changes;
+    private String nextCursor;
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
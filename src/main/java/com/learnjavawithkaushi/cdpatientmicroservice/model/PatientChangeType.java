@@ -0,0 +1,7 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.model;
+
+public enum PatientChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,111 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.model;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientValidationException;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Sparse fieldset requested with {@code fields=}, e.g. {@code fields=firstName,lastName}: the
+ * {@link Patient} properties a read returns and loads from Mongo. {@code id} is always
+ * included because cursors and links are built from it.
+ */
+public final class PatientFields {
+
+    public static final PatientFields ALL = new PatientFields(null);
+
+    /** Projection of list views, covered by {@code patient_list_summary} in {@code PatientIndexes}. */
+    public static final List<String> SUMMARY = List.of("id", "firstName", "lastName", "dateOfBirth");
+
+    private static final Set<String> SELECTABLE = Set.of("id", "version", "firstName", "lastName", "dateOfBirth",
+            "contactNumber", "emailAddress", "gender", "possibleDuplicateOf", "createdAt",
+            "updatedAt");
+
+    /**
+     * What conditional requests compare: the version behind the ETag and the Last-Modified
+     * time. Declared after {@code SELECTABLE}, which {@link #parse} reads.
+     */
+    public static final PatientFields VERSION = parse("version,updatedAt");
+
+    private final Set<String> names;
+
+    private PatientFields(Set<String> names) {
+        this.names = names;
+    }
+
+    /**
+     * Parses a comma-separated {@code fields} parameter; {@code null} or blank selects every field.
+     */
+    public static PatientFields parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        Set<String> names = new LinkedHashSet<>();
+        names.add("id");
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (!SELECTABLE.contains(name)) {
+                throw new PatientValidationException("Unknown field: " + name);
+            }
+            names.add(name);
+        }
+        return new PatientFields(Collections.unmodifiableSet(names));
+    }
+
+    public boolean isAll() {
+        return names == null;
+    }
+
+    /**
+     * @return the selected property names, {@code id} first; empty when every field is selected
+     */
+    public Set<String> names() {
+        return names == null ? Set.of() : names;
+    }
+
+    /**
+     * Copies the selected fields of an already loaded patient, e.g. one served from the cache.
+     */
+    public Patient project(Patient patient) {
+        if (names == null) {
+            return patient;
+        }
+        Patient projected = new Patient();
+        projected.setId(patient.getId());
+        for (String name : names) {
+            switch (name) {
+                case "version" -> projected.setVersion(patient.getVersion());
+                case "firstName" -> projected.setFirstName(patient.getFirstName());
+                case "lastName" -> projected.setLastName(patient.getLastName());
+                case "dateOfBirth" -> projected.setDateOfBirth(patient.getDateOfBirth());
+                case "contactNumber" -> projected.setContactNumber(patient.getContactNumber());
+                case "emailAddress" -> projected.setEmailAddress(patient.getEmailAddress());
+                case "gender" -> projected.setGender(patient.getGender());
+                case "possibleDuplicateOf" -> projected.setPossibleDuplicateOf(patient.getPossibleDuplicateOf());
+                case "createdAt" -> projected.setCreatedAt(patient.getCreatedAt());
+                case "updatedAt" -> projected.setUpdatedAt(patient.getUpdatedAt());
+                default -> {
+                    // id is always copied
+                }
+            }
+        }
+        return projected;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof PatientFields fields && names().equals(fields.names()) && isAll() == fields.isAll();
+    }
+
+    @Override
+    public int hashCode() {
+        return names().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return names == null ? "all" : String.join(",", names);
+    }
+}
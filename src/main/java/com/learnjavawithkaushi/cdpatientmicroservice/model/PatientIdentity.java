@@ -0,0 +1,49 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.model;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Derives the normalized keys used to detect duplicate patients at write time. Emails are
+ * compared case-insensitively by the unique index's collation, so they are stored as given.
+ */
+public final class PatientIdentity {
+
+    private PatientIdentity() {
+    }
+
+    /**
+     * Recomputes the derived fields of {@code patient} from its current values.
+     */
+    public static void apply(Patient patient) {
+        patient.setNormalizedContactNumber(contactNumber(patient.getContactNumber()));
+        patient.setFingerprint(fingerprint(patient));
+    }
+
+    /**
+     * Keeps only the digits, so {@code +441234567890} and {@code 441234567890} collide.
+     */
+    public static String contactNumber(String contactNumber) {
+        if (contactNumber == null) {
+            return null;
+        }
+        String digits = contactNumber.replaceAll("\\D", "");
+        return digits.isEmpty() ? null : digits;
+    }
+
+    /**
+     * Last name, first name and date of birth with case, accents, spaces and punctuation
+     * removed, e.g. {@code "obrien|sean|1990-01-01"} for Seán O'Brien.
+     */
+    public static String fingerprint(Patient patient) {
+        if (patient.getFirstName() == null || patient.getLastName() == null || patient.getDateOfBirth() == null) {
+            return null;
+        }
+        return name(patient.getLastName()) + "|" + name(patient.getFirstName()) + "|" + patient.getDateOfBirth();
+    }
+
+    private static String name(String value) {
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFD);
+        return decomposed.replaceAll("[^\\p{L}]", "").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,38 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientSearchCriteria {
+    /** Case-insensitive prefix. */
+    private String firstName;
+    /** Case-insensitive prefix. */
+    private String lastName;
+    /** Inclusive lower bound. */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate dateOfBirthFrom;
+    /** Inclusive upper bound. */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate dateOfBirthTo;
+    private String gender;
+    private String emailAddress;
+    private String contactNumber;
+
+    public boolean isEmpty() {
+        return isBlank(firstName) && isBlank(lastName) && dateOfBirthFrom == null && dateOfBirthTo == null
+                && isBlank(gender) && isBlank(emailAddress) && isBlank(contactNumber);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
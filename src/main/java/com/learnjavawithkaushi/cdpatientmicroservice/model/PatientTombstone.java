@@ -0,0 +1,29 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Left behind by a deleted patient, so {@code GET /api/patients/changes} can report the
+ * delete. Kept in a collection of its own, which leaves reads, unique indexes and the change
+ * stream of {@code patients} untouched, and expires after {@code patient.changes.tombstone-retention}.
+ */
+@Document("patient_tombstones")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientTombstone {
+    /** Id of the deleted patient. */
+    @Id
+    private String id;
+
+    /** Version of the patient when it was deleted. */
+    private Long version;
+
+    private Instant deletedAt;
+}
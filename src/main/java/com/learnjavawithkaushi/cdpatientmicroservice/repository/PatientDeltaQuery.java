@@ -0,0 +1,47 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.repository;
+
+import com.mongodb.ReadPreference;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Instant;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Builds the queries behind the patient delta: documents whose write time lies in
+ * {@code [since, until)}, in {@code (time, _id)} order, after a keyset position when given.
+ * Served by {@link PatientIndexes#UPDATED_AT} on patients and {@link PatientIndexes#DELETED_AT}
+ * on tombstones.
+ * <p>
+ * The queries always read from the primary, whatever the list read preference: the window ends
+ * only {@code patient.changes.delta-lag} before now, and a secondary lagging further behind
+ * would miss writes in a window the caller has already read past.
+ */
+public final class PatientDeltaQuery {
+
+    public static final String UPDATED_AT = "updatedAt";
+    public static final String DELETED_AT = "deletedAt";
+
+    private PatientDeltaQuery() {
+    }
+
+    /**
+     * @param afterTime time of the last entry already returned, or {@code null} for the first page
+     * @param afterId   id of that entry; entries written at the same time follow in id order
+     */
+    public static Query of(String timeField, Instant since, Instant until, Instant afterTime, String afterId,
+                           int limit) {
+        Criteria where = where(timeField).gte(since).lt(until);
+        if (afterTime != null) {
+            where = new Criteria().andOperator(where, new Criteria().orOperator(
+                    where(timeField).gt(afterTime),
+                    where(timeField).is(afterTime).and("id").gt(afterId)));
+        }
+        return Query.query(where)
+                .with(Sort.by(timeField, "id"))
+                .limit(limit)
+                .withReadPreference(ReadPreference.primary());
+    }
+}
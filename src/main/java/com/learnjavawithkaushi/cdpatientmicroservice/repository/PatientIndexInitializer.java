@@ -0,0 +1,88 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.repository;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.config.PatientProperties;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientTombstone;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.Future;
+
+/**
+ * Creates {@link PatientIndexes} once the application is ready. Runs off the startup thread
+ * so an unreachable Mongo delays neither startup nor readiness; failures are logged and the
+ * next start retries. Creating an index that already exists is a no-op. A creation still
+ * waiting for a server at shutdown is interrupted rather than holding the context open.
+ */
+@Component
+@Slf4j
+public class PatientIndexInitializer {
+
+    private final MongoTemplate mongoTemplate;
+    private final PatientProperties properties;
+    private final AsyncTaskExecutor executor;
+    private volatile Future<?> pending;
+
+    public PatientIndexInitializer(MongoTemplate mongoTemplate, PatientProperties properties,
+                                   @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                                   AsyncTaskExecutor executor) {
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+        this.executor = executor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!properties.getIndexes().isCreateOnStartup()) {
+            log.info("Skipping patient index creation (patient.indexes.create-on-startup=false)");
+            return;
+        }
+        pending = executor.submit(() -> {
+            try {
+                ensureIndexes();
+            } catch (RuntimeException e) {
+                log.error("Could not create patient indexes: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Runs before the task executor's graceful shutdown, which would otherwise wait out the
+     * driver's server selection timeout.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void onContextClosed() {
+        Future<?> task = pending;
+        if (task != null) {
+            task.cancel(true);
+        }
+    }
+
+    public void ensureIndexes() {
+        IndexOperations indexOps = mongoTemplate.indexOps(Patient.class);
+        for (Index index : PatientIndexes.all()) {
+            try {
+                indexOps.createIndex(index);
+            } catch (DuplicateKeyException e) {
+                // Keep going; the remaining indexes are still useful
+                log.error("Existing duplicates prevent unique index {}; resolve them and restart: {}",
+                        index.getIndexOptions().get("name"), e.getMessage());
+            }
+        }
+        List<Index> tombstoneIndexes = PatientIndexes.tombstones(properties.getChanges().getTombstoneRetention());
+        IndexOperations tombstoneOps = mongoTemplate.indexOps(PatientTombstone.class);
+        tombstoneIndexes.forEach(tombstoneOps::createIndex);
+        log.info("Ensured {} patient and {} tombstone indexes", PatientIndexes.all().size(), tombstoneIndexes.size());
+    }
+}
@@ -0,0 +1,82 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.repository;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Index definitions for the patients collection. Every searchable field leads at least one
+ * index, so no accepted search in {@link PatientSearchQuery} degrades to a collection scan.
+ * Search indexes use the search collation; an index with a different collation cannot serve
+ * string bounds of a search. The unique indexes reject duplicate patients at write time.
+ */
+public final class PatientIndexes {
+
+    public static final String UNIQUE_EMAIL = "patient_unique_email";
+    public static final String UNIQUE_CONTACT = "patient_unique_contact";
+    public static final String FINGERPRINT = "patient_fingerprint";
+    public static final String LIST_SUMMARY = "patient_list_summary";
+    public static final String UPDATED_AT = "patient_updated_at";
+    public static final String DELETED_AT = "tombstone_deleted_at";
+    public static final String TOMBSTONE_EXPIRY = "tombstone_expiry";
+
+    private PatientIndexes() {
+    }
+
+    public static List<Index> all() {
+        return List.of(
+                search("patient_search_name", "lastName", "firstName", "_id"),
+                search("patient_search_first_name", "firstName", "_id"),
+                search("patient_search_dob", "dateOfBirth", "_id"),
+                search("patient_search_gender_dob", "gender", "dateOfBirth", "_id"),
+                // Covers list pages projected to PatientFields.SUMMARY; no collation, like the page query
+                new Index().named(LIST_SUMMARY).on("_id", Sort.Direction.ASC).on("firstName", Sort.Direction.ASC)
+                        .on("lastName", Sort.Direction.ASC).on("dateOfBirth", Sort.Direction.ASC),
+                // Case-insensitive uniqueness comes from the collation
+                search(UNIQUE_EMAIL, "emailAddress").unique(),
+                // Partial so documents written before normalization are skipped until rewritten
+                search(UNIQUE_CONTACT, "normalizedContactNumber").unique()
+                        .partial(PartialIndexFilter.of(where("normalizedContactNumber").exists(true))),
+                // Fingerprints are already normalized and looked up without a collation
+                new Index().named(FINGERPRINT).on("fingerprint", Sort.Direction.ASC),
+                // Serves the delta's range and keyset order; documents without updatedAt are not in it
+                new Index().named(UPDATED_AT).on("updatedAt", Sort.Direction.ASC).on("_id", Sort.Direction.ASC));
+    }
+
+    /**
+     * Indexes of {@link com.learnjavawithkaushi.cdpatientmicroservice.model.PatientTombstone}s.
+     * A TTL index must have a single field, so it cannot also provide the delta's order. A
+     * changed {@code retention} only applies after the existing TTL index is dropped.
+     */
+    public static List<Index> tombstones(Duration retention) {
+        return List.of(
+                new Index().named(DELETED_AT).on("deletedAt", Sort.Direction.ASC).on("_id", Sort.Direction.ASC),
+                new Index().named(TOMBSTONE_EXPIRY).on("deletedAt", Sort.Direction.ASC).expire(retention));
+    }
+
+    /**
+     * Maps a duplicate key error from one of the unique indexes to the field it protects.
+     */
+    public static String duplicatedField(String errorMessage) {
+        if (errorMessage != null && errorMessage.contains(UNIQUE_CONTACT)) {
+            return "contact number";
+        }
+        if (errorMessage != null && errorMessage.contains(UNIQUE_EMAIL)) {
+            return "email address";
+        }
+        return "id";
+    }
+
+    private static Index search(String name, String... fields) {
+        Index index = new Index().named(name).collation(PatientSearchQuery.COLLATION);
+        for (String field : fields) {
+            index.on(field, Sort.Direction.ASC);
+        }
+        return index;
+    }
+}
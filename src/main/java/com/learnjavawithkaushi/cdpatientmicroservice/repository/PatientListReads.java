@@ -0,0 +1,35 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.repository;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.config.PatientProperties;
+import com.mongodb.ReadConcern;
+import com.mongodb.ReadConcernLevel;
+import com.mongodb.ReadPreference;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Read preference and concern of list reads (pages, search and the NDJSON export), from
+ * {@code patient.mongo.list-read-preference} and {@code list-read-concern}. The delta always
+ * reads from the primary (see {@link PatientDeltaQuery}); every other read uses the client
+ * default, the primary unless configured otherwise, so a {@code getById} right after a write
+ * sees it.
+ */
+final class PatientListReads {
+
+    private final ReadPreference readPreference;
+    private final ReadConcern readConcern;
+
+    PatientListReads(PatientProperties properties) {
+        PatientProperties.Mongo mongo = properties.getMongo();
+        this.readPreference = ReadPreference.valueOf(mongo.getListReadPreference());
+        this.readConcern = mongo.getListReadConcern() == null ? null
+                : new ReadConcern(ReadConcernLevel.fromString(mongo.getListReadConcern()));
+    }
+
+    Query apply(Query query) {
+        query.withReadPreference(readPreference);
+        if (readConcern != null) {
+            query.withReadConcern(readConcern);
+        }
+        return query;
+    }
+}
@@ -0,0 +1,36 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.repository;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientFields;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Query;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Pushes a {@link PatientFields} selection down to Mongo as a projection, so unselected fields
+ * are neither sent by the server nor mapped. A page whose fields are within
+ * {@link PatientFields#SUMMARY} is answered from {@code patient_list_summary} alone (a covered
+ * query); search indexes cannot cover, since collated indexes store sort keys rather than the
+ * strings themselves.
+ */
+public final class PatientProjection {
+
+    private PatientProjection() {
+    }
+
+    public static Query byId(String id, PatientFields fields) {
+        return apply(Query.query(where("id").is(id)), fields);
+    }
+
+    public static Query page(String afterId, int limit, PatientFields fields) {
+        Query query = afterId == null ? new Query() : Query.query(where("id").gt(afterId));
+        return apply(query.with(Sort.by("id")).limit(limit), fields);
+    }
+
+    public static Query apply(Query query, PatientFields fields) {
+        if (!fields.isAll()) {
+            query.fields().include(fields.names().toArray(String[]::new));
+        }
+        return query;
+    }
+}
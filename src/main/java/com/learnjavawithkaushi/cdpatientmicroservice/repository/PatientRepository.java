@@ -3,4 +3,9 @@ package com.learnjavawithkaushi.cdpatientmicroservice.repository;
 import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
-public interface PatientRepository extends MongoRepository<Patient, String> {}
+import java.util.Optional;
+
+public interface PatientRepository extends MongoRepository<Patient, String>, PatientRepositoryCustom {
+
+    Optional<Patient> findFirstByFingerprint(String fingerprint);
+}
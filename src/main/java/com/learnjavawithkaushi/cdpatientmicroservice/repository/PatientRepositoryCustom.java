@@ -0,0 +1,72 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.repository;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientFields;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientSearchCriteria;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientTombstone;
+
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Single round-trip operations that {@link org.springframework.data.mongodb.repository.MongoRepository}
+ * cannot express. A {@code null} expected version skips the optimistic concurrency check;
+ * reads taking {@link PatientFields} only load the selected fields (see {@link PatientProjection}).
+ * Pages, search and the stream read with {@link PatientListReads}; the delta reads from the primary.
+ */
+public interface PatientRepositoryCustom {
+
+    /**
+     * Backed by a server-side cursor; the returned stream must be closed by the caller.
+     */
+    Stream<Patient> streamAllByOrderByIdAsc();
+
+    /**
+     * Replaces the patient's fields and bumps its version in one findAndModify.
+     *
+     * @return the updated document, or empty when no document matched the id (and version)
+     */
+    Optional<Patient> replaceById(String id, Patient patient, Long expectedVersion);
+
+    /**
+     * Deletes the patient and records a {@link PatientTombstone} for it.
+     *
+     * @return {@code true} when a document matching the id (and version) was deleted
+     */
+    boolean removeById(String id, Long expectedVersion);
+
+    Optional<Patient> findById(String id, PatientFields fields);
+
+    /**
+     * Patient count from the collection's metadata, without scanning it. Can be off after an
+     * unclean shutdown, and on sharded clusters while chunks migrate.
+     */
+    long estimatedCount();
+
+    /**
+     * Returns up to {@code limit} patients with an id greater than {@code afterId} (when
+     * given), in {@code _id} order.
+     */
+    List<Patient> findPage(String afterId, int limit, PatientFields fields);
+
+    /**
+     * Returns up to {@code limit} patients matching the criteria with an id greater than
+     * {@code afterId} (when given), in {@code _id} order. See {@link PatientSearchQuery}.
+     */
+    List<Patient> search(PatientSearchCriteria criteria, String afterId, int limit, PatientFields fields);
+
+    /**
+     * Returns up to {@code limit} patients written in {@code [since, until)}, in
+     * {@code (updatedAt, _id)} order, from the primary. See {@link PatientDeltaQuery}.
+     */
+    List<Patient> findModified(Instant since, Instant until, Instant afterTime, String afterId, int limit);
+
+    /**
+     * Returns up to {@code limit} tombstones of patients deleted in {@code [since, until)}, in
+     * {@code (deletedAt, _id)} order, from the primary.
+     */
+    List<PatientTombstone> findDeleted(Instant since, Instant until, Instant afterTime, String afterId, int limit);
+}
@@ -0,0 +1,119 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.repository;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.config.PatientProperties;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientFields;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientSearchCriteria;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientTombstone;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+class PatientRepositoryImpl implements PatientRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+    private final PatientListReads listReads;
+
+    PatientRepositoryImpl(MongoTemplate mongoTemplate, PatientProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.listReads = new PatientListReads(properties);
+    }
+
+    @Override
+    public Stream<Patient> streamAllByOrderByIdAsc() {
+        return mongoTemplate.stream(listReads.apply(new Query().with(Sort.by("id"))), Patient.class);
+    }
+
+    @Override
+    public Optional<Patient> replaceById(String id, Patient patient, Long expectedVersion) {
+        Patient updated = mongoTemplate.findAndModify(
+                byIdAndVersion(id, expectedVersion),
+                PatientUpdates.replacementOf(patient, mongoTemplate.getConverter()),
+                FindAndModifyOptions.options().returnNew(true),
+                Patient.class);
+        return Optional.ofNullable(updated);
+    }
+
+    @Override
+    public boolean removeById(String id, Long expectedVersion) {
+        Patient removed = mongoTemplate.findAndRemove(removal(id, expectedVersion), Patient.class);
+        if (removed == null) {
+            return false;
+        }
+        mongoTemplate.save(tombstoneOf(removed));
+        return true;
+    }
+
+    @Override
+    public Optional<Patient> findById(String id, PatientFields fields) {
+        return Optional.ofNullable(mongoTemplate.findOne(PatientProjection.byId(id, fields), Patient.class));
+    }
+
+    @Override
+    public long estimatedCount() {
+        return mongoTemplate.estimatedCount(Patient.class);
+    }
+
+    @Override
+    public List<Patient> findPage(String afterId, int limit, PatientFields fields) {
+        return mongoTemplate.find(listReads.apply(PatientProjection.page(afterId, limit, fields)), Patient.class);
+    }
+
+    @Override
+    public List<Patient> search(PatientSearchCriteria criteria, String afterId, int limit, PatientFields fields) {
+        return mongoTemplate.find(
+                listReads.apply(PatientProjection.apply(PatientSearchQuery.of(criteria, afterId, limit), fields)),
+                Patient.class);
+    }
+
+    @Override
+    public List<Patient> findModified(Instant since, Instant until, Instant afterTime, String afterId, int limit) {
+        return mongoTemplate.find(
+                PatientDeltaQuery.of(PatientDeltaQuery.UPDATED_AT, since, until, afterTime, afterId, limit),
+                Patient.class);
+    }
+
+    @Override
+    public List<PatientTombstone> findDeleted(Instant since, Instant until, Instant afterTime, String afterId,
+                                              int limit) {
+        return mongoTemplate.find(
+                PatientDeltaQuery.of(PatientDeltaQuery.DELETED_AT, since, until, afterTime, afterId, limit),
+                PatientTombstone.class);
+    }
+
+    /**
+     * Removes the patient and returns only what its tombstone needs.
+     */
+    static Query removal(String id, Long expectedVersion) {
+        Query query = byIdAndVersion(id, expectedVersion);
+        query.fields().include("version");
+        return query;
+    }
+
+    /**
+     * Written after the delete, not in a transaction with it: a crash in between loses the
+     * tombstone, while the reverse order could report a delete that never happened.
+     */
+    static PatientTombstone tombstoneOf(Patient removed) {
+        return new PatientTombstone(removed.getId(), removed.getVersion(),
+                Instant.now().truncatedTo(ChronoUnit.MILLIS));
+    }
+
+    private static Query byIdAndVersion(String id, Long expectedVersion) {
+        Criteria criteria = where("id").is(id);
+        if (expectedVersion != null) {
+            criteria = criteria.and("version").is(expectedVersion);
+        }
+        return Query.query(criteria);
+    }
+}
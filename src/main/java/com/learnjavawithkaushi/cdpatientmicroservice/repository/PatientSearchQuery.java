@@ -0,0 +1,75 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.repository;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientIdentity;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientSearchCriteria;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Collation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Builds patient search queries that can always be answered from an index in
+ * {@link PatientIndexes}.
+ *
+ * <p>String filters are matched under a case-insensitive collation (English, secondary
+ * strength) that every search index shares. Name prefixes become a collation-aware range
+ * {@code [prefix, prefix + U+FFFF)} rather than a case-insensitive regex, because a regex
+ * cannot use index bounds. In ICU's root collation U+FFFF sorts after every other character.
+ */
+public final class PatientSearchQuery {
+
+    public static final Collation COLLATION = Collation.of("en").strength(Collation.ComparisonLevel.secondary());
+
+    private static final String PREFIX_UPPER_BOUND = "\uFFFF";
+
+    private PatientSearchQuery() {
+    }
+
+    public static Query of(PatientSearchCriteria criteria, String afterId, int limit) {
+        Criteria where = new Criteria();
+        if (hasText(criteria.getLastName())) {
+            where = prefix(where, "lastName", criteria.getLastName());
+        }
+        if (hasText(criteria.getFirstName())) {
+            where = prefix(where, "firstName", criteria.getFirstName());
+        }
+        if (criteria.getDateOfBirthFrom() != null || criteria.getDateOfBirthTo() != null) {
+            Criteria dateOfBirth = where.and("dateOfBirth");
+            if (criteria.getDateOfBirthFrom() != null) {
+                dateOfBirth = dateOfBirth.gte(criteria.getDateOfBirthFrom());
+            }
+            if (criteria.getDateOfBirthTo() != null) {
+                dateOfBirth = dateOfBirth.lte(criteria.getDateOfBirthTo());
+            }
+            where = dateOfBirth;
+        }
+        if (hasText(criteria.getGender())) {
+            where = where.and("gender").is(criteria.getGender().trim());
+        }
+        if (hasText(criteria.getEmailAddress())) {
+            where = where.and("emailAddress").is(criteria.getEmailAddress().trim());
+        }
+        if (hasText(criteria.getContactNumber())) {
+            where = where.and("normalizedContactNumber").is(PatientIdentity.contactNumber(criteria.getContactNumber()));
+        }
+        if (afterId != null) {
+            where = where.and("id").gt(afterId);
+        }
+
+        return Query.query(where)
+                .collation(COLLATION)
+                .with(Sort.by("id"))
+                .limit(limit);
+    }
+
+    private static Criteria prefix(Criteria where, String field, String prefix) {
+        String start = prefix.trim();
+        return where.and(field).gte(start).lt(start + PREFIX_UPPER_BOUND);
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+}
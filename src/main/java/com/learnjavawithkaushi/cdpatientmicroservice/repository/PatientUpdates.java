@@ -0,0 +1,45 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.repository;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import org.bson.Document;
+import org.springframework.data.mapping.PropertyHandler;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Set;
+
+public final class PatientUpdates {
+
+    /** Set by the server when the patient is created; a replacement keeps the stored values. */
+    private static final Set<String> KEPT_ON_REPLACE = Set.of("createdAt", "possibleDuplicateOf");
+
+    private PatientUpdates() {
+    }
+
+    /**
+     * Builds an update that overwrites every mapped field of {@code patient} and increments
+     * the version, so a full replacement and the version bump happen in a single write
+     * without reading the current version first. Fields that are {@code null} on
+     * {@code patient} are unset, as a whole-document save would drop them, except for the
+     * creation-time fields in {@link #KEPT_ON_REPLACE}.
+     */
+    public static Update replacementOf(Patient patient, MongoConverter converter) {
+        Document document = new Document();
+        converter.write(patient, document);
+        document.remove("_id");
+        document.remove("version");
+
+        Update update = new Update();
+        document.forEach(update::set);
+        converter.getMappingContext().getRequiredPersistentEntity(Patient.class)
+                .doWithProperties((PropertyHandler<MongoPersistentProperty>) property -> {
+                    String field = property.getFieldName();
+                    if (!property.isIdProperty() && !property.isVersionProperty()
+                            && !document.containsKey(field) && !KEPT_ON_REPLACE.contains(field)) {
+                        update.unset(field);
+                    }
+                });
+        return update.inc("version", 1);
+    }
+}
@@ -0,0 +1,14 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.repository;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link PatientRepository} used by the WebFlux execution mode.
+ */
+public interface ReactivePatientRepository extends ReactiveMongoRepository<Patient, String>,
+        ReactivePatientRepositoryCustom {
+
+    Mono<Patient> findFirstByFingerprint(String fingerprint);
+}
@@ -0,0 +1,58 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.repository;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientFields;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientSearchCriteria;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientTombstone;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+/**
+ * Reactive variant of {@link PatientRepositoryCustom}.
+ */
+public interface ReactivePatientRepositoryCustom {
+
+    /**
+     * Backed by a server-side cursor that is drained as the subscriber requests more.
+     */
+    Flux<Patient> streamAllByOrderByIdAsc();
+
+    /**
+     * @return the updated document, or empty when no document matched the id (and version)
+     */
+    Mono<Patient> replaceById(String id, Patient patient, Long expectedVersion);
+
+    /**
+     * @see PatientRepositoryCustom#removeById(String, Long)
+     */
+    Mono<Boolean> removeById(String id, Long expectedVersion);
+
+    Mono<Patient> findById(String id, PatientFields fields);
+
+    /**
+     * @see PatientRepositoryCustom#estimatedCount()
+     */
+    Mono<Long> estimatedCount();
+
+    /**
+     * @see PatientRepositoryCustom#findPage(String, int, PatientFields)
+     */
+    Flux<Patient> findPage(String afterId, int limit, PatientFields fields);
+
+    /**
+     * @see PatientRepositoryCustom#search(PatientSearchCriteria, String, int, PatientFields)
+     */
+    Flux<Patient> search(PatientSearchCriteria criteria, String afterId, int limit, PatientFields fields);
+
+    /**
+     * @see PatientRepositoryCustom#findModified(Instant, Instant, Instant, String, int)
+     */
+    Flux<Patient> findModified(Instant since, Instant until, Instant afterTime, String afterId, int limit);
+
+    /**
+     * @see PatientRepositoryCustom#findDeleted(Instant, Instant, Instant, String, int)
+     */
+    Flux<PatientTombstone> findDeleted(Instant since, Instant until, Instant afterTime, String afterId, int limit);
+}
@@ -0,0 +1,95 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.repository;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.config.PatientProperties;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientFields;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientSearchCriteria;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientTombstone;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+class ReactivePatientRepositoryImpl implements ReactivePatientRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final PatientListReads listReads;
+
+    ReactivePatientRepositoryImpl(ReactiveMongoTemplate mongoTemplate, PatientProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.listReads = new PatientListReads(properties);
+    }
+
+    @Override
+    public Flux<Patient> streamAllByOrderByIdAsc() {
+        return mongoTemplate.find(listReads.apply(new Query().with(Sort.by("id"))), Patient.class);
+    }
+
+    @Override
+    public Mono<Patient> replaceById(String id, Patient patient, Long expectedVersion) {
+        return mongoTemplate.findAndModify(
+                byIdAndVersion(id, expectedVersion),
+                PatientUpdates.replacementOf(patient, mongoTemplate.getConverter()),
+                FindAndModifyOptions.options().returnNew(true),
+                Patient.class);
+    }
+
+    @Override
+    public Mono<Boolean> removeById(String id, Long expectedVersion) {
+        return mongoTemplate.findAndRemove(PatientRepositoryImpl.removal(id, expectedVersion), Patient.class)
+                .flatMap(removed -> mongoTemplate.save(PatientRepositoryImpl.tombstoneOf(removed)))
+                .hasElement();
+    }
+
+    @Override
+    public Mono<Patient> findById(String id, PatientFields fields) {
+        return mongoTemplate.findOne(PatientProjection.byId(id, fields), Patient.class);
+    }
+
+    @Override
+    public Mono<Long> estimatedCount() {
+        return mongoTemplate.estimatedCount(Patient.class);
+    }
+
+    @Override
+    public Flux<Patient> findPage(String afterId, int limit, PatientFields fields) {
+        return mongoTemplate.find(listReads.apply(PatientProjection.page(afterId, limit, fields)), Patient.class);
+    }
+
+    @Override
+    public Flux<Patient> search(PatientSearchCriteria criteria, String afterId, int limit, PatientFields fields) {
+        return mongoTemplate.find(
+                listReads.apply(PatientProjection.apply(PatientSearchQuery.of(criteria, afterId, limit), fields)),
+                Patient.class);
+    }
+
+    @Override
+    public Flux<Patient> findModified(Instant since, Instant until, Instant afterTime, String afterId, int limit) {
+        return mongoTemplate.find(
+                PatientDeltaQuery.of(PatientDeltaQuery.UPDATED_AT, since, until, afterTime, afterId, limit),
+                Patient.class);
+    }
+
+    @Override
+    public Flux<PatientTombstone> findDeleted(Instant since, Instant until, Instant afterTime, String afterId,
+                                              int limit) {
+        return mongoTemplate.find(
+                PatientDeltaQuery.of(PatientDeltaQuery.DELETED_AT, since, until, afterTime, afterId, limit),
+                PatientTombstone.class);
+    }
+
+    private static Query byIdAndVersion(String id, Long expectedVersion) {
+        Criteria criteria = where("id").is(id);
+        if (expectedVersion != null) {
+            criteria = criteria.and("version").is(expectedVersion);
+        }
+        return Query.query(criteria);
+    }
+}
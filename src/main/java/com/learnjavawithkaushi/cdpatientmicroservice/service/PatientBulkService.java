@@ -0,0 +1,262 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.service;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.config.PatientProperties;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.BulkItemResult;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.BulkItemStatus;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.BulkResult;
+import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientDuplicateException;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientIdentity;
+import com.learnjavawithkaushi.cdpatientmicroservice.repository.PatientIndexes;
+import com.learnjavawithkaushi.cdpatientmicroservice.repository.PatientUpdates;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Bulk create/upsert of patients. Every item is validated individually and valid items are
+ * written in unordered bulk batches, so one bad record never fails the rest of the request.
+ * Items without an id are inserted; items with an id replace (or create) that document and
+ * bump its version. Duplicates are detected the same way as by {@link PatientService#create}:
+ * unique index violations are reported as {@link BulkItemStatus#DUPLICATE} and inserted
+ * items sharing a name/date-of-birth fingerprint are flagged, with one lookup per batch.
+ * <p>
+ * Items are taken {@code patient.bulk.batch-size} at a time: each chunk is validated and written
+ * before the next one is read, so only one chunk is held in memory, whatever the request size.
+ */
+@Service
+@Timed(value = "patient.service", histogram = true)
+@Slf4j
+public class PatientBulkService {
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final PatientValidator validator;
+    private final PatientCache cache;
+    private final PatientProperties properties;
+
+    public PatientBulkService(MongoTemplate mongoTemplate, PatientValidator validator, PatientCache cache,
+                              PatientProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.validator = validator;
+        this.cache = cache;
+        this.properties = properties;
+    }
+
+    public BulkResult ingest(Iterator<Patient> patients) {
+        BulkResult result = new BulkResult();
+        int index = 0;
+        for (List<Patient> chunk = nextChunk(patients); !chunk.isEmpty(); chunk = nextChunk(patients)) {
+            ingestChunk(chunk, index).forEach(result::add);
+            index += chunk.size();
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Bulk ingest finished: {} created, {} updated, {} failed",
+                    result.getCreated(), result.getUpdated(), result.getFailed());
+        }
+        return result;
+    }
+
+    /**
+     * Like {@link #ingest(Iterator)}, but hands each chunk's results to {@code sink} as soon as
+     * the chunk is written instead of collecting them, for imports too large to answer at once.
+     */
+    public void ingest(Iterator<Patient> patients, ResultSink sink) throws IOException {
+        int index = 0;
+        for (List<Patient> chunk = nextChunk(patients); !chunk.isEmpty(); chunk = nextChunk(patients)) {
+            sink.accept(ingestChunk(chunk, index));
+            index += chunk.size();
+        }
+        log.debug("Streaming bulk ingest finished: {} items", index);
+    }
+
+    /**
+     * Validates and writes one chunk of a bulk request.
+     *
+     * @param firstIndex request index of the chunk's first item
+     * @return a result per item, in index order
+     */
+    public List<BulkItemResult> ingestChunk(List<Patient> chunk, int firstIndex) {
+        List<BulkItemResult> results = new ArrayList<>(chunk.size());
+        List<IndexedPatient> batch = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            Patient patient = chunk.get(i);
+            Map<String, String> errors = validate(patient);
+            if (errors.isEmpty()) {
+                batch.add(new IndexedPatient(firstIndex + i, patient));
+            } else {
+                results.add(BulkItemResult.builder()
+                        .index(firstIndex + i)
+                        .id(patient == null ? null : patient.getId())
+                        .status(BulkItemStatus.INVALID)
+                        .message("Invalid input data")
+                        .validationErrors(errors)
+                        .build());
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch, results);
+            results.sort(Comparator.comparingInt(BulkItemResult::getIndex));
+        }
+        return results;
+    }
+
+    /**
+     * Receives the results of each written chunk of a streaming ingest; an {@link IOException}
+     * ends it.
+     */
+    @FunctionalInterface
+    public interface ResultSink {
+
+        void accept(List<BulkItemResult> results) throws IOException;
+    }
+
+    private List<Patient> nextChunk(Iterator<Patient> patients) {
+        int batchSize = properties.getBulk().getBatchSize();
+        List<Patient> chunk = new ArrayList<>(batchSize);
+        while (chunk.size() < batchSize && patients.hasNext()) {
+            chunk.add(patients.next());
+        }
+        return chunk;
+    }
+
+    private Map<String, String> validate(Patient patient) {
+        if (patient == null) {
+            return Map.of("patient", "Patient must not be null");
+        }
+        return validator.validate(patient);
+    }
+
+    private void write(List<IndexedPatient> batch, List<BulkItemResult> results) {
+        Instant writeTime = PatientService.writeTime();
+        for (IndexedPatient item : batch) {
+            Patient patient = item.patient();
+            patient.setUpdatedAt(writeTime);
+            PatientIdentity.apply(patient);
+            if (item.wasInsert()) {
+                // Assign the id up front so it can be reported back for each inserted item
+                patient.setId(new ObjectId().toHexString());
+                patient.setVersion(0L);
+                patient.setCreatedAt(writeTime);
+            } else {
+                patient.setCreatedAt(null);
+            }
+        }
+        flagPossibleDuplicates(batch);
+
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Patient.class);
+        for (IndexedPatient item : batch) {
+            Patient patient = item.patient();
+            if (item.wasInsert()) {
+                ops.insert(patient);
+            } else {
+                ops.upsert(query(where("id").is(patient.getId())),
+                        PatientUpdates.replacementOf(patient, mongoTemplate.getConverter())
+                                .setOnInsert("createdAt", writeTime));
+            }
+        }
+
+        BulkWriteResult writeResult;
+        Map<Integer, BulkWriteError> failures = new HashMap<>();
+        try {
+            writeResult = ops.execute();
+        } catch (BulkOperationException e) {
+            writeResult = e.getResult();
+            for (BulkWriteError error : e.getErrors()) {
+                failures.put(error.getIndex(), error);
+            }
+        } finally {
+            // Drops stale and negative entries for every id the batch may have touched
+            batch.forEach(item -> cache.invalidate(item.patient().getId()));
+        }
+
+        Set<Integer> upserted = new HashSet<>();
+        for (BulkWriteUpsert upsert : writeResult.getUpserts()) {
+            upserted.add(upsert.getIndex());
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            IndexedPatient item = batch.get(i);
+            BulkWriteError failure = failures.get(i);
+            // A failed insert never stored the id assigned to it above, so it is not reported
+            BulkItemResult.BulkItemResultBuilder itemResult = BulkItemResult.builder()
+                    .index(item.index())
+                    .id(failure != null && item.wasInsert() ? null : item.patient().getId())
+                    .possibleDuplicateOf(item.patient().getPossibleDuplicateOf());
+            if (failure != null && failure.getCode() == DUPLICATE_KEY) {
+                String field = PatientIndexes.duplicatedField(failure.getMessage());
+                itemResult.status(BulkItemStatus.DUPLICATE).message(new PatientDuplicateException(field).getMessage());
+            } else if (failure != null) {
+                itemResult.status(BulkItemStatus.FAILED).message(failure.getMessage());
+            } else if (item.wasInsert() || upserted.contains(i)) {
+                itemResult.status(BulkItemStatus.CREATED);
+            } else {
+                itemResult.status(BulkItemStatus.UPDATED);
+            }
+            results.add(itemResult.build());
+        }
+    }
+
+    /**
+     * Flags inserts whose fingerprint matches a stored patient or an earlier insert in the
+     * same batch. Upserts keep whatever flag the stored document already carries.
+     */
+    private void flagPossibleDuplicates(List<IndexedPatient> batch) {
+        List<String> fingerprints = batch.stream()
+                .filter(IndexedPatient::wasInsert)
+                .map(item -> item.patient().getFingerprint())
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (fingerprints.isEmpty()) {
+            return;
+        }
+
+        Query existing = query(where("fingerprint").in(fingerprints));
+        existing.fields().include("id", "fingerprint");
+        Map<String, String> seen = new HashMap<>();
+        for (Patient match : mongoTemplate.find(existing, Patient.class)) {
+            seen.putIfAbsent(match.getFingerprint(), match.getId());
+        }
+
+        for (IndexedPatient item : batch) {
+            Patient patient = item.patient();
+            if (!item.wasInsert() || patient.getFingerprint() == null) {
+                continue;
+            }
+            patient.setPossibleDuplicateOf(seen.get(patient.getFingerprint()));
+            seen.putIfAbsent(patient.getFingerprint(), patient.getId());
+        }
+    }
+
+    private record IndexedPatient(int index, Patient patient, boolean wasInsert) {
+        IndexedPatient(int index, Patient patient) {
+            this(index, patient, patient.getId() == null);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.learnjavawithkaushi.cdpatientmicroservice.config.PatientProperties;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of patients by id, including negative entries for unknown ids.
+ *
+ * <p>Each load is published as a pending future before the repository is queried, and the
+ * query runs outside any cache lock. Invalidation removes whatever future is mapped, so a
+ * load that raced with a delete completes a future that is no longer in the cache and can
+ * never resurrect the deleted patient.
+ */
+@Component
+public class PatientCache {
+
+    private final AsyncCache<String, Optional<Patient>> cache;
+
+    public PatientCache(PatientProperties properties, MeterRegistry meterRegistry) {
+        PatientProperties.Cache config = properties.getCache();
+        long ttlNanos = config.getTtl().toNanos();
+        long negativeTtlNanos = config.getNegativeTtl().toNanos();
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfter(new Expiry<String, Optional<Patient>>() {
+                    @Override
+                    public long expireAfterCreate(String id, Optional<Patient> patient, long currentTime) {
+                        return patient.isPresent() ? ttlNanos : negativeTtlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String id, Optional<Patient> patient, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(id, patient, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String id, Optional<Patient> patient, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "patients");
+    }
+
+    public Optional<Patient> get(String id, Function<String, Optional<Patient>> loader) {
+        // getIfPresent records the hit/miss statistics that asMap() operations skip
+        CompletableFuture<Optional<Patient>> cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return join(cached);
+        }
+        CompletableFuture<Optional<Patient>> pending = new CompletableFuture<>();
+        CompletableFuture<Optional<Patient>> existing = cache.asMap().putIfAbsent(id, pending);
+        if (existing != null) {
+            return join(existing);
+        }
+        try {
+            Optional<Patient> patient = loader.apply(id);
+            pending.complete(patient);
+            return patient;
+        } catch (RuntimeException e) {
+            // Failed futures are dropped by Caffeine, so the next caller retries the load
+            pending.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #get} for the reactive stack: the loader's future is
+     * chained into the pending cache entry instead of being joined.
+     */
+    public CompletableFuture<Optional<Patient>> getAsync(String id,
+                                                         Function<String, CompletableFuture<Optional<Patient>>> loader) {
+        CompletableFuture<Optional<Patient>> cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return cached;
+        }
+        CompletableFuture<Optional<Patient>> pending = new CompletableFuture<>();
+        CompletableFuture<Optional<Patient>> existing = cache.asMap().putIfAbsent(id, pending);
+        if (existing != null) {
+            return existing;
+        }
+        CompletableFuture<Optional<Patient>> loaded;
+        try {
+            loaded = loader.apply(id);
+        } catch (RuntimeException e) {
+            // Fails the pending entry, which Caffeine then drops, instead of leaving it forever
+            pending.completeExceptionally(e);
+            return pending;
+        }
+        loaded.whenComplete((patient, error) -> {
+            if (error != null) {
+                pending.completeExceptionally(error);
+            } else {
+                pending.complete(patient);
+            }
+        });
+        return pending;
+    }
+
+    /**
+     * Batch variant of {@link #get}: ids that are neither cached nor already loading are
+     * handed to {@code loader} in one call. Returns the found patients keyed by id, in the
+     * order the ids were given; unknown ids are cached as misses and left out.
+     */
+    public Map<String, Patient> getAll(Collection<String> ids, Function<Set<String>, Map<String, Patient>> loader) {
+        return join(getAllAsync(ids, missing -> CompletableFuture.completedFuture(loader.apply(missing))));
+    }
+
+    /**
+     * Non-blocking variant of {@link #getAll} for the reactive stack.
+     */
+    public CompletableFuture<Map<String, Patient>> getAllAsync(
+            Collection<String> ids, Function<Set<String>, CompletableFuture<Map<String, Patient>>> loader) {
+        Map<String, CompletableFuture<Optional<Patient>>> entries = new LinkedHashMap<>();
+        Map<String, CompletableFuture<Optional<Patient>>> owned = new LinkedHashMap<>();
+        for (String id : ids) {
+            if (entries.containsKey(id)) {
+                continue;
+            }
+            CompletableFuture<Optional<Patient>> entry = cache.getIfPresent(id);
+            if (entry == null) {
+                CompletableFuture<Optional<Patient>> pending = new CompletableFuture<>();
+                entry = cache.asMap().putIfAbsent(id, pending);
+                if (entry == null) {
+                    entry = pending;
+                    owned.put(id, pending);
+                }
+            }
+            entries.put(id, entry);
+        }
+
+        if (!owned.isEmpty()) {
+            CompletableFuture<Map<String, Patient>> loaded;
+            try {
+                loaded = loader.apply(owned.keySet());
+            } catch (RuntimeException e) {
+                loaded = CompletableFuture.failedFuture(e);
+            }
+            loaded.whenComplete((patients, error) -> owned.forEach((id, pending) -> {
+                if (error != null) {
+                    pending.completeExceptionally(error);
+                } else {
+                    pending.complete(Optional.ofNullable(patients.get(id)));
+                }
+            }));
+        }
+
+        return CompletableFuture.allOf(entries.values().toArray(CompletableFuture[]::new))
+                .thenApply(done -> {
+                    Map<String, Patient> found = new LinkedHashMap<>();
+                    entries.forEach((id, entry) -> entry.join().ifPresent(patient -> found.put(id, patient)));
+                    return found;
+                });
+    }
+
+    /**
+     * Returns the cached entry for the id without loading it: {@code null} when the id is not
+     * cached, otherwise a future of the patient, or of empty for a cached miss.
+     */
+    public CompletableFuture<Optional<Patient>> getIfPresent(String id) {
+        return cache.getIfPresent(id);
+    }
+
+    public void put(Patient patient) {
+        cache.put(patient.getId(), CompletableFuture.completedFuture(Optional.of(patient)));
+    }
+
+    public void invalidate(String id) {
+        cache.synchronous().invalidate(id);
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
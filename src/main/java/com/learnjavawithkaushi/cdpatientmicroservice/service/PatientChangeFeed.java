@@ -0,0 +1,244 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.service;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.config.PatientProperties;
+import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientValidationException;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientChange;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientChangeBatch;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientChangeType;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Feed of patient inserts, updates and deletes, read from a Mongo change stream on the
+ * {@code patients} collection (replica sets only). Every change carries a resume token; a
+ * consumer that hands back the last token it processed continues right behind it, for as
+ * long as the oplog still holds that point.
+ * <p>
+ * Each long poll and stream holds one change stream cursor and one feed thread, at most
+ * {@code patient.changes.max-subscribers} at once. The cursor is opened on the calling thread,
+ * so an invalid or expired token fails the request before it goes asynchronous.
+ */
+@Service
+@Slf4j
+public class PatientChangeFeed implements AutoCloseable {
+
+    /** Writes to single patients; {@code invalidate} ends a stream when the collection is dropped. */
+    static final List<Bson> PIPELINE = List.of(Aggregates.match(
+            Filters.in("operationType", "insert", "update", "replace", "delete", "invalidate")));
+
+    /** ChangeStreamHistoryLost, InvalidResumeToken and ChangeStreamFatalError. */
+    private static final Set<Integer> RESUME_FAILURES = Set.of(286, 260, 280);
+
+    /** A long poll checks its deadline at least this often. */
+    private static final Duration POLL_INTERVAL = Duration.ofSeconds(1);
+
+    private final MongoTemplate mongoTemplate;
+    private final PatientProperties.Changes config;
+    private final ThreadPoolExecutor executor;
+
+    public PatientChangeFeed(MongoTemplate mongoTemplate, PatientProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.config = properties.getChanges();
+        int maxSubscribers = config.getMaxSubscribers();
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(0, maxSubscribers, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "patient-changes-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (task, pool) -> {
+                    throw new RejectedExecutionException(
+                            "At most " + maxSubscribers + " change feed requests can be open at once");
+                });
+    }
+
+    /**
+     * Long poll: waits up to {@code patient.changes.poll-wait} for the first change after
+     * {@code after} (or after now, without a token), then returns it together with whatever
+     * arrived in the same batch, at most {@code limit} changes. The batch's resume token is
+     * set even when nothing changed, so the next poll misses nothing in between.
+     */
+    public CompletableFuture<PatientChangeBatch> poll(String after, int limit) {
+        Duration wait = config.getPollWait().compareTo(POLL_INTERVAL) < 0 ? config.getPollWait() : POLL_INTERVAL;
+        MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor =
+                open(PatientChangeToken.decode(after), limit, wait);
+        return submit(cursor, () -> {
+            long deadline = System.nanoTime() + config.getPollWait().toNanos();
+            List<PatientChange> changes = new ArrayList<>();
+            while (changes.size() < limit) {
+                ChangeStreamDocument<Document> event = cursor.tryNext();
+                if (event == null) {
+                    if (!changes.isEmpty() || System.nanoTime() - deadline >= 0) {
+                        break;
+                    }
+                    continue;
+                }
+                if (event.getOperationType() == OperationType.INVALIDATE) {
+                    break;
+                }
+                changes.add(toChange(event, mongoTemplate.getConverter()));
+                if (cursor.available() == 0) {
+                    // Return what arrived together rather than wait for more
+                    break;
+                }
+            }
+            String token = changes.isEmpty()
+                    ? PatientChangeToken.encode(cursor.getResumeToken())
+                    : changes.get(changes.size() - 1).getToken();
+            return new PatientChangeBatch(changes, token == null ? after : token);
+        });
+    }
+
+    /**
+     * Streams the changes after {@code after} (or after now) to {@code sink} until the sink
+     * fails, e.g. because the client went away, or the collection is dropped.
+     */
+    public CompletableFuture<Void> subscribe(String after, ChangeSink sink) {
+        MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor =
+                open(PatientChangeToken.decode(after), 0, config.getHeartbeat());
+        return submit(cursor, () -> {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    ChangeStreamDocument<Document> event = cursor.tryNext();
+                    if (event == null) {
+                        sink.idle();
+                    } else if (event.getOperationType() == OperationType.INVALIDATE) {
+                        break;
+                    } else {
+                        sink.change(toChange(event, mongoTemplate.getConverter()));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client disconnected or its response already completed, e.g. timed out
+                log.debug("Change feed subscriber gone: {}", e.getMessage());
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Receives the changes of a subscription; an {@link IOException} ends it.
+     */
+    public interface ChangeSink {
+
+        void change(PatientChange change) throws IOException;
+
+        /**
+         * Called after {@code patient.changes.heartbeat} without changes, so a subscriber that
+         * went away is noticed even while nothing is written.
+         */
+        void idle() throws IOException;
+    }
+
+    /**
+     * Maps a change stream event onto the {@link PatientChange} sent to consumers. Shared with
+     * {@link ReactivePatientChangeFeed}.
+     */
+    static PatientChange toChange(ChangeStreamDocument<Document> event, MongoConverter converter) {
+        Document document = event.getFullDocument();
+        return PatientChange.builder()
+                .token(PatientChangeToken.encode(event.getResumeToken()))
+                .type(switch (event.getOperationType()) {
+                    case INSERT -> PatientChangeType.CREATED;
+                    case DELETE -> PatientChangeType.DELETED;
+                    default -> PatientChangeType.UPDATED;
+                })
+                .id(idOf(event.getDocumentKey().get("_id")))
+                .time(event.getWallTime() != null
+                        ? Instant.ofEpochMilli(event.getWallTime().getValue())
+                        : Instant.ofEpochSecond(event.getClusterTime().getTime()))
+                .patient(document == null ? null : converter.read(Patient.class, document))
+                .build();
+    }
+
+    /**
+     * A token the oplog no longer covers, or that Mongo cannot read, is the client's problem:
+     * it has to resynchronize from the collection and start over without a token.
+     */
+    static RuntimeException translate(MongoCommandException e) {
+        if (RESUME_FAILURES.contains(e.getErrorCode())) {
+            return new PatientValidationException("Cannot resume the change feed: " + e.getErrorMessage()
+                    + "; resynchronize and reconnect without a token");
+        }
+        return e;
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> open(BsonDocument after, int batchSize,
+                                                                         Duration maxAwait) {
+        var stream = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Patient.class))
+                .watch(PIPELINE)
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .maxAwaitTime(maxAwait.toMillis(), TimeUnit.MILLISECONDS);
+        if (batchSize > 0) {
+            stream.batchSize(batchSize);
+        }
+        if (after != null) {
+            stream.resumeAfter(after);
+        }
+        try {
+            return stream.cursor();
+        } catch (MongoCommandException e) {
+            throw translate(e);
+        }
+    }
+
+    /**
+     * Runs {@code task} on a feed thread, which then owns and closes the cursor.
+     */
+    private <T> CompletableFuture<T> submit(MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor,
+                                            Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try (cursor) {
+                    return task.get();
+                } catch (MongoCommandException e) {
+                    throw translate(e);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            cursor.close();
+            throw e;
+        }
+    }
+
+    private static String idOf(BsonValue id) {
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+}
@@ -0,0 +1,36 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.service;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientValidationException;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+
+import java.util.HexFormat;
+
+/**
+ * Resume token of the change feed. Mongo's token is a document holding a single hex string,
+ * {@code {_data: "8266..."}}; clients get the hex string and must treat it as opaque.
+ */
+public final class PatientChangeToken {
+
+    private static final String DATA = "_data";
+
+    private PatientChangeToken() {
+    }
+
+    public static String encode(BsonDocument resumeToken) {
+        return resumeToken == null ? null : resumeToken.getString(DATA).getValue();
+    }
+
+    /**
+     * @return the resume token, or {@code null} for a missing or blank one (start from now)
+     */
+    public static BsonDocument decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        if (!token.chars().allMatch(HexFormat::isHexDigit)) {
+            throw new PatientValidationException("Invalid resume token: " + token);
+        }
+        return new BsonDocument(DATA, new BsonString(token));
+    }
+}
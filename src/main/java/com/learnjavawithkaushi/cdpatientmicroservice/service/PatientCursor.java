@@ -0,0 +1,33 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.service;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor over the patient {@code _id}. Clients must treat the token as an
+ * opaque string and only hand back what the previous page returned.
+ */
+public final class PatientCursor {
+
+    private PatientCursor() {
+    }
+
+    public static String encode(String lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(lastId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String decode(String cursor) {
+        try {
+            String id = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (id.isBlank()) {
+                throw new PatientValidationException("Invalid cursor: " + cursor);
+            }
+            return id;
+        } catch (IllegalArgumentException e) {
+            throw new PatientValidationException("Invalid cursor: " + cursor);
+        }
+    }
+}
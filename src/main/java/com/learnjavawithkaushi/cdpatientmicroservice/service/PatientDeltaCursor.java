@@ -0,0 +1,34 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.service;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor of the patient delta: the write time and id of the last change on a
+ * page. Changes written at the same millisecond are ordered by id, so no two positions tie.
+ */
+public record PatientDeltaCursor(Instant time, String id) {
+
+    public String encode() {
+        String position = time.toEpochMilli() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PatientDeltaCursor decode(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.indexOf(':');
+            if (separator < 1 || separator == position.length() - 1) {
+                throw new PatientValidationException("Invalid cursor: " + cursor);
+            }
+            return new PatientDeltaCursor(Instant.ofEpochMilli(Long.parseLong(position.substring(0, separator))),
+                    position.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            // Also covers NumberFormatException
+            throw new PatientValidationException("Invalid cursor: " + cursor);
+        }
+    }
+}
@@ -1,81 +1,322 @@
 package com.learnjavawithkaushi.cdpatientmicroservice.service;
 
+import com.learnjavawithkaushi.cdpatientmicroservice.config.PatientProperties;
+import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientDuplicateException;
 import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientNotFoundException;
+import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientPreconditionFailedException;
+import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientValidationException;
 import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientChange;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientChangePage;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientChangeType;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientFields;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientIdentity;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientPage;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientSearchCriteria;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientTombstone;
+import com.learnjavawithkaushi.cdpatientmicroservice.repository.PatientIndexes;
 import com.learnjavawithkaushi.cdpatientmicroservice.repository.PatientRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
+@Timed(value = "patient.service", histogram = true)
 public class PatientService {
 
+    private static final Comparator<PatientChange> DELTA_ORDER = Comparator.comparing(PatientChange::getTime)
+            .thenComparing(PatientChange::getId);
+
     private final PatientRepository repository;
+    private final PatientCache cache;
+    private final PatientProperties properties;
 
-    public PatientService(PatientRepository repository) {
+    public PatientService(PatientRepository repository, PatientCache cache, PatientProperties properties) {
         this.repository = repository;
+        this.cache = cache;
+        this.properties = properties;
+    }
+
+    /**
+     * Returns the page after {@code cursor}, loading only {@code fields} from Mongo.
+     */
+    public PatientPage getPage(String cursor, int limit, PatientFields fields) {
+        if (log.isDebugEnabled()) {
+            log.debug("Fetching patients page after cursor: {} (limit {})", cursor, limit);
+        }
+        String after = cursor == null ? null : PatientCursor.decode(cursor);
+        // Fetch one extra document to learn whether another page exists without a count query
+        return toPage(repository.findPage(after, limit + 1, fields), limit);
+    }
+
+    /**
+     * Pages through the patients matching {@code criteria} with the same keyset cursor as
+     * {@link #getPage(String, int, PatientFields)}. At least one filter is required so every
+     * search is served by an index.
+     */
+    public PatientPage search(PatientSearchCriteria criteria, String cursor, int limit, PatientFields fields) {
+        if (log.isDebugEnabled()) {
+            log.debug("Searching patients after cursor: {} (limit {})", cursor, limit);
+        }
+        requireSearchable(criteria);
+        String after = cursor == null ? null : PatientCursor.decode(cursor);
+        return toPage(repository.search(criteria, after, limit + 1, fields), limit);
+    }
+
+    static void requireSearchable(PatientSearchCriteria criteria) {
+        if (criteria.isEmpty()) {
+            throw new PatientValidationException("At least one search filter is required");
+        }
+        if (criteria.getDateOfBirthFrom() != null && criteria.getDateOfBirthTo() != null
+                && criteria.getDateOfBirthFrom().isAfter(criteria.getDateOfBirthTo())) {
+            throw new PatientValidationException("dateOfBirthFrom must not be after dateOfBirthTo");
+        }
+    }
+
+    /**
+     * Builds a page from a result fetched with {@code limit + 1}; the extra document only
+     * signals that another page exists.
+     */
+    static PatientPage toPage(List<Patient> patients, int limit) {
+        if (patients.size() <= limit) {
+            return new PatientPage(patients, null);
+        }
+        List<Patient> page = patients.subList(0, limit);
+        return new PatientPage(page, PatientCursor.encode(page.get(limit - 1).getId()));
+    }
+
+    /**
+     * Everything written since {@code since}: created and updated patients plus tombstones of
+     * deleted ones, merged in {@code (time, id)} order and paged with a keyset cursor over
+     * both. A patient updated again between pages moves to a later page, so the delta ends
+     * with its latest state. Writes younger than {@code patient.changes.delta-lag} are left
+     * for a later request, and patients never written since {@code updatedAt} existed are
+     * not in it at all.
+     */
+    public PatientChangePage getChanges(String since, String cursor, int limit) {
+        if (log.isDebugEnabled()) {
+            log.debug("Fetching patient changes since {} after cursor: {} (limit {})", since, cursor, limit);
+        }
+        Instant from = parseSince(since);
+        Instant until = deltaUntil(properties);
+        PatientDeltaCursor after = cursor == null ? null : PatientDeltaCursor.decode(cursor);
+        Instant afterTime = after == null ? null : after.time();
+        String afterId = after == null ? null : after.id();
+        // Either source may supply the whole page; limit + 1 of each still tells whether another follows
+        return toChangePage(repository.findModified(from, until, afterTime, afterId, limit + 1),
+                repository.findDeleted(from, until, afterTime, afterId, limit + 1), from, limit);
+    }
+
+    static Instant parseSince(String since) {
+        if (since == null || since.isBlank()) {
+            throw new PatientValidationException("since is required");
+        }
+        try {
+            return Instant.parse(since);
+        } catch (DateTimeParseException e) {
+            throw new PatientValidationException("since must be an ISO-8601 instant, e.g. 2024-05-01T00:00:00Z");
+        }
     }
 
-    public List<Patient> getAll() {
-        log.info("Fetching all patients");
-        List<Patient> patients = repository.findAll();
-        log.info("Found {} patients", patients.size());
-        return patients;
+    static Instant deltaUntil(PatientProperties properties) {
+        return writeTime().minus(properties.getChanges().getDeltaLag());
+    }
+
+    /**
+     * Merges patients and tombstones, each fetched with {@code limit + 1}, into one page. A
+     * patient created at or after {@code since} is reported as created, otherwise as updated.
+     */
+    static PatientChangePage toChangePage(List<Patient> modified, List<PatientTombstone> deleted, Instant since,
+                                          int limit) {
+        List<PatientChange> changes = new ArrayList<>(modified.size() + deleted.size());
+        for (Patient patient : modified) {
+            boolean created = patient.getCreatedAt() != null && !patient.getCreatedAt().isBefore(since);
+            changes.add(PatientChange.builder()
+                    .type(created ? PatientChangeType.CREATED : PatientChangeType.UPDATED)
+                    .id(patient.getId())
+                    .time(patient.getUpdatedAt())
+                    .patient(patient)
+                    .build());
+        }
+        for (PatientTombstone tombstone : deleted) {
+            changes.add(PatientChange.builder()
+                    .type(PatientChangeType.DELETED)
+                    .id(tombstone.getId())
+                    .time(tombstone.getDeletedAt())
+                    .build());
+        }
+        changes.sort(DELTA_ORDER);
+        if (changes.size() <= limit) {
+            return new PatientChangePage(changes, null);
+        }
+        List<PatientChange> page = changes.subList(0, limit);
+        PatientChange last = page.get(limit - 1);
+        return new PatientChangePage(page, new PatientDeltaCursor(last.getTime(), last.getId()).encode());
+    }
+
+    /**
+     * Streams every patient in {@code _id} order from a single Mongo cursor. The caller owns
+     * the returned stream and must close it to release the cursor.
+     */
+    public Stream<Patient> streamAll() {
+        log.debug("Streaming all patients");
+        return repository.streamAllByOrderByIdAsc();
     }
 
     public Optional<Patient> getById(String id) {
-        log.info("Fetching patient with id: {}", id);
-        Optional<Patient> patient = repository.findById(id);
+        log.debug("Fetching patient with id: {}", id);
+        Optional<Patient> patient = cache.get(id, repository::findById);
         if (patient.isEmpty()) {
-            log.warn("Patient not found with id: {}", id);
+            log.debug("Patient not found with id: {}", id);
         }
         return patient;
     }
 
+    /**
+     * Like {@link #getById(String)}, but only returns {@code fields}. A cached patient is
+     * projected in memory; otherwise only the selected fields are loaded, and the partial
+     * document is not cached.
+     */
+    public Optional<Patient> getById(String id, PatientFields fields) {
+        if (fields.isAll()) {
+            return getById(id);
+        }
+        CompletableFuture<Optional<Patient>> cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return PatientCache.join(cached).map(fields::project);
+        }
+        return repository.findById(id, fields);
+    }
+
+    /**
+     * Looks up many patients at once. Cached ids are served from the cache and the rest are
+     * fetched with a single {@code $in} query. Returns the found patients in request order.
+     */
+    public List<Patient> getByIds(List<String> ids) {
+        if (log.isDebugEnabled()) {
+            log.debug("Fetching {} patients by id", ids.size());
+        }
+        Map<String, Patient> found = cache.getAll(ids, missing -> {
+            Map<String, Patient> loaded = new HashMap<>();
+            repository.findAllById(missing).forEach(patient -> loaded.put(patient.getId(), patient));
+            return loaded;
+        });
+        return new ArrayList<>(found.values());
+    }
+
+    /**
+     * Creates the patient. Exact duplicates (email address or contact number) are rejected by
+     * unique indexes; a patient with the same name and date of birth is only flagged through
+     * {@link Patient#getPossibleDuplicateOf()}, found with a single indexed lookup.
+     */
     public Patient create(Patient patient) {
-        log.info("Creating new patient: {} {}", patient.getFirstName(), patient.getLastName());
         patient.setId(null); // Ensure new patient doesn't have an ID
-        Patient savedPatient = repository.save(patient);
-        log.info("Created patient with id: {}", savedPatient.getId());
+        patient.setVersion(null);
+        patient.setCreatedAt(writeTime());
+        patient.setUpdatedAt(patient.getCreatedAt());
+        PatientIdentity.apply(patient);
+        patient.setPossibleDuplicateOf(patient.getFingerprint() == null ? null
+                : repository.findFirstByFingerprint(patient.getFingerprint()).map(Patient::getId).orElse(null));
+        if (patient.getPossibleDuplicateOf() != null) {
+            log.warn("New patient may duplicate patient {}", patient.getPossibleDuplicateOf());
+        }
+
+        Patient savedPatient;
+        try {
+            savedPatient = repository.save(patient);
+        } catch (DuplicateKeyException e) {
+            throw duplicate(e);
+        }
+        cache.put(savedPatient);
+        log.debug("Created patient with id: {}", savedPatient.getId());
         return savedPatient;
     }
 
-    public Patient update(String id, Patient patient) {
-        log.info("Updating patient with id: {}", id);
-
-        // Check if patient exists
-        if (!repository.existsById(id)) {
-            log.error("Cannot update - patient not found with id: {}", id);
-            throw new PatientNotFoundException(id);
-        }
+    /**
+     * Replaces the patient in a single findAndModify. When {@code expectedVersion} is given the
+     * write only applies if the stored version still matches it.
+     */
+    public Patient update(String id, Patient patient, Long expectedVersion) {
+        log.debug("Updating patient with id: {}", id);
 
         patient.setId(id);
-        Patient updatedPatient = repository.save(patient);
-        log.info("Updated patient with id: {}", id);
+        patient.setCreatedAt(null); // Left out of the replacement, so the stored one is kept
+        patient.setUpdatedAt(writeTime());
+        PatientIdentity.apply(patient);
+        Optional<Patient> replaced;
+        try {
+            replaced = repository.replaceById(id, patient, expectedVersion);
+        } catch (DuplicateKeyException e) {
+            throw duplicate(e);
+        } finally {
+            // Invalidate rather than put: a put could be reordered behind a concurrent writer's
+            cache.invalidate(id);
+        }
+        Patient updatedPatient = replaced.orElseThrow(() -> writeMissed("update", id, expectedVersion));
+        log.debug("Updated patient with id: {} to version {}", id, updatedPatient.getVersion());
         return updatedPatient;
     }
 
-    public void delete(String id) {
-        log.info("Deleting patient with id: {}", id);
+    public void delete(String id, Long expectedVersion) {
+        log.debug("Deleting patient with id: {}", id);
 
-        // Check if patient exists
-        if (!repository.existsById(id)) {
-            log.error("Cannot delete - patient not found with id: {}", id);
-            throw new PatientNotFoundException(id);
+        boolean removed = repository.removeById(id, expectedVersion);
+        cache.invalidate(id);
+        if (!removed) {
+            throw writeMissed("delete", id, expectedVersion);
         }
+        log.debug("Deleted patient with id: {}", id);
+    }
+
+    /**
+     * Resolves why a conditional write matched nothing. Only the failure path pays for the
+     * extra lookup, and only when a version was part of the filter.
+     */
+    private RuntimeException writeMissed(String operation, String id, Long expectedVersion) {
+        if (expectedVersion != null && repository.existsById(id)) {
+            log.debug("Cannot {} - patient {} no longer at version {}", operation, id, expectedVersion);
+            return new PatientPreconditionFailedException(id);
+        }
+        log.debug("Cannot {} - patient not found with id: {}", operation, id);
+        return new PatientNotFoundException(id);
+    }
+
+    /**
+     * The {@code createdAt} and {@code updatedAt} of a write. Mongo keeps milliseconds, so the patient returned by a
+     * write carries the same time as the stored one.
+     */
+    static Instant writeTime() {
+        return Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    }
 
-        repository.deleteById(id);
-        log.info("Deleted patient with id: {}", id);
+    static PatientDuplicateException duplicate(DuplicateKeyException e) {
+        String field = PatientIndexes.duplicatedField(e.getMessage());
+        log.debug("Rejected duplicate patient: same {}", field);
+        return new PatientDuplicateException(field);
     }
 
     public boolean existsById(String id) {
         return repository.existsById(id);
     }
 
-    public long count() {
-        return repository.count();
+    /**
+     * Cheap enough for health checks; see {@link PatientRepository#estimatedCount()}.
+     */
+    public long estimatedCount() {
+        return repository.estimatedCount();
     }
 }
\ No newline at end of file
@@ -0,0 +1,203 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.service;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import jakarta.validation.Validator;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The Bean Validation constraints of {@link Patient}, checked by hand for the write endpoints and
+ * bulk ingest: no metadata lookups, regexes or violation objects, and for a valid patient no
+ * allocation beyond today's date. Field keys and messages are those of the annotations;
+ * {@code PatientValidatorTest} keeps the two in step, so a constraint changed on {@link Patient}
+ * must be changed here too.
+ * <p>
+ * {@code @Email} is only checked by hand for the usual {@code local@host.domain} shape; any other
+ * address containing an {@code @} goes to the standard validator, which has the final say.
+ */
+@Component
+public class PatientValidator {
+
+    static final String FIRST_NAME_REQUIRED = "First name is required";
+    static final String FIRST_NAME_SIZE = "First name must be between 2 and 50 characters";
+    static final String LAST_NAME_REQUIRED = "Last name is required";
+    static final String LAST_NAME_SIZE = "Last name must be between 2 and 50 characters";
+    static final String DATE_OF_BIRTH_REQUIRED = "Date of birth is required";
+    static final String DATE_OF_BIRTH_PAST = "Date of birth must be in the past";
+    static final String CONTACT_NUMBER_REQUIRED = "Contact number is required";
+    static final String CONTACT_NUMBER_PATTERN = "Contact number must be 10-15 digits";
+    static final String EMAIL_ADDRESS_REQUIRED = "Email address is required";
+    static final String EMAIL_ADDRESS_EMAIL = "Email address must be valid";
+    static final String GENDER_REQUIRED = "Gender is required";
+    static final String GENDER_PATTERN = "Gender must be Male, Female, or Other";
+
+    /** Hibernate Validator's limits for the local part and the whole domain. */
+    private static final int MAX_LOCAL_PART = 64;
+    private static final int MAX_DOMAIN = 255;
+    private static final int MAX_LABEL = 63;
+
+    private final Validator fallback;
+
+    public PatientValidator(Validator fallback) {
+        this.fallback = fallback;
+    }
+
+    /**
+     * @return the message of the first broken constraint of each invalid field, in declaration
+     *         order, by field name; empty when the patient is valid
+     */
+    public Map<String, String> validate(Patient patient) {
+        Map<String, String> errors = null;
+        errors = add(errors, "firstName", name(patient.getFirstName(), FIRST_NAME_REQUIRED, FIRST_NAME_SIZE));
+        errors = add(errors, "lastName", name(patient.getLastName(), LAST_NAME_REQUIRED, LAST_NAME_SIZE));
+        errors = add(errors, "dateOfBirth", dateOfBirth(patient.getDateOfBirth()));
+        errors = add(errors, "contactNumber", contactNumber(patient.getContactNumber()));
+        errors = add(errors, "emailAddress", emailAddress(patient.getEmailAddress()));
+        errors = add(errors, "gender", gender(patient.getGender()));
+        return errors == null ? Map.of() : errors;
+    }
+
+    private static Map<String, String> add(Map<String, String> errors, String field, String message) {
+        if (message == null) {
+            return errors;
+        }
+        Map<String, String> result = errors == null ? new LinkedHashMap<>() : errors;
+        result.put(field, message);
+        return result;
+    }
+
+    /** {@code @NotBlank @Size(min = 2, max = 50)} */
+    private static String name(String value, String required, String size) {
+        if (isBlank(value)) {
+            return required;
+        }
+        return value.length() < 2 || value.length() > 50 ? size : null;
+    }
+
+    /** {@code @NotNull @Past}, against the system clock like Hibernate Validator's default. */
+    private static String dateOfBirth(LocalDate value) {
+        if (value == null) {
+            return DATE_OF_BIRTH_REQUIRED;
+        }
+        return value.isBefore(LocalDate.now()) ? null : DATE_OF_BIRTH_PAST;
+    }
+
+    /** {@code @NotBlank @Pattern(regexp = "^[+]?[0-9]{10,15}$")} */
+    private static String contactNumber(String value) {
+        if (isBlank(value)) {
+            return CONTACT_NUMBER_REQUIRED;
+        }
+        int start = value.charAt(0) == '+' ? 1 : 0;
+        int digits = value.length() - start;
+        if (digits < 10 || digits > 15) {
+            return CONTACT_NUMBER_PATTERN;
+        }
+        for (int i = start; i < value.length(); i++) {
+            if (!isDigit(value.charAt(i))) {
+                return CONTACT_NUMBER_PATTERN;
+            }
+        }
+        return null;
+    }
+
+    /** {@code @NotBlank @Email} */
+    private String emailAddress(String value) {
+        if (isBlank(value)) {
+            return EMAIL_ADDRESS_REQUIRED;
+        }
+        int at = value.lastIndexOf('@');
+        if (at < 0) {
+            return EMAIL_ADDRESS_EMAIL;
+        }
+        if (isDotAtom(value, 0, at) && isHostName(value, at + 1, value.length())) {
+            return null;
+        }
+        // Quoted local parts, international domains, address literals and the like
+        return fallback.validateValue(Patient.class, "emailAddress", value).isEmpty() ? null : EMAIL_ADDRESS_EMAIL;
+    }
+
+    /** {@code @NotBlank @Pattern(regexp = "^(Male|Female|Other)$")} */
+    private static String gender(String value) {
+        if (isBlank(value)) {
+            return GENDER_REQUIRED;
+        }
+        return value.equals("Male") || value.equals("Female") || value.equals("Other") ? null : GENDER_PATTERN;
+    }
+
+    /** {@code @NotBlank}: {@code null}, or nothing left after {@link String#trim()}. */
+    private static boolean isBlank(String value) {
+        if (value == null) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * ASCII atoms joined by single dots, e.g. {@code john.doe+tag}; a subset of what
+     * Hibernate Validator accepts as the local part.
+     */
+    private static boolean isDotAtom(String value, int from, int to) {
+        if (to - from < 1 || to - from > MAX_LOCAL_PART) {
+            return false;
+        }
+        boolean atomStart = true;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c == '.') {
+                if (atomStart) {
+                    return false;
+                }
+                atomStart = true;
+            } else if (isAtomChar(c)) {
+                atomStart = false;
+            } else {
+                return false;
+            }
+        }
+        return !atomStart;
+    }
+
+    /**
+     * ASCII labels of letters, digits and inner hyphens joined by single dots, e.g.
+     * {@code mail.example-clinic.org}; a subset of what Hibernate Validator accepts as the domain.
+     */
+    private static boolean isHostName(String value, int from, int to) {
+        if (to - from < 1 || to - from > MAX_DOMAIN) {
+            return false;
+        }
+        int labelStart = from;
+        for (int i = from; i <= to; i++) {
+            if (i == to || value.charAt(i) == '.') {
+                int length = i - labelStart;
+                if (length < 1 || length > MAX_LABEL
+                        || value.charAt(labelStart) == '-' || value.charAt(i - 1) == '-') {
+                    return false;
+                }
+                labelStart = i + 1;
+            } else if (!isLetterOrDigit(value.charAt(i)) && value.charAt(i) != '-') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAtomChar(char c) {
+        return isLetterOrDigit(c) || "!#$%&'*+/=?^_`{|}~-".indexOf(c) >= 0;
+    }
+
+    private static boolean isLetterOrDigit(char c) {
+        return isDigit(c) || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
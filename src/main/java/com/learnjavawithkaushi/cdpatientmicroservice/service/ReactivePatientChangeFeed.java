@@ -0,0 +1,43 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.service;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientChange;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import org.bson.BsonDocument;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+/**
+ * Reactive counterpart of {@link PatientChangeFeed}'s streams: the same change stream and
+ * events, without a thread per subscriber. Long polls go through {@link PatientChangeFeed}
+ * in both modes.
+ */
+@Service
+public class ReactivePatientChangeFeed {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    public ReactivePatientChangeFeed(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * The changes after {@code after} (or after now), until the collection is dropped. A
+     * malformed token fails right away rather than on subscription.
+     */
+    public Flux<PatientChange> watch(String after) {
+        BsonDocument resumeAfter = PatientChangeToken.decode(after);
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Patient.class))
+                .flatMapMany(collection -> {
+                    var stream = collection.watch(PatientChangeFeed.PIPELINE)
+                            .fullDocument(FullDocument.UPDATE_LOOKUP);
+                    return resumeAfter == null ? stream : stream.resumeAfter(resumeAfter);
+                })
+                .takeWhile(event -> event.getOperationType() != OperationType.INVALIDATE)
+                .map(event -> PatientChangeFeed.toChange(event, mongoTemplate.getConverter()))
+                .onErrorMap(MongoCommandException.class, PatientChangeFeed::translate);
+    }
+}
@@ -0,0 +1,181 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.service;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.config.PatientProperties;
+import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientNotFoundException;
+import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientPreconditionFailedException;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientChangePage;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientFields;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientIdentity;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientPage;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientSearchCriteria;
+import com.learnjavawithkaushi.cdpatientmicroservice.repository.ReactivePatientRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Reactive counterpart of {@link PatientService} with the same semantics: keyset pages,
+ * cursor streaming, single round-trip conditional writes and the shared {@link PatientCache}.
+ */
+@Service
+@Slf4j
+public class ReactivePatientService {
+
+    private final ReactivePatientRepository repository;
+    private final PatientCache cache;
+    private final PatientProperties properties;
+
+    public ReactivePatientService(ReactivePatientRepository repository, PatientCache cache,
+                                  PatientProperties properties) {
+        this.repository = repository;
+        this.cache = cache;
+        this.properties = properties;
+    }
+
+    public Mono<PatientPage> getPage(String cursor, int limit, PatientFields fields) {
+        if (log.isDebugEnabled()) {
+            log.debug("Fetching patients page after cursor: {} (limit {})", cursor, limit);
+        }
+        Flux<Patient> patients = Flux.defer(() -> {
+            String after = cursor == null ? null : PatientCursor.decode(cursor);
+            return repository.findPage(after, limit + 1, fields);
+        });
+
+        return patients.collectList().map(list -> PatientService.toPage(list, limit));
+    }
+
+    public Mono<PatientPage> search(PatientSearchCriteria criteria, String cursor, int limit,
+                                    PatientFields fields) {
+        if (log.isDebugEnabled()) {
+            log.debug("Searching patients after cursor: {} (limit {})", cursor, limit);
+        }
+        return Mono.defer(() -> {
+            PatientService.requireSearchable(criteria);
+            String after = cursor == null ? null : PatientCursor.decode(cursor);
+            return repository.search(criteria, after, limit + 1, fields).collectList();
+        }).map(list -> PatientService.toPage(list, limit));
+    }
+
+    /**
+     * @see PatientService#getChanges(String, String, int)
+     */
+    public Mono<PatientChangePage> getChanges(String since, String cursor, int limit) {
+        if (log.isDebugEnabled()) {
+            log.debug("Fetching patient changes since {} after cursor: {} (limit {})", since, cursor, limit);
+        }
+        return Mono.defer(() -> {
+            Instant from = PatientService.parseSince(since);
+            Instant until = PatientService.deltaUntil(properties);
+            PatientDeltaCursor after = cursor == null ? null : PatientDeltaCursor.decode(cursor);
+            Instant afterTime = after == null ? null : after.time();
+            String afterId = after == null ? null : after.id();
+            return Mono.zip(repository.findModified(from, until, afterTime, afterId, limit + 1).collectList(),
+                            repository.findDeleted(from, until, afterTime, afterId, limit + 1).collectList())
+                    .map(found -> PatientService.toChangePage(found.getT1(), found.getT2(), from, limit));
+        });
+    }
+
+    public Flux<Patient> streamAll() {
+        log.debug("Streaming all patients");
+        return repository.streamAllByOrderByIdAsc();
+    }
+
+    public Mono<Patient> getById(String id) {
+        log.debug("Fetching patient with id: {}", id);
+        return Mono.fromFuture(() -> cache.getAsync(id, key -> repository.findById(key)
+                        .map(Optional::of)
+                        .defaultIfEmpty(Optional.empty())
+                        .toFuture()))
+                .flatMap(Mono::justOrEmpty);
+    }
+
+    /**
+     * @see PatientService#getById(String, PatientFields)
+     */
+    public Mono<Patient> getById(String id, PatientFields fields) {
+        if (fields.isAll()) {
+            return getById(id);
+        }
+        return Mono.defer(() -> {
+            CompletableFuture<Optional<Patient>> cached = cache.getIfPresent(id);
+            return cached != null
+                    ? Mono.fromFuture(cached).flatMap(Mono::justOrEmpty).map(fields::project)
+                    : repository.findById(id, fields);
+        });
+    }
+
+    public Flux<Patient> getByIds(List<String> ids) {
+        if (log.isDebugEnabled()) {
+            log.debug("Fetching {} patients by id", ids.size());
+        }
+        return Mono.fromFuture(() -> cache.getAllAsync(ids, missing -> repository.findAllById(missing)
+                        .collectMap(Patient::getId)
+                        .toFuture()))
+                .flatMapIterable(Map::values);
+    }
+
+    public Mono<Patient> create(Patient patient) {
+        patient.setId(null);
+        patient.setVersion(null);
+        patient.setCreatedAt(PatientService.writeTime());
+        patient.setUpdatedAt(patient.getCreatedAt());
+        PatientIdentity.apply(patient);
+        Mono<String> possibleDuplicate = patient.getFingerprint() == null ? Mono.empty()
+                : repository.findFirstByFingerprint(patient.getFingerprint()).map(Patient::getId);
+        return possibleDuplicate
+                .doOnNext(duplicateOf -> {
+                    log.warn("New patient may duplicate patient {}", duplicateOf);
+                    patient.setPossibleDuplicateOf(duplicateOf);
+                })
+                .then(Mono.defer(() -> repository.save(patient)))
+                .onErrorMap(DuplicateKeyException.class, PatientService::duplicate)
+                .doOnNext(saved -> {
+                    cache.put(saved);
+                    log.debug("Created patient with id: {}", saved.getId());
+                });
+    }
+
+    public Mono<Patient> update(String id, Patient patient, Long expectedVersion) {
+        log.debug("Updating patient with id: {}", id);
+        patient.setId(id);
+        patient.setCreatedAt(null);
+        patient.setUpdatedAt(PatientService.writeTime());
+        PatientIdentity.apply(patient);
+        return repository.replaceById(id, patient, expectedVersion)
+                .onErrorMap(DuplicateKeyException.class, PatientService::duplicate)
+                .doFinally(signal -> cache.invalidate(id))
+                .switchIfEmpty(Mono.defer(() -> writeMissed("update", id, expectedVersion)));
+    }
+
+    public Mono<Void> delete(String id, Long expectedVersion) {
+        log.debug("Deleting patient with id: {}", id);
+        return repository.removeById(id, expectedVersion)
+                .doFinally(signal -> cache.invalidate(id))
+                .flatMap(removed -> removed ? Mono.<Void>empty() : writeMissed("delete", id, expectedVersion));
+    }
+
+    public Mono<Long> estimatedCount() {
+        return repository.estimatedCount();
+    }
+
+    private <T> Mono<T> writeMissed(String operation, String id, Long expectedVersion) {
+        Mono<Boolean> exists = expectedVersion == null ? Mono.just(false) : repository.existsById(id);
+        return exists.flatMap(found -> {
+            if (found) {
+                log.debug("Cannot {} - patient {} no longer at version {}", operation, id, expectedVersion);
+                return Mono.error(new PatientPreconditionFailedException(id));
+            }
+            log.debug("Cannot {} - patient not found with id: {}", operation, id);
+            return Mono.error(new PatientNotFoundException(id));
+        });
+    }
+}
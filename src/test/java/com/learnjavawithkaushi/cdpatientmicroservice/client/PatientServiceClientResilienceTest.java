@@ -0,0 +1,174 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.client;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.config.PatientProperties;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntUnaryOperator;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Runs the client against a local stub server that answers with scripted status codes.
+ */
+class PatientServiceClientResilienceTest {
+
+    private static final String PATIENT_JSON = "{\"id\":\"1\",\"firstName\":\"John\",\"lastName\":\"Doe\"}";
+
+    private final AtomicInteger hits = new AtomicInteger();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    /** Status code for the n-th request (1-based). */
+    private volatile IntUnaryOperator statusForHit = hit -> 200;
+    private volatile Duration firstHitDelay = Duration.ZERO;
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private PatientProperties.Client config;
+    private PatientServiceClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/patients", exchange -> {
+            int hit = hits.incrementAndGet();
+            if (hit == 1 && !firstHitDelay.isZero()) {
+                try {
+                    Thread.sleep(firstHitDelay.toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            int status = statusForHit.applyAsInt(hit);
+            byte[] body = (status == 200 ? PATIENT_JSON : "{}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.start();
+
+        config = new PatientProperties.Client();
+        config.setBaseUrl("http://localhost:" + server.getAddress().getPort() + "/api/patients");
+        config.setRetryBackoff(Duration.ofMillis(10));
+        config.setMaxRetryBackoff(Duration.ofMillis(50));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) {
+            client.close();
+        }
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    void getPatientById_ShouldRetryTransientFailures() {
+        statusForHit = hit -> hit <= 2 ? 503 : 200;
+        client = newClient();
+
+        assertThat(client.getPatientById("1").getFirstName()).isEqualTo("John");
+
+        assertThat(hits).hasValue(3);
+        assertThat(meterRegistry.get("resilience4j.retry.calls")
+                .tag("name", "getPatientById")
+                .tag("kind", "successful_with_retry")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void createPatient_ShouldNotBeRetried() {
+        statusForHit = hit -> 503;
+        client = newClient();
+
+        assertThatThrownBy(() -> client.createPatient(Patient.builder().firstName("John").build()))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Failed to create patient");
+
+        assertThat(hits).hasValue(1);
+        assertThat(meterRegistry.get("patient.client.requests")
+                .tag("operation", "createPatient")
+                .tag("outcome", "SERVER_ERROR")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void getPatientById_ShouldNotRetryOrTripBreakerOnClientErrors() {
+        statusForHit = hit -> 404;
+        config.setSlidingWindowSize(2);
+        client = newClient();
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> client.getPatientById("missing")).isInstanceOf(RuntimeException.class);
+        }
+
+        assertThat(hits).hasValue(3);
+        assertThat(client.getCircuitBreakerState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void circuitBreaker_ShouldFailFastWhenOpenAndCloseAfterHalfOpenProbe() throws InterruptedException {
+        statusForHit = hit -> 500;
+        config.setSlidingWindowSize(4);
+        config.setMaxAttempts(1);
+        config.setOpenStateWait(Duration.ofMillis(200));
+        config.setHalfOpenCalls(1);
+        client = newClient();
+
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> client.getPatientById("1")).isInstanceOf(RuntimeException.class);
+        }
+        assertThat(client.getCircuitBreakerState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(meterRegistry.get("resilience4j.circuitbreaker.state")
+                .tag("name", PatientServiceClient.SERVICE_NAME)
+                .tag("state", "open")
+                .gauge().value()).isEqualTo(1);
+
+        assertThatThrownBy(() -> client.getPatientById("1"))
+                .hasCauseInstanceOf(CallNotPermittedException.class);
+        assertThat(hits).hasValue(4);
+
+        statusForHit = hit -> 200;
+        Thread.sleep(300);
+        assertThat(client.getPatientById("1").getId()).isEqualTo("1");
+        assertThat(client.getCircuitBreakerState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void getPatientById_ShouldHedgeSlowRequests() {
+        firstHitDelay = Duration.ofSeconds(3);
+        config.setHedgeDelay(Duration.ofMillis(50));
+        client = newClient();
+
+        long start = System.nanoTime();
+        Patient patient = client.getPatientById("1");
+
+        assertThat(patient.getId()).isEqualTo("1");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+        assertThat(meterRegistry.get("patient.client.hedged.requests").functionCounter().count()).isEqualTo(1);
+    }
+
+    private PatientServiceClient newClient() {
+        PatientServiceClient newClient = new PatientServiceClient(new RestTemplate(), config);
+        newClient.bindTo(meterRegistry);
+        return newClient;
+    }
+}
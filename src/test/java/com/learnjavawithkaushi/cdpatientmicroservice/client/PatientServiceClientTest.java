@@ -1,18 +1,28 @@
 package com.learnjavawithkaushi.cdpatientmicroservice.client;
 
+import com.learnjavawithkaushi.cdpatientmicroservice.config.PatientProperties;
 import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -41,6 +51,123 @@ class PatientServiceClientTest {
                 .build();
     }
 
+    @AfterEach
+    void tearDown() {
+        client.close();
+    }
+
+    @Test
+    void getPatientById_ShouldUseConfiguredBaseUrl() {
+        PatientProperties properties = new PatientProperties();
+        properties.getClient().setBaseUrl("http://patients.internal:9090/api/patients/");
+        client = new PatientServiceClient(restTemplate, properties);
+        when(restTemplate.exchange(eq("http://patients.internal:9090/api/patients/{id}"), eq(HttpMethod.GET),
+                any(HttpEntity.class), eq(Patient.class), eq("1")))
+                .thenReturn(new ResponseEntity<>(testPatient, HttpStatus.OK));
+
+        assertThat(client.getPatientById("1")).isEqualTo(testPatient);
+    }
+
+    @Test
+    void configuredMediaType_ShouldBeAcceptedAndSent() {
+        PatientProperties properties = new PatientProperties();
+        properties.getClient().setMediaType(MediaType.APPLICATION_CBOR);
+        client = new PatientServiceClient(restTemplate, properties);
+        when(restTemplate.exchange(eq("http://localhost:8080/api/patients/{id}"), eq(HttpMethod.GET),
+                any(HttpEntity.class), eq(Patient.class), eq("1")))
+                .thenReturn(new ResponseEntity<>(testPatient, HttpStatus.OK));
+        when(restTemplate.postForEntity(eq("http://localhost:8080/api/patients"), any(HttpEntity.class),
+                eq(Patient.class)))
+                .thenReturn(new ResponseEntity<>(testPatient, HttpStatus.CREATED));
+
+        client.getPatientById("1");
+        client.createPatient(testPatient);
+
+        ArgumentCaptor<HttpEntity<?>> get = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(restTemplate).exchange(eq("http://localhost:8080/api/patients/{id}"), eq(HttpMethod.GET),
+                get.capture(), eq(Patient.class), eq("1"));
+        assertThat(get.getValue().getHeaders().getAccept())
+                .containsExactly(MediaType.APPLICATION_CBOR, MediaType.parseMediaType("application/json;q=0.9"));
+        assertThat(get.getValue().getHeaders().getContentType()).isNull();
+        ArgumentCaptor<HttpEntity<?>> post = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(restTemplate).postForEntity(eq("http://localhost:8080/api/patients"), post.capture(),
+                eq(Patient.class));
+        assertThat(post.getValue().getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_CBOR);
+    }
+
+    @Test
+    void getPatientsByIds_ShouldSplitIntoMgetBatchesAndDropUnknownIds() {
+        PatientProperties properties = new PatientProperties();
+        properties.getClient().setMgetBatchSize(2);
+        // Only full batches may be sent; a window flush would split them depending on timing
+        properties.getClient().setCoalesceWindow(Duration.ofSeconds(5));
+        client = new PatientServiceClient(restTemplate, properties);
+        when(restTemplate.exchange(eq("http://localhost:8080/api/patients/_mget"), eq(HttpMethod.POST),
+                any(HttpEntity.class), any(ParameterizedTypeReference.class)))
+                .thenAnswer(invocation -> {
+                    HttpEntity<List<String>> request = invocation.getArgument(2);
+                    List<Patient> found = request.getBody().stream()
+                            .filter(id -> !id.equals("missing"))
+                            .map(id -> Patient.builder().id(id).build())
+                            .toList();
+                    return new ResponseEntity<>(found, HttpStatus.OK);
+                });
+
+        Map<String, Patient> result = client.getPatientsByIds(List.of("1", "2", "missing", "3", "1"));
+
+        assertThat(result).containsOnlyKeys("1", "2", "3");
+        assertThat(result.keySet()).containsExactly("1", "2", "3");
+        verify(restTemplate, times(2)).exchange(eq("http://localhost:8080/api/patients/_mget"), eq(HttpMethod.POST),
+                any(HttpEntity.class), any(ParameterizedTypeReference.class));
+    }
+
+    @Test
+    void getPatientsByIdsAsync_ShouldCoalesceConcurrentLookupsIntoOneRequest() {
+        PatientProperties properties = new PatientProperties();
+        properties.getClient().setCoalesceWindow(Duration.ofMillis(200));
+        client = new PatientServiceClient(restTemplate, properties);
+        when(restTemplate.exchange(eq("http://localhost:8080/api/patients/_mget"), eq(HttpMethod.POST),
+                any(HttpEntity.class), any(ParameterizedTypeReference.class)))
+                .thenReturn(new ResponseEntity<>(List.of(testPatient, Patient.builder().id("2").build()), HttpStatus.OK));
+
+        CompletableFuture<Map<String, Patient>> first = client.getPatientsByIdsAsync(List.of("1"));
+        CompletableFuture<Map<String, Patient>> second = client.getPatientsByIdsAsync(List.of("2", "1"));
+
+        assertThat(first.join()).containsOnlyKeys("1");
+        assertThat(second.join()).containsOnlyKeys("2", "1");
+        ArgumentCaptor<HttpEntity<List<String>>> request = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(restTemplate, times(1)).exchange(eq("http://localhost:8080/api/patients/_mget"), eq(HttpMethod.POST),
+                request.capture(), any(ParameterizedTypeReference.class));
+        assertThat(request.getValue().getBody()).containsExactly("1", "2");
+    }
+
+    @Test
+    void asyncCalls_ShouldNotExceedMaxConcurrentRequests() throws Exception {
+        PatientProperties properties = new PatientProperties();
+        properties.getClient().setMaxConcurrentRequests(2);
+        client = new PatientServiceClient(restTemplate, properties);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class), eq(Patient.class),
+                eq("1"))).thenAnswer(invocation -> {
+            peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+            release.await(5, TimeUnit.SECONDS);
+            active.decrementAndGet();
+            return new ResponseEntity<>(testPatient, HttpStatus.OK);
+        });
+
+        List<CompletableFuture<Patient>> calls = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            calls.add(client.getPatientByIdAsync("1"));
+        }
+        Thread.sleep(100);
+        release.countDown();
+
+        assertThat(calls).allSatisfy(call -> assertThat(call.get(5, TimeUnit.SECONDS)).isEqualTo(testPatient));
+        assertThat(peak.get()).isEqualTo(2);
+    }
+
     @Test
     void getAllPatients_ShouldReturnListOfPatients() {
         List<Patient> expectedPatients = Arrays.asList(testPatient);
@@ -49,7 +176,7 @@ class PatientServiceClientTest {
         when(restTemplate.exchange(
                 eq("http://localhost:8080/api/patients"),
                 eq(HttpMethod.GET),
-                isNull(),
+                any(HttpEntity.class),
                 any(ParameterizedTypeReference.class)
         )).thenReturn(responseEntity);
 
@@ -60,26 +187,57 @@ class PatientServiceClientTest {
         verify(restTemplate).exchange(
                 eq("http://localhost:8080/api/patients"),
                 eq(HttpMethod.GET),
-                isNull(),
+                any(HttpEntity.class),
                 any(ParameterizedTypeReference.class)
         );
     }
 
+    @Test
+    void getAllPatients_WhenPaginated_ShouldFollowNextCursor() {
+        Patient secondPatient = Patient.builder().id("2").firstName("Jane").build();
+        HttpHeaders firstPageHeaders = new HttpHeaders();
+        firstPageHeaders.add("X-Next-Cursor", "Mg");
+
+        when(restTemplate.exchange(
+                eq("http://localhost:8080/api/patients"),
+                eq(HttpMethod.GET),
+                any(HttpEntity.class),
+                any(ParameterizedTypeReference.class)
+        )).thenReturn(new ResponseEntity<>(List.of(testPatient), firstPageHeaders, HttpStatus.OK));
+        when(restTemplate.exchange(
+                eq("http://localhost:8080/api/patients?after={after}"),
+                eq(HttpMethod.GET),
+                any(HttpEntity.class),
+                any(ParameterizedTypeReference.class),
+                eq("Mg")
+        )).thenReturn(new ResponseEntity<>(List.of(secondPatient), HttpStatus.OK));
+
+        List<Patient> result = client.getAllPatients();
+
+        assertThat(result).containsExactly(testPatient, secondPatient);
+    }
+
     @Test
     void getPatientById_ShouldReturnPatient() {
         ResponseEntity<Patient> responseEntity = new ResponseEntity<>(testPatient, HttpStatus.OK);
 
-        when(restTemplate.getForEntity(
-                eq("http://localhost:8080/api/patients/1"),
-                eq(Patient.class)
+        when(restTemplate.exchange(
+                eq("http://localhost:8080/api/patients/{id}"),
+                eq(HttpMethod.GET),
+                any(HttpEntity.class),
+                eq(Patient.class),
+                eq("1")
         )).thenReturn(responseEntity);
 
         Patient result = client.getPatientById("1");
 
         assertThat(result).isEqualTo(testPatient);
-        verify(restTemplate).getForEntity(
-                eq("http://localhost:8080/api/patients/1"),
-                eq(Patient.class)
+        verify(restTemplate).exchange(
+                eq("http://localhost:8080/api/patients/{id}"),
+                eq(HttpMethod.GET),
+                any(HttpEntity.class),
+                eq(Patient.class),
+                eq("1")
         );
     }
 
@@ -108,30 +266,32 @@ class PatientServiceClientTest {
         ResponseEntity<Patient> responseEntity = new ResponseEntity<>(testPatient, HttpStatus.OK);
 
         when(restTemplate.exchange(
-                eq("http://localhost:8080/api/patients/1"),
+                eq("http://localhost:8080/api/patients/{id}"),
                 eq(HttpMethod.PUT),
                 any(HttpEntity.class),
-                eq(Patient.class)
+                eq(Patient.class),
+                eq("1")
         )).thenReturn(responseEntity);
 
         Patient result = client.updatePatient("1", testPatient);
 
         assertThat(result).isEqualTo(testPatient);
         verify(restTemplate).exchange(
-                eq("http://localhost:8080/api/patients/1"),
+                eq("http://localhost:8080/api/patients/{id}"),
                 eq(HttpMethod.PUT),
                 any(HttpEntity.class),
-                eq(Patient.class)
+                eq(Patient.class),
+                eq("1")
         );
     }
 
     @Test
     void deletePatient_ShouldCompleteSuccessfully() {
-        doNothing().when(restTemplate).delete("http://localhost:8080/api/patients/1");
+        doNothing().when(restTemplate).delete("http://localhost:8080/api/patients/{id}", "1");
 
         assertThatNoException().isThrownBy(() -> client.deletePatient("1"));
 
-        verify(restTemplate).delete("http://localhost:8080/api/patients/1");
+        verify(restTemplate).delete("http://localhost:8080/api/patients/{id}", "1");
     }
 
     @Test
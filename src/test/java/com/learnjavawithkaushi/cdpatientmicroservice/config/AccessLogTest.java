@@ -0,0 +1,98 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.config;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AccessLogTest {
+
+    private final Logger accessLogger = (Logger) LoggerFactory.getLogger("access");
+    private final ListAppender<ILoggingEvent> events = new ListAppender<>();
+
+    @BeforeEach
+    void setUp() {
+        events.start();
+        accessLogger.addAppender(events);
+    }
+
+    @AfterEach
+    void tearDown() {
+        accessLogger.detachAppender(events);
+    }
+
+    @Test
+    void servletFilter_ShouldLogOneLineWithInboundRequestId() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/patients/search");
+        request.setQueryString("lastName=Doe");
+        request.addHeader(AccessLog.REQUEST_ID_HEADER, "req-42");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<String> requestIdInChain = new AtomicReference<>();
+
+        new AccessLogFilter().doFilter(request, response, new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest req, ServletResponse res) {
+                requestIdInChain.set(MDC.get(AccessLog.MDC_KEY));
+                ((MockHttpServletResponse) res).setStatus(404);
+            }
+        });
+
+        assertThat(requestIdInChain).hasValue("req-42");
+        assertThat(MDC.get(AccessLog.MDC_KEY)).isNull();
+        assertThat(response.getHeader(AccessLog.REQUEST_ID_HEADER)).isEqualTo("req-42");
+        assertThat(events.list).singleElement().satisfies(event -> {
+            assertThat(event.getFormattedMessage())
+                    .startsWith("method=GET path=/api/patients/search status=404 duration_ms=")
+                    .doesNotContain("Doe");
+            assertThat(event.getMDCPropertyMap()).containsEntry(AccessLog.MDC_KEY, "req-42");
+        });
+    }
+
+    @Test
+    void servletFilter_ShouldReplaceMalformedRequestId() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/patients");
+        request.addHeader(AccessLog.REQUEST_ID_HEADER, "forged\nmethod=DELETE");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new AccessLogFilter().doFilter(request, response, new MockFilterChain());
+
+        assertThat(response.getHeader(AccessLog.REQUEST_ID_HEADER)).matches("[0-9a-f]{16}");
+        assertThat(events.list).singleElement()
+                .satisfies(event -> assertThat(event.getFormattedMessage()).doesNotContain("forged"));
+    }
+
+    @Test
+    void reactiveFilter_ShouldLogOnCompletion() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/api/patients")
+                .header(AccessLog.REQUEST_ID_HEADER, "req-7"));
+
+        new ReactiveAccessLogFilter()
+                .filter(exchange, ex -> Mono.fromRunnable(() -> ex.getResponse().setStatusCode(HttpStatus.CREATED)))
+                .block();
+
+        assertThat(exchange.getResponse().getHeaders().getFirst(AccessLog.REQUEST_ID_HEADER)).isEqualTo("req-7");
+        assertThat(events.list).singleElement().satisfies(event -> {
+            assertThat(event.getFormattedMessage()).startsWith("method=POST path=/api/patients status=201 ");
+            assertThat(event.getMDCPropertyMap()).containsEntry(AccessLog.MDC_KEY, "req-7");
+        });
+    }
+}
@@ -0,0 +1,82 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.config;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionId;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.SmartValidator;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MetricsConfigTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void mongoConnectionCheckoutMetrics_ShouldTimeCheckoutsByOutcome() {
+        MongoClientSettings.Builder settings = MongoClientSettings.builder();
+        new MetricsConfig().mongoConnectionCheckoutMetrics(meterRegistry).customize(settings);
+        ConnectionPoolListener listener = settings.build().getConnectionPoolSettings()
+                .getConnectionPoolListeners().get(0);
+        ServerId serverId = new ServerId(new ClusterId(), new ServerAddress("mongo", 27017));
+
+        listener.connectionCheckedOut(new ConnectionCheckedOutEvent(
+                new ConnectionId(serverId), 1, TimeUnit.MILLISECONDS.toNanos(3)));
+        listener.connectionCheckOutFailed(new ConnectionCheckOutFailedEvent(
+                serverId, 2, ConnectionCheckOutFailedEvent.Reason.TIMEOUT, TimeUnit.MILLISECONDS.toNanos(120)));
+
+        Timer success = meterRegistry.get("mongodb.driver.pool.checkout")
+                .tag("server.address", "mongo:27017").tag("outcome", "success").timer();
+        Timer timeout = meterRegistry.get("mongodb.driver.pool.checkout").tag("outcome", "timeout").timer();
+        assertThat(success.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(3);
+        assertThat(timeout.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(120);
+    }
+
+    @Test
+    void timedValidator_ShouldTimeByOutcomeWithTimersRegisteredUpFront() {
+        SmartValidator delegate = new SmartValidator() {
+            @Override
+            public boolean supports(Class<?> clazz) {
+                return true;
+            }
+
+            @Override
+            public void validate(Object target, Errors errors) {
+                validate(target, errors, new Object[0]);
+            }
+
+            @Override
+            public void validate(Object target, Errors errors, Object... validationHints) {
+                if (((Patient) target).getFirstName() == null) {
+                    errors.rejectValue("firstName", "invalid");
+                }
+            }
+        };
+        TimedValidator validator = new TimedValidator(delegate, meterRegistry);
+        assertThat(meterRegistry.find("patient.validation").timers()).hasSize(2);
+
+        Patient valid = Patient.builder().firstName("John").build();
+        Patient invalid = new Patient();
+        validator.validate(valid, new BeanPropertyBindingResult(valid, "patient"));
+        validator.validate(valid, new BeanPropertyBindingResult(valid, "patient"));
+        validator.validate(invalid, new BeanPropertyBindingResult(invalid, "patient"));
+
+        assertThat(meterRegistry.find("patient.validation").timers()).hasSize(2);
+        assertThat(meterRegistry.get("patient.validation").tag("type", "Patient").tag("outcome", "valid").timer()
+                .count()).isEqualTo(2);
+        assertThat(meterRegistry.get("patient.validation").tag("type", "Patient").tag("outcome", "invalid").timer()
+                .count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,47 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.config;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoCompressor;
+import com.mongodb.ReadPreference;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MongoClientConfigTest {
+
+    @Test
+    void mongoClientTuning_ShouldApplyPatientMongoProperties() {
+        PatientProperties properties = new PatientProperties();
+        properties.getMongo().setMaxPoolSize(20);
+        properties.getMongo().setMaxWaitTime(Duration.ofMillis(500));
+        properties.getMongo().setReadTimeout(Duration.ofSeconds(20));
+        properties.getMongo().setCompressors(List.of("zstd", "zlib"));
+        MongoClientSettings.Builder builder = MongoClientSettings.builder();
+
+        new MongoClientConfig().mongoClientTuning(properties).customize(builder);
+
+        MongoClientSettings settings = builder.build();
+        assertThat(settings.getConnectionPoolSettings().getMaxSize()).isEqualTo(20);
+        assertThat(settings.getConnectionPoolSettings().getMaxWaitTime(TimeUnit.MILLISECONDS)).isEqualTo(500);
+        assertThat(settings.getSocketSettings().getReadTimeout(TimeUnit.SECONDS)).isEqualTo(20);
+        assertThat(settings.getClusterSettings().getServerSelectionTimeout(TimeUnit.SECONDS)).isEqualTo(5);
+        assertThat(settings.getCompressorList()).extracting(MongoCompressor::getName).containsExactly("zstd", "zlib");
+        assertThat(settings.getReadPreference()).isEqualTo(ReadPreference.primary());
+    }
+
+    @Test
+    void compressors_ShouldRejectUnknownOrUnavailableCompressors() {
+        assertThatThrownBy(() -> MongoClientConfig.compressors(List.of("lz4")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("lz4");
+        // snappy-java is not a dependency
+        assertThatThrownBy(() -> MongoClientConfig.compressors(List.of("snappy")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("org.xerial.snappy.Snappy");
+    }
+}
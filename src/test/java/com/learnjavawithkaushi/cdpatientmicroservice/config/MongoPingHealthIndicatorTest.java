@@ -0,0 +1,60 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.config;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.client.MongoClient;
+import com.mongodb.connection.ClusterConnectionMode;
+import com.mongodb.connection.ClusterDescription;
+import com.mongodb.connection.ClusterType;
+import com.mongodb.connection.ServerConnectionState;
+import com.mongodb.connection.ServerDescription;
+import com.mongodb.connection.ServerType;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class MongoPingHealthIndicatorTest {
+
+    private final MongoClient mongoClient = mock(MongoClient.class);
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final MongoPingHealthIndicator indicator = new MongoPingHealthIndicator(mongoClient, mongoTemplate);
+
+    @Test
+    void health_WithWritableServer_ShouldPing() {
+        when(mongoClient.getClusterDescription()).thenReturn(cluster(ServerType.REPLICA_SET_PRIMARY));
+        when(mongoTemplate.executeCommand(any(Document.class))).thenReturn(new Document("ok", 1.0));
+
+        Health health = indicator.health();
+
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getDetails()).containsEntry("cluster", ClusterType.REPLICA_SET);
+        verify(mongoTemplate).executeCommand(new Document("ping", 1));
+    }
+
+    @Test
+    void health_WithoutWritableServer_ShouldBeDownWithoutPinging() {
+        when(mongoClient.getClusterDescription()).thenReturn(cluster(ServerType.REPLICA_SET_SECONDARY));
+
+        Health health = indicator.health();
+
+        assertThat(health.getStatus()).isEqualTo(Status.DOWN);
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    private static ClusterDescription cluster(ServerType type) {
+        ServerDescription server = ServerDescription.builder()
+                .address(new ServerAddress("mongo", 27017))
+                .state(ServerConnectionState.CONNECTED)
+                .ok(true)
+                .type(type)
+                .build();
+        return new ClusterDescription(ClusterConnectionMode.MULTIPLE, ClusterType.REPLICA_SET, List.of(server));
+    }
+}
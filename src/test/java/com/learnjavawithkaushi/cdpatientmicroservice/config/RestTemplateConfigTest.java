@@ -0,0 +1,96 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.config;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RestTemplateConfigTest {
+
+    private final RestTemplateConfig config = new RestTemplateConfig();
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+    private HttpServer server;
+    private PoolingHttpClientConnectionManager connectionManager;
+    private CloseableHttpClient httpClient;
+    private RestTemplate restTemplate;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/patients/health", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            byte[] body = gzip("Patient Service is running. Total patients: 0");
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        PatientProperties properties = new PatientProperties();
+        properties.getClient().setMaxConnectionsPerRoute(7);
+        connectionManager = config.patientClientConnectionManager(properties);
+        httpClient = config.patientHttpClient(connectionManager, properties);
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        restTemplate = config.restTemplate(beanFactory.getBeanProvider(RestTemplateBuilder.class), httpClient,
+                beanFactory.getBeanProvider(ObservationRegistry.class));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        httpClient.close();
+        server.stop(0);
+    }
+
+    @Test
+    void restTemplate_ShouldReuseKeepAliveConnectionsAndDecompressGzip() {
+        String url = "http://localhost:" + server.getAddress().getPort() + "/api/patients/health";
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(restTemplate.getForObject(url, String.class))
+                    .isEqualTo("Patient Service is running. Total patients: 0");
+        }
+
+        assertThat(clientPorts).hasSize(1);
+    }
+
+    @Test
+    void poolMetrics_ShouldExposeConfiguredLimits() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        config.patientClientPoolMetrics(connectionManager).bindTo(registry);
+
+        assertThat(registry.get("httpcomponents.httpclient.pool.route.max.default").gauge().value()).isEqualTo(7);
+        assertThat(registry.get("httpcomponents.httpclient.pool.total.max").gauge().value()).isEqualTo(200);
+        assertThat(registry.get("httpcomponents.httpclient.pool.total.connections")
+                .tag("state", "leased").gauge().value()).isZero();
+    }
+
+    private static byte[] gzip(String value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(value.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+}
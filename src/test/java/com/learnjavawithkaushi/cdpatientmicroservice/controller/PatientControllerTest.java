@@ -1,8 +1,25 @@
     package com.learnjavawithkaushi.cdpatientmicroservice.controller;
     import com.fasterxml.jackson.databind.ObjectMapper;
+    import com.learnjavawithkaushi.cdpatientmicroservice.config.BinaryFormatsConfig;
+    import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientDuplicateException;
     import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientNotFoundException;
+    import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientPreconditionFailedException;
+    import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientValidationException;
+    import com.learnjavawithkaushi.cdpatientmicroservice.model.BulkItemResult;
+    import com.learnjavawithkaushi.cdpatientmicroservice.model.BulkItemStatus;
+    import com.learnjavawithkaushi.cdpatientmicroservice.model.BulkResult;
     import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+    import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientChange;
+    import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientChangeBatch;
+    import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientChangePage;
+    import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientChangeType;
+    import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientFields;
+    import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientPage;
+    import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientSearchCriteria;
+    import com.learnjavawithkaushi.cdpatientmicroservice.service.PatientBulkService;
+    import com.learnjavawithkaushi.cdpatientmicroservice.service.PatientChangeFeed;
     import com.learnjavawithkaushi.cdpatientmicroservice.service.PatientService;
+    import jakarta.servlet.AsyncListener;
     import org.junit.jupiter.api.BeforeEach;
     import org.junit.jupiter.api.Test;
     import org.mockito.Mockito;
@@ -12,14 +29,31 @@
     import org.springframework.boot.test.context.TestConfiguration;
     import org.springframework.context.annotation.Bean;
     import org.springframework.http.MediaType;
+    import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+    import org.springframework.mock.web.MockAsyncContext;
     import org.springframework.test.web.servlet.MockMvc;
+    import org.springframework.test.web.servlet.MvcResult;
 
+    import java.time.Instant;
     import java.time.LocalDate;
+    import java.util.ArrayList;
+    import java.util.Iterator;
     import java.util.List;
+    import java.util.Map;
     import java.util.Optional;
-
+    import java.util.concurrent.CompletableFuture;
+    import java.util.concurrent.RejectedExecutionException;
+    import java.util.concurrent.TimeUnit;
+    import java.util.stream.IntStream;
+    import java.util.stream.Stream;
+
+    import static org.assertj.core.api.Assertions.assertThat;
+    import static org.hamcrest.Matchers.hasItem;
+    import static org.hamcrest.Matchers.not;
+    import static org.hamcrest.Matchers.startsWith;
     import static org.mockito.ArgumentMatchers.any;
     import static org.mockito.ArgumentMatchers.eq;
+    import static org.mockito.ArgumentMatchers.isNull;
     import static org.mockito.Mockito.*;
     import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
     import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -34,6 +68,12 @@
         @Autowired
         private PatientService service;
 
+        @Autowired
+        private PatientBulkService bulkService;
+
+        @Autowired
+        private PatientChangeFeed changeFeed;
+
         @Autowired
         private ObjectMapper objectMapper;
 
@@ -45,6 +85,16 @@
             public PatientService patientService() {
                 return Mockito.mock(PatientService.class);
             }
+
+            @Bean
+            public PatientBulkService patientBulkService() {
+                return Mockito.mock(PatientBulkService.class);
+            }
+
+            @Bean
+            public PatientChangeFeed patientChangeFeed() {
+                return Mockito.mock(PatientChangeFeed.class);
+            }
         }
 
         @BeforeEach
@@ -62,21 +112,174 @@
 
         @Test
         void getAllPatients_ShouldReturnListOfPatients() throws Exception {
-            when(service.getAll()).thenReturn(List.of(testPatient));
+            when(service.getPage(null, 100, PatientFields.ALL)).thenReturn(new PatientPage(List.of(testPatient), null));
 
             mockMvc.perform(get("/api/patients"))
                     .andExpect(status().isOk())
                     .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(header().doesNotExist("X-Next-Cursor"))
                     .andExpect(jsonPath("$[0].id").value("1"))
                     .andExpect(jsonPath("$[0].firstName").value("John"))
                     .andExpect(jsonPath("$[0].lastName").value("Doe"));
 
-            verify(service).getAll();
+            verify(service).getPage(null, 100, PatientFields.ALL);
+        }
+
+        @Test
+        void getAllPatients_WhenMorePages_ShouldReturnNextCursorAndLink() throws Exception {
+            when(service.getPage("abc", 1, PatientFields.ALL)).thenReturn(new PatientPage(List.of(testPatient), "def"));
+
+            mockMvc.perform(get("/api/patients?after=abc&limit=1"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("X-Next-Cursor", "def"))
+                    .andExpect(header().string("Link", "<http://localhost/api/patients?limit=1&after=def>; rel=\"next\""))
+                    .andExpect(jsonPath("$.length()").value(1));
+        }
+
+        @Test
+        void getAllPatients_ShouldClampLimitToMaximum() throws Exception {
+            when(service.getPage(null, 1000, PatientFields.ALL)).thenReturn(new PatientPage(List.of(), null));
+
+            mockMvc.perform(get("/api/patients").param("limit", "50000"))
+                    .andExpect(status().isOk());
+
+            verify(service).getPage(null, 1000, PatientFields.ALL);
+        }
+
+        @Test
+        void getAllPatients_WithNonPositiveLimit_ShouldReturn400() throws Exception {
+            mockMvc.perform(get("/api/patients").param("limit", "0"))
+                    .andExpect(status().isBadRequest());
+
+            verify(service, never()).getPage(any(), eq(0), any());
+        }
+
+        @Test
+        void searchPatients_ShouldBindFiltersAndReturnNextCursor() throws Exception {
+            PatientSearchCriteria criteria = PatientSearchCriteria.builder()
+                    .lastName("Do")
+                    .dateOfBirthFrom(LocalDate.of(1980, 1, 1))
+                    .gender("male")
+                    .build();
+            when(service.search(criteria, null, 1, PatientFields.ALL)).thenReturn(new PatientPage(List.of(testPatient), "def"));
+
+            mockMvc.perform(get("/api/patients/search?lastName=Do&dateOfBirthFrom=1980-01-01&gender=male&limit=1"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("X-Next-Cursor", "def"))
+                    .andExpect(jsonPath("$[0].id").value("1"));
+
+            verify(service).search(criteria, null, 1, PatientFields.ALL);
+        }
+
+        @Test
+        void searchPatients_WithMalformedDate_ShouldReturn400() throws Exception {
+            mockMvc.perform(get("/api/patients/search?dateOfBirthFrom=yesterday"))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        void streamAllPatients_ShouldWriteNdjson() throws Exception {
+            Patient other = Patient.builder().id("2").firstName("Jane").build();
+            when(service.streamAll()).thenReturn(Stream.of(testPatient, other));
+
+            MvcResult result = mockMvc.perform(get("/api/patients").accept(MediaType.APPLICATION_NDJSON))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            String body = mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                    .andReturn().getResponse().getContentAsString();
+
+            String[] lines = body.split("\n");
+            assertThat(lines).hasSize(2);
+            assertThat(objectMapper.readValue(lines[0], Patient.class)).isEqualTo(testPatient);
+            assertThat(objectMapper.readValue(lines[1], Patient.class).getId()).isEqualTo("2");
+        }
+
+        @Test
+        void getChanges_ShouldReturnDeltaPageWithNextLink() throws Exception {
+            PatientChange deleted = PatientChange.builder().type(PatientChangeType.DELETED).id("9")
+                    .time(Instant.parse("2024-05-02T08:00:00Z")).build();
+            when(service.getChanges("2024-05-01T00:00:00Z", null, 1))
+                    .thenReturn(new PatientChangePage(List.of(deleted), "ghi"));
+
+            mockMvc.perform(get("/api/patients/changes?since=2024-05-01T00:00:00Z&limit=1"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("X-Next-Cursor", "ghi"))
+                    .andExpect(header().string("Link",
+                            "<http://localhost/api/patients/changes?since=2024-05-01T00:00:00Z&limit=1&after=ghi>; rel=\"next\""))
+                    .andExpect(jsonPath("$.length()").value(1))
+                    .andExpect(jsonPath("$[0].type").value("DELETED"))
+                    .andExpect(jsonPath("$[0].time").value("2024-05-02T08:00:00Z"))
+                    .andExpect(jsonPath("$[0].patient").doesNotExist());
+        }
+
+        @Test
+        void getChanges_WithoutSince_ShouldReturn400() throws Exception {
+            when(service.getChanges(isNull(), isNull(), eq(100)))
+                    .thenThrow(new PatientValidationException("since is required"));
+
+            mockMvc.perform(get("/api/patients/changes"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.detail").value("since is required"));
+        }
+
+        @Test
+        void pollChanges_ShouldReturnChangesAndResumeToken() throws Exception {
+            PatientChange change = PatientChange.builder().token("82a2").type(PatientChangeType.UPDATED).id("1")
+                    .time(Instant.parse("2024-05-01T10:00:00Z")).patient(testPatient).build();
+            when(changeFeed.poll("82a1", 10))
+                    .thenReturn(CompletableFuture.completedFuture(new PatientChangeBatch(List.of(change), "82a2")));
+
+            MvcResult result = mockMvc.perform(get("/api/patients/changes/poll").param("after", "82a1").param("limit", "10"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("X-Resume-Token", "82a2"))
+                    .andExpect(jsonPath("$.length()").value(1))
+                    .andExpect(jsonPath("$[0].type").value("UPDATED"))
+                    .andExpect(jsonPath("$[0].time").value("2024-05-01T10:00:00Z"))
+                    .andExpect(jsonPath("$[0].patient.firstName").value("John"));
+        }
+
+        @Test
+        void streamChanges_ShouldResumeFromLastEventIdAndSendTokensAsEventIds() throws Exception {
+            PatientChange change = PatientChange.builder().token("82b2").type(PatientChangeType.DELETED).id("1").build();
+            when(changeFeed.subscribe(eq("82b1"), any())).thenAnswer(invocation -> {
+                PatientChangeFeed.ChangeSink sink = invocation.getArgument(1);
+                sink.change(change);
+                return CompletableFuture.completedFuture(null);
+            });
+
+            MvcResult result = mockMvc.perform(get("/api/patients/changes/stream")
+                            .param("after", "82b0")
+                            .header("Last-Event-ID", "82b1")
+                            .accept(MediaType.TEXT_EVENT_STREAM))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM))
+                    .andExpect(content().string("id:82b2\ndata:{\"token\":\"82b2\",\"type\":\"DELETED\",\"id\":\"1\"}\n\n"));
+        }
+
+        @Test
+        void streamChanges_WhenFeedIsFull_ShouldReturn503() throws Exception {
+            when(changeFeed.subscribe(eq("82c1"), any()))
+                    .thenThrow(new RejectedExecutionException("At most 100 change feed requests can be open at once"));
+
+            mockMvc.perform(get("/api/patients/changes/stream").param("after", "82c1"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(jsonPath("$.detail").value("At most 100 change feed requests can be open at once"));
         }
 
         @Test
         void getPatientById_WhenPatientExists_ShouldReturnPatient() throws Exception {
-            when(service.getById("1")).thenReturn(Optional.of(testPatient));
+            when(service.getById("1", PatientFields.ALL)).thenReturn(Optional.of(testPatient));
 
             mockMvc.perform(get("/api/patients/1"))
                     .andExpect(status().isOk())
@@ -84,17 +287,134 @@
                     .andExpect(jsonPath("$.id").value("1"))
                     .andExpect(jsonPath("$.firstName").value("John"));
 
-            verify(service).getById("1");
+            verify(service).getById("1", PatientFields.ALL);
+        }
+
+        @Test
+        void getPatientById_WithFields_ShouldReturnOnlySelectedFields() throws Exception {
+            PatientFields fields = PatientFields.parse("firstName,lastName");
+            when(service.getById("1", fields))
+                    .thenReturn(Optional.of(Patient.builder().id("1").firstName("John").lastName("Doe").build()));
+
+            mockMvc.perform(get("/api/patients/1").param("fields", "firstName,lastName"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().doesNotExist("ETag"))
+                    .andExpect(jsonPath("$.id").value("1"))
+                    .andExpect(jsonPath("$.lastName").value("Doe"))
+                    .andExpect(jsonPath("$.emailAddress").doesNotExist())
+                    .andExpect(jsonPath("$.dateOfBirth").doesNotExist());
+        }
+
+        @Test
+        void getAllPatients_WithUnknownField_ShouldReturn400() throws Exception {
+            mockMvc.perform(get("/api/patients").param("fields", "id,password"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.detail").value("Unknown field: password"));
+        }
+
+        @Test
+        void getAllPatients_WithNonNumericLimit_ShouldReturn400() throws Exception {
+            mockMvc.perform(get("/api/patients").param("limit", "abc"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+                    .andExpect(jsonPath("$.detail").value("Invalid value for parameter 'limit'"))
+                    .andExpect(jsonPath("$.instance").value("/api/patients"));
+        }
+
+        @Test
+        void createPatient_WithMalformedJson_ShouldReturn400() throws Exception {
+            mockMvc.perform(post("/api/patients")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"firstName\": oops"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+                    .andExpect(jsonPath("$.detail").value("Malformed request body"));
+        }
+
+        @Test
+        void streamChanges_WithUnacceptableMediaType_ShouldReturn406() throws Exception {
+            mockMvc.perform(get("/api/patients/changes/stream").accept(MediaType.APPLICATION_XML))
+                    .andExpect(status().isNotAcceptable())
+                    .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+                    .andExpect(jsonPath("$.status").value(406))
+                    .andExpect(jsonPath("$.instance").value("/api/patients/changes/stream"));
+        }
+
+        @Test
+        void createPatient_WithUnacceptableMediaType_ShouldReturn406WithoutWriting() throws Exception {
+            Patient unacceptable = Patient.builder().firstName("John").lastName("Doe")
+                    .dateOfBirth(testPatient.getDateOfBirth()).contactNumber(testPatient.getContactNumber())
+                    .emailAddress("xml@gmail.com").gender(testPatient.getGender()).build();
+
+            mockMvc.perform(post("/api/patients")
+                            .accept(MediaType.APPLICATION_XML)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(unacceptable)))
+                    .andExpect(status().isNotAcceptable())
+                    .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+                    .andExpect(jsonPath("$.status").value(406));
+
+            verify(service, never()).create(argThat(p -> p != null && "xml@gmail.com".equals(p.getEmailAddress())));
+        }
+
+        @Test
+        void streamChanges_WithMalformedToken_ShouldReturn400() throws Exception {
+            when(changeFeed.subscribe(eq("not-a-token"), any()))
+                    .thenThrow(new PatientValidationException("Invalid resume token: not-a-token"));
+
+            mockMvc.perform(get("/api/patients/changes/stream").param("after", "not-a-token"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+                    .andExpect(jsonPath("$.detail").value("Invalid resume token: not-a-token"));
+        }
+
+        @Test
+        void pollChanges_WhenAsyncRequestTimesOut_ShouldReturn503() throws Exception {
+            when(changeFeed.poll("7f01", 10)).thenReturn(new CompletableFuture<>());
+
+            MvcResult result = mockMvc.perform(get("/api/patients/changes/poll").param("after", "7f01").param("limit", "10"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+            for (AsyncListener listener : asyncContext.getListeners()) {
+                listener.onTimeout(null);
+            }
+
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+                    .andExpect(jsonPath("$.instance").value("/api/patients/changes/poll"));
+        }
+
+        @Test
+        void getPatientById_WhenUnexpectedError_ShouldReturn500WithoutDetails() throws Exception {
+            when(service.getById("500", PatientFields.ALL)).thenThrow(new IllegalStateException("connection reset"));
+
+            mockMvc.perform(get("/api/patients/500"))
+                    .andExpect(status().isInternalServerError())
+                    .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+                    .andExpect(jsonPath("$.detail").value("An unexpected error occurred"));
         }
 
         @Test
         void getPatientById_WhenPatientNotExists_ShouldReturn404() throws Exception {
-            when(service.getById("999")).thenReturn(Optional.empty());
+            when(service.getById("999", PatientFields.ALL)).thenReturn(Optional.empty());
 
             mockMvc.perform(get("/api/patients/999"))
-                    .andExpect(status().isNotFound());
+                    .andExpect(status().isNotFound())
+                    .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+                    .andExpect(jsonPath("$.status").value(404))
+                    .andExpect(jsonPath("$.title").value("Patient Not Found"))
+                    .andExpect(jsonPath("$.detail").value("Patient not found with id: 999"))
+                    .andExpect(jsonPath("$.instance").value("/api/patients/999"))
+                    .andExpect(jsonPath("$.timestamp").exists());
+
+            verify(service).getById("999", PatientFields.ALL);
+        }
 
-            verify(service).getById("999");
+        @Test
+        void patientNotFoundException_ShouldNotCaptureStackTrace() {
+            assertThat(new PatientNotFoundException("999").getStackTrace()).isEmpty();
         }
 
         @Test
@@ -149,6 +469,189 @@
             verify(service, never()).create(any(Patient.class));
         }
 
+        @Test
+        void getPatientsByIds_ShouldReturnFoundPatients() throws Exception {
+            when(service.getByIds(List.of("1", "missing"))).thenReturn(List.of(testPatient));
+
+            mockMvc.perform(post("/api/patients/_mget")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("[\"1\", \"missing\"]"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(1))
+                    .andExpect(jsonPath("$[0].id").value("1"));
+        }
+
+        @Test
+        void getPatientById_WithSmileAccept_ShouldReturnSmile() throws Exception {
+            testPatient.setId("8");
+            when(service.getById("8", PatientFields.ALL)).thenReturn(Optional.of(testPatient));
+
+            MvcResult result = mockMvc.perform(get("/api/patients/8").accept(BinaryFormatsConfig.APPLICATION_SMILE))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(BinaryFormatsConfig.APPLICATION_SMILE))
+                    .andReturn();
+
+            Patient patient = Jackson2ObjectMapperBuilder.smile().build()
+                    .readValue(result.getResponse().getContentAsByteArray(), Patient.class);
+            assertThat(patient).isEqualTo(testPatient);
+        }
+
+        @Test
+        void getPatientsByIds_WithCborBody_ShouldAnswerInCbor() throws Exception {
+            when(service.getByIds(List.of("1", "missing"))).thenReturn(List.of(testPatient));
+            ObjectMapper cbor = Jackson2ObjectMapperBuilder.cbor().build();
+
+            MvcResult result = mockMvc.perform(post("/api/patients/_mget")
+                            .contentType(MediaType.APPLICATION_CBOR)
+                            .accept(MediaType.APPLICATION_CBOR)
+                            .content(cbor.writeValueAsBytes(List.of("1", "missing"))))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                    .andReturn();
+
+            assertThat(cbor.readValue(result.getResponse().getContentAsByteArray(), Patient[].class))
+                    .containsExactly(testPatient);
+        }
+
+        @Test
+        void getPatientsByIds_WithTooManyIds_ShouldReturn400() throws Exception {
+            List<String> ids = IntStream.range(0, 1001).mapToObj(String::valueOf).toList();
+
+            mockMvc.perform(post("/api/patients/_mget")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(ids)))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.detail").value("At most 1000 ids can be fetched at once"));
+
+            verify(service, never()).getByIds(ids);
+        }
+
+        @Test
+        void createPatient_WhenDuplicate_ShouldReturn409() throws Exception {
+            Patient duplicate = Patient.builder()
+                    .firstName("John")
+                    .lastName("Doe")
+                    .dateOfBirth(LocalDate.of(1990, 1, 1))
+                    .contactNumber("1234567890")
+                    .emailAddress("duplicate@gmail.com")
+                    .gender("Male")
+                    .build();
+            doThrow(new PatientDuplicateException("email address")).when(service)
+                    .create(argThat(p -> p != null && "duplicate@gmail.com".equals(p.getEmailAddress())));
+
+            mockMvc.perform(post("/api/patients")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(duplicate)))
+                    .andExpect(status().isConflict())
+                    .andExpect(jsonPath("$.title").value("Conflict"))
+                    .andExpect(jsonPath("$.detail").value("A patient with the same email address already exists"));
+        }
+
+        @Test
+        void bulkCreate_WithJsonArray_ShouldReturnPerItemResults() throws Exception {
+            BulkResult result = new BulkResult();
+            result.add(BulkItemResult.builder().index(0).id("1").status(BulkItemStatus.CREATED).build());
+            result.add(BulkItemResult.builder().index(1).status(BulkItemStatus.INVALID)
+                    .validationErrors(Map.of("emailAddress", "Email address must be valid")).build());
+            doReturn(result).when(bulkService).ingest(any());
+
+            mockMvc.perform(post("/api/patients/_bulk")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(List.of(testPatient, testPatient))))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.created").value(1))
+                    .andExpect(jsonPath("$.failed").value(1))
+                    .andExpect(jsonPath("$.items[0].id").value("1"))
+                    .andExpect(jsonPath("$.items[1].status").value("INVALID"))
+                    .andExpect(jsonPath("$.items[1].validationErrors.emailAddress").value("Email address must be valid"));
+        }
+
+        @Test
+        void bulkCreate_WithNdjson_ShouldParseEveryLine() throws Exception {
+            List<Patient> received = new ArrayList<>();
+            doAnswer(invocation -> {
+                Iterator<Patient> patients = invocation.getArgument(0);
+                patients.forEachRemaining(received::add);
+                return new BulkResult();
+            }).when(bulkService).ingest(any());
+            String ndjson = objectMapper.writeValueAsString(testPatient) + "\n"
+                    + objectMapper.writeValueAsString(testPatient) + "\n";
+
+            mockMvc.perform(post("/api/patients/_bulk")
+                            .contentType(MediaType.APPLICATION_NDJSON)
+                            .content(ndjson))
+                    .andExpect(status().isOk());
+
+            assertThat(received).containsExactly(testPatient, testPatient);
+        }
+
+        @Test
+        void bulkStream_WithJsonArray_ShouldStreamResultsPerChunk() throws Exception {
+            doAnswer(invocation -> {
+                Iterator<Patient> patients = invocation.getArgument(0);
+                PatientBulkService.ResultSink sink = invocation.getArgument(1);
+                int index = 0;
+                while (patients.hasNext()) {
+                    patients.next();
+                    sink.accept(List.of(BulkItemResult.builder().index(index).id("s" + index)
+                            .status(BulkItemStatus.CREATED).build()));
+                    index++;
+                }
+                return null;
+            }).when(bulkService).ingest(any(), any(PatientBulkService.ResultSink.class));
+
+            String body = mockMvc.perform(post("/api/patients/_bulk/stream")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(MediaType.APPLICATION_NDJSON)
+                            .content(objectMapper.writeValueAsString(List.of(testPatient, testPatient))))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                    .andReturn().getResponse().getContentAsString();
+
+            assertThat(body.lines().toList()).containsExactly(
+                    "{\"index\":0,\"id\":\"s0\",\"status\":\"CREATED\"}",
+                    "{\"index\":1,\"id\":\"s1\",\"status\":\"CREATED\"}");
+        }
+
+        @Test
+        void bulkStream_WithMalformedRecord_ShouldReportItAfterTheItemsBeforeIt() throws Exception {
+            List<Patient> received = new ArrayList<>();
+            doAnswer(invocation -> {
+                Iterator<Patient> patients = invocation.getArgument(0);
+                patients.forEachRemaining(received::add);
+                PatientBulkService.ResultSink sink = invocation.getArgument(1);
+                sink.accept(List.of(BulkItemResult.builder().index(0).id("m0").status(BulkItemStatus.CREATED).build()));
+                return null;
+            }).when(bulkService).ingest(any(), any(PatientBulkService.ResultSink.class));
+            String ndjson = objectMapper.writeValueAsString(testPatient) + "\n{\"firstName\": oops}\n"
+                    + objectMapper.writeValueAsString(testPatient) + "\n";
+
+            String body = mockMvc.perform(post("/api/patients/_bulk/stream")
+                            .contentType(MediaType.APPLICATION_NDJSON)
+                            .content(ndjson))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+
+            assertThat(received).containsExactly(testPatient);
+            List<String> lines = body.lines().toList();
+            assertThat(lines).hasSize(2);
+            assertThat(lines.get(1)).startsWith("{\"index\":1,\"status\":\"FAILED\",\"message\":\"Malformed bulk input: ");
+        }
+
+        @Test
+        void bulkCreate_WithMalformedNdjson_ShouldReturn400() throws Exception {
+            doAnswer(invocation -> {
+                Iterator<Patient> patients = invocation.getArgument(0);
+                patients.forEachRemaining(patient -> { });
+                return new BulkResult();
+            }).when(bulkService).ingest(any());
+
+            mockMvc.perform(post("/api/patients/_bulk")
+                            .contentType(MediaType.APPLICATION_NDJSON)
+                            .content("{\"firstName\": \"John\"}\n{not json"))
+                    .andExpect(status().isBadRequest());
+        }
+
         @Test
         void updatePatient_WithValidData_ShouldReturnUpdatedPatient() throws Exception {
             Patient updatedPatient = Patient.builder()
@@ -161,7 +664,7 @@
                     .gender("Male")
                     .build();
 
-            when(service.update(eq("1"), any(Patient.class))).thenReturn(updatedPatient);
+            when(service.update(eq("1"), any(Patient.class), isNull())).thenReturn(updatedPatient);
 
             mockMvc.perform(put("/api/patients/1")
                             .contentType(MediaType.APPLICATION_JSON)
@@ -169,12 +672,12 @@
                     .andExpect(status().isOk())
                     .andExpect(jsonPath("$.lastName").value("Updated"));
 
-            verify(service).update(eq("1"), any(Patient.class));
+            verify(service).update(eq("1"), any(Patient.class), isNull());
         }
 
         @Test
         void updatePatient_WhenPatientNotExists_ShouldReturn404() throws Exception {
-            when(service.update(eq("999"), any(Patient.class)))
+            when(service.update(eq("999"), any(Patient.class), isNull()))
                     .thenThrow(new PatientNotFoundException("999"));
 
             mockMvc.perform(put("/api/patients/999")
@@ -182,37 +685,201 @@
                             .content(objectMapper.writeValueAsString(testPatient)))
                     .andExpect(status().isNotFound());
 
-            verify(service).update(eq("999"), any(Patient.class));
+            verify(service).update(eq("999"), any(Patient.class), isNull());
+        }
+
+        @Test
+        void getPatientById_ShouldReturnVersionETag() throws Exception {
+            Patient versioned = Patient.builder().id("5").version(3L).firstName("John").build();
+            when(service.getById("5", PatientFields.ALL)).thenReturn(Optional.of(versioned));
+
+            mockMvc.perform(get("/api/patients/5"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", "\"3\""));
+        }
+
+        @Test
+        void getPatientById_ShouldTagEachFormatAndFieldSetApartAndVaryByAccept() throws Exception {
+            Patient stored = Patient.builder().id("12").version(3L).firstName("John").build();
+            when(service.getById("12", PatientFields.ALL)).thenReturn(Optional.of(stored));
+            when(service.getById("12", PatientFields.parse("firstName,version")))
+                    .thenReturn(Optional.of(PatientFields.parse("firstName,version").project(stored)));
+            when(service.getById("12", PatientFields.VERSION)).thenReturn(Optional.of(PatientFields.VERSION.project(stored)));
+
+            mockMvc.perform(get("/api/patients/12"))
+                    .andExpect(header().string("ETag", "\"3\""))
+                    .andExpect(header().stringValues("Vary", hasItem("Accept")));
+            mockMvc.perform(get("/api/patients/12").accept(MediaType.APPLICATION_CBOR))
+                    .andExpect(header().string("ETag", "\"3-cbor\""));
+            String projected = mockMvc.perform(get("/api/patients/12").param("fields", "firstName,version"))
+                    .andExpect(header().string("ETag", startsWith("\"3-f")))
+                    .andReturn().getResponse().getHeader("ETag");
+            mockMvc.perform(get("/api/patients/12").param("fields", "version,firstName"))
+                    .andExpect(header().string("ETag", projected));
+
+            // The JSON tag does not validate a cached CBOR body
+            mockMvc.perform(get("/api/patients/12").accept(MediaType.APPLICATION_CBOR).header("If-None-Match", "\"3\""))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", "\"3-cbor\""));
+            mockMvc.perform(get("/api/patients/12").accept(MediaType.APPLICATION_CBOR).header("If-None-Match", "\"3-cbor\""))
+                    .andExpect(status().isNotModified());
+        }
+
+        @Test
+        void getPatientById_WithMatchingIfNoneMatch_ShouldReturn304WithoutLoadingPatient() throws Exception {
+            Patient current = Patient.builder().id("6").version(3L).updatedAt(Instant.parse("2024-05-01T10:15:30.250Z")).build();
+            when(service.getById("6", PatientFields.VERSION)).thenReturn(Optional.of(current));
+
+            mockMvc.perform(get("/api/patients/6").header("If-None-Match", "W/\"3\""))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string("ETag", "\"3\""))
+                    .andExpect(header().string("Last-Modified", "Wed, 01 May 2024 10:15:30 GMT"))
+                    .andExpect(content().string(""));
+
+            verify(service, never()).getById("6", PatientFields.ALL);
+        }
+
+        @Test
+        void getPatientById_WithIfModifiedSince_ShouldCompareUpdateTime() throws Exception {
+            Patient stored = Patient.builder().id("8").version(1L).firstName("John")
+                    .updatedAt(Instant.parse("2024-05-01T10:15:30.250Z")).build();
+            when(service.getById("8", PatientFields.VERSION)).thenReturn(Optional.of(PatientFields.VERSION.project(stored)));
+            when(service.getById("8", PatientFields.ALL)).thenReturn(Optional.of(stored));
+
+            mockMvc.perform(get("/api/patients/8").header("If-Modified-Since", "Wed, 01 May 2024 10:15:30 GMT"))
+                    .andExpect(status().isNotModified());
+            mockMvc.perform(get("/api/patients/8").header("If-Modified-Since", "Wed, 01 May 2024 10:15:29 GMT"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("Last-Modified", "Wed, 01 May 2024 10:15:30 GMT"))
+                    .andExpect(header().string("Cache-Control", "no-cache, private"))
+                    .andExpect(jsonPath("$.firstName").value("John"));
+        }
+
+        @Test
+        void getPatientById_WithIfNoneMatch_WhenPatientNotExists_ShouldReturn404() throws Exception {
+            when(service.getById("404", PatientFields.VERSION)).thenReturn(Optional.empty());
+
+            mockMvc.perform(get("/api/patients/404").header("If-None-Match", "\"1\""))
+                    .andExpect(status().isNotFound());
+        }
+
+        @Test
+        void getAllPatients_ShouldReturnPageETagAnd304WhenUnchanged() throws Exception {
+            Patient versioned = Patient.builder().id("9").version(2L).firstName("John").build();
+            when(service.getPage("9", 1, PatientFields.ALL)).thenReturn(new PatientPage(List.of(versioned), null));
+
+            String etag = mockMvc.perform(get("/api/patients").param("after", "9").param("limit", "1"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().exists("ETag"))
+                    .andReturn().getResponse().getHeader("ETag");
+
+            mockMvc.perform(get("/api/patients").param("after", "9").param("limit", "1").header("If-None-Match", etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(content().string(""));
+
+            versioned.setVersion(3L);
+            mockMvc.perform(get("/api/patients").param("after", "9").param("limit", "1").header("If-None-Match", etag))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", not(etag)));
+        }
+
+        @Test
+        void updatePatient_WithIfMatch_ShouldPassExpectedVersionAndReturnNewETag() throws Exception {
+            Patient saved = Patient.builder().id("1").version(4L).firstName("John").build();
+            when(service.update(eq("1"), any(Patient.class), eq(3L))).thenReturn(saved);
+
+            mockMvc.perform(put("/api/patients/1")
+                            .header("If-Match", "\"3\"")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(testPatient)))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", "\"4\""));
+        }
+
+        @Test
+        void updatePatient_WithIfMatchOfSmileRepresentation_ShouldPassItsVersion() throws Exception {
+            Patient saved = Patient.builder().id("13").version(6L).firstName("John").build();
+            when(service.update(eq("13"), any(Patient.class), eq(5L))).thenReturn(saved);
+
+            mockMvc.perform(put("/api/patients/13")
+                            .header("If-Match", "\"5-smile\"")
+                            .accept(BinaryFormatsConfig.APPLICATION_SMILE)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(testPatient)))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", "\"6-smile\""));
+        }
+
+        @Test
+        void updatePatient_WhenVersionIsStale_ShouldReturn412() throws Exception {
+            when(service.update(eq("1"), any(Patient.class), eq(2L)))
+                    .thenThrow(new PatientPreconditionFailedException("1"));
+
+            mockMvc.perform(put("/api/patients/1")
+                            .header("If-Match", "\"2\"")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(testPatient)))
+                    .andExpect(status().isPreconditionFailed());
+        }
+
+        @Test
+        void deletePatient_WithWeakIfMatch_ShouldReturn412WithoutWriting() throws Exception {
+            mockMvc.perform(delete("/api/patients/7").header("If-Match", "W/\"2\""))
+                    .andExpect(status().isPreconditionFailed());
+
+            verify(service, never()).delete(eq("7"), any());
+        }
+
+        @Test
+        void deletePatient_WithWildcardIfMatch_ShouldDeleteAnyVersion() throws Exception {
+            mockMvc.perform(delete("/api/patients/8").header("If-Match", "*"))
+                    .andExpect(status().isNoContent());
+
+            verify(service).delete("8", null);
         }
 
         @Test
         void deletePatient_WhenPatientExists_ShouldReturn204() throws Exception {
-            doNothing().when(service).delete("1");
+            doNothing().when(service).delete("1", null);
 
             mockMvc.perform(delete("/api/patients/1"))
                     .andExpect(status().isNoContent());
 
-            verify(service).delete("1");
+            verify(service).delete("1", null);
         }
 
         @Test
         void deletePatient_WhenPatientNotExists_ShouldReturn404() throws Exception {
-            doThrow(new PatientNotFoundException("999")).when(service).delete("999");
+            doThrow(new PatientNotFoundException("999")).when(service).delete("999", null);
 
             mockMvc.perform(delete("/api/patients/999"))
                     .andExpect(status().isNotFound());
 
-            verify(service).delete("999");
+            verify(service).delete("999", null);
         }
 
         @Test
         void healthCheck_ShouldReturnHealthStatus() throws Exception {
-            when(service.count()).thenReturn(5L);
+            when(service.estimatedCount()).thenReturn(5L);
 
             mockMvc.perform(get("/api/patients/health"))
                     .andExpect(status().isOk())
                     .andExpect(content().string("Patient Service is running. Total patients: 5"));
 
-            verify(service).count();
+            verify(service).estimatedCount();
+        }
+
+        @Test
+        void probes_WithoutMongo_ShouldStayLiveAndFailReadinessFast() throws Exception {
+            mockMvc.perform(get("/actuator/health/liveness"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.status").value("UP"));
+
+            long start = System.nanoTime();
+            mockMvc.perform(get("/actuator/health/readiness"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(jsonPath("$.status").value("DOWN"));
+            // No writable server is known, so the indicator does not wait for server selection
+            assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(5));
         }
     }
@@ -0,0 +1,84 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientFields;
+import com.learnjavawithkaushi.cdpatientmicroservice.service.PatientBulkService;
+import com.learnjavawithkaushi.cdpatientmicroservice.service.PatientService;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class PatientMetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PatientService service;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @TestConfiguration
+    static class TestConfig {
+        @Bean
+        public PatientService patientService() {
+            return Mockito.mock(PatientService.class);
+        }
+
+        @Bean
+        public PatientBulkService patientBulkService() {
+            return Mockito.mock(PatientBulkService.class);
+        }
+    }
+
+    @Test
+    void prometheusEndpoint_ShouldExposeRouteServiceAndValidationHistograms() throws Exception {
+        Patient patient = Patient.builder()
+                .id("1")
+                .firstName("John")
+                .lastName("Doe")
+                .dateOfBirth(LocalDate.of(1990, 1, 1))
+                .contactNumber("1234567890")
+                .emailAddress("john.doe@gmail.com")
+                .gender("Male")
+                .build();
+        when(service.getById("1", PatientFields.ALL)).thenReturn(Optional.of(patient));
+        mockMvc.perform(get("/api/patients/1")).andExpect(status().isOk());
+        patient.setEmailAddress("not-an-email");
+        mockMvc.perform(post("/api/patients")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(patient)))
+                .andExpect(status().isBadRequest());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(scrape)
+                .containsPattern("http_server_requests_seconds_bucket\\{.*outcome=\"SUCCESS\".*uri=\"/api/patients/\\{id}\".*le=")
+                .containsPattern("patient_service_seconds_bucket\\{.*method=\"getById\".*le=")
+                .containsPattern("patient_validation_seconds_count\\{.*outcome=\"invalid\",type=\"Patient\"} 1")
+                .contains("resilience4j_circuitbreaker_state");
+    }
+}
@@ -0,0 +1,638 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.controller;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.config.BinaryFormatsConfig;
+import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientDuplicateException;
+import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientNotFoundException;
+import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientPreconditionFailedException;
+import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientValidationException;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.BulkItemResult;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.BulkItemStatus;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.BulkResult;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientChange;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientChangeBatch;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientChangePage;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientChangeType;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientFields;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientPage;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientSearchCriteria;
+import com.learnjavawithkaushi.cdpatientmicroservice.service.PatientBulkService;
+import com.learnjavawithkaushi.cdpatientmicroservice.service.PatientChangeFeed;
+import com.learnjavawithkaushi.cdpatientmicroservice.service.ReactivePatientChangeFeed;
+import com.learnjavawithkaushi.cdpatientmicroservice.service.ReactivePatientService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the {@link PatientControllerTest} scenarios against the reactive execution mode.
+ */
+@SpringBootTest(properties = "spring.main.web-application-type=reactive")
+@AutoConfigureWebTestClient
+class ReactivePatientHandlerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ReactivePatientService service;
+
+    @Autowired
+    private PatientBulkService bulkService;
+
+    @Autowired
+    private ReactivePatientChangeFeed changeStream;
+
+    @Autowired
+    private PatientChangeFeed changeFeed;
+
+    private Patient testPatient;
+
+    @TestConfiguration
+    static class TestConfig {
+        @Bean
+        public ReactivePatientService reactivePatientService() {
+            return Mockito.mock(ReactivePatientService.class);
+        }
+
+        @Bean
+        public PatientBulkService patientBulkService() {
+            return Mockito.mock(PatientBulkService.class);
+        }
+
+        @Bean
+        public ReactivePatientChangeFeed reactivePatientChangeFeed() {
+            return Mockito.mock(ReactivePatientChangeFeed.class);
+        }
+
+        @Bean
+        public PatientChangeFeed patientChangeFeed() {
+            return Mockito.mock(PatientChangeFeed.class);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        Mockito.reset(service, bulkService, changeStream, changeFeed);
+        testPatient = Patient.builder()
+                .id("1")
+                .version(0L)
+                .firstName("John")
+                .lastName("Doe")
+                .dateOfBirth(LocalDate.of(1990, 1, 1))
+                .contactNumber("1234567890")
+                .emailAddress("john.doe@gmail.com")
+                .gender("Male")
+                .build();
+    }
+
+    @Test
+    void getAllPatients_ShouldReturnListOfPatients() {
+        when(service.getPage(null, 100, PatientFields.ALL)).thenReturn(Mono.just(new PatientPage(List.of(testPatient), null)));
+
+        webTestClient.get().uri("/api/patients")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectHeader().doesNotExist("X-Next-Cursor")
+                .expectBody()
+                .jsonPath("$[0].id").isEqualTo("1")
+                .jsonPath("$[0].firstName").isEqualTo("John");
+    }
+
+    @Test
+    void getAllPatients_WhenMorePages_ShouldReturnNextCursorAndLink() {
+        when(service.getPage("abc", 1, PatientFields.ALL)).thenReturn(Mono.just(new PatientPage(List.of(testPatient), "def")));
+
+        webTestClient.get().uri("/api/patients?limit=1&after=abc")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("X-Next-Cursor", "def")
+                .expectHeader().value("Link", link -> assertThat(link).contains("after=def").endsWith("; rel=\"next\""));
+    }
+
+    @Test
+    void getAllPatients_WithFields_ShouldPassProjectionToService() {
+        PatientFields fields = PatientFields.parse("firstName");
+        when(service.getPage(null, 100, fields))
+                .thenReturn(Mono.just(new PatientPage(List.of(Patient.builder().id("1").firstName("John").build()), null)));
+
+        webTestClient.get().uri("/api/patients?fields=firstName")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].firstName").isEqualTo("John")
+                .jsonPath("$[0].lastName").doesNotExist();
+    }
+
+    @Test
+    void searchPatients_ShouldBindFiltersAndReturnNextCursor() {
+        PatientSearchCriteria criteria = PatientSearchCriteria.builder()
+                .lastName("Do")
+                .dateOfBirthFrom(LocalDate.of(1980, 1, 1))
+                .gender("male")
+                .build();
+        when(service.search(criteria, null, 1, PatientFields.ALL)).thenReturn(Mono.just(new PatientPage(List.of(testPatient), "def")));
+
+        webTestClient.get().uri("/api/patients/search?lastName=Do&dateOfBirthFrom=1980-01-01&gender=male&limit=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("X-Next-Cursor", "def")
+                .expectBody().jsonPath("$[0].id").isEqualTo("1");
+    }
+
+    @Test
+    void searchPatients_WithMalformedDate_ShouldReturn400() {
+        webTestClient.get().uri("/api/patients/search?dateOfBirthFrom=yesterday")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void getAllPatients_WithNonPositiveLimit_ShouldReturn400() {
+        webTestClient.get().uri("/api/patients?limit=0")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.status").isEqualTo(400);
+    }
+
+    @Test
+    void streamAllPatients_ShouldWriteNdjson() {
+        when(service.streamAll()).thenReturn(Flux.just(testPatient, Patient.builder().id("2").build()));
+
+        List<Patient> patients = webTestClient.get().uri("/api/patients")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(Patient.class)
+                .getResponseBody().collectList().block();
+
+        assertThat(patients).extracting(Patient::getId).containsExactly("1", "2");
+    }
+
+    @Test
+    void streamChanges_ShouldResumeFromLastEventIdAndSendTokensAsEventIds() {
+        PatientChange change = PatientChange.builder().token("82b2").type(PatientChangeType.DELETED).id("1").build();
+        when(changeStream.watch("82b1")).thenReturn(Flux.just(change));
+
+        String body = webTestClient.get().uri("/api/patients/changes/stream?after=82b0")
+                .header("Last-Event-ID", "82b1")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+                .expectBody(String.class)
+                .returnResult().getResponseBody();
+
+        assertThat(body).isEqualTo("id:82b2\ndata:{\"token\":\"82b2\",\"type\":\"DELETED\",\"id\":\"1\"}\n\n");
+    }
+
+    @Test
+    void getChanges_ShouldReturnDeltaPageWithNextCursor() {
+        PatientChange updated = PatientChange.builder().type(PatientChangeType.UPDATED).id("1")
+                .time(Instant.parse("2024-05-02T08:00:00Z")).patient(testPatient).build();
+        when(service.getChanges("2024-05-01T00:00:00Z", "abc", 1))
+                .thenReturn(Mono.just(new PatientChangePage(List.of(updated), "def")));
+
+        webTestClient.get().uri("/api/patients/changes?since=2024-05-01T00:00:00Z&after=abc&limit=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("X-Next-Cursor", "def")
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].type").isEqualTo("UPDATED")
+                .jsonPath("$[0].patient.firstName").isEqualTo("John");
+    }
+
+    @Test
+    void pollChanges_ShouldReturnChangesAndResumeToken() {
+        PatientChange change = PatientChange.builder().token("82a2").type(PatientChangeType.CREATED).id("1")
+                .patient(testPatient).build();
+        when(changeFeed.poll("82a1", 100))
+                .thenReturn(CompletableFuture.completedFuture(new PatientChangeBatch(List.of(change), "82a2")));
+
+        webTestClient.get().uri("/api/patients/changes/poll?after=82a1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("X-Resume-Token", "82a2")
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].type").isEqualTo("CREATED")
+                .jsonPath("$[0].patient.firstName").isEqualTo("John");
+    }
+
+    @Test
+    void streamChanges_WithMalformedToken_ShouldReturn400() {
+        when(changeStream.watch("not-a-token")).thenThrow(new PatientValidationException("Invalid resume token: not-a-token"));
+
+        webTestClient.get().uri("/api/patients/changes/stream?after=not-a-token")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.detail").isEqualTo("Invalid resume token: not-a-token");
+    }
+
+    @Test
+    void getPatientById_WhenPatientExists_ShouldReturnPatientWithETag() {
+        when(service.getById("1", PatientFields.ALL)).thenReturn(Mono.just(testPatient));
+
+        webTestClient.get().uri("/api/patients/1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"0\"")
+                .expectBody().jsonPath("$.firstName").isEqualTo("John");
+    }
+
+    @Test
+    void getPatientById_WithSmileAccept_ShouldReturnSmile() {
+        when(service.getById("1", PatientFields.ALL)).thenReturn(Mono.just(testPatient));
+
+        webTestClient.get().uri("/api/patients/1")
+                .accept(BinaryFormatsConfig.APPLICATION_SMILE)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(BinaryFormatsConfig.APPLICATION_SMILE)
+                .expectBody(Patient.class).isEqualTo(testPatient);
+    }
+
+    @Test
+    void getPatientById_ShouldTagEachFormatAndFieldSetApartAndVaryByAccept() {
+        Patient current = Patient.builder().id("7").version(3L).build();
+        when(service.getById("7", PatientFields.ALL)).thenReturn(Mono.just(testPatient));
+        when(service.getById("7", PatientFields.parse("firstName,version"))).thenReturn(Mono.just(testPatient));
+        when(service.getById("7", PatientFields.VERSION)).thenReturn(Mono.just(current));
+
+        webTestClient.get().uri("/api/patients/7")
+                .accept(BinaryFormatsConfig.APPLICATION_SMILE)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"0-smile\"")
+                .expectHeader().valueEquals("Vary", "Accept");
+        webTestClient.get().uri("/api/patients/7?fields=firstName,version")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().value("ETag", etag -> assertThat(etag).startsWith("\"0-f"));
+
+        // The JSON tag does not validate a cached Smile body
+        webTestClient.get().uri("/api/patients/7")
+                .accept(BinaryFormatsConfig.APPLICATION_SMILE)
+                .header("If-None-Match", "\"3\"")
+                .exchange()
+                .expectStatus().isOk();
+        webTestClient.get().uri("/api/patients/7")
+                .accept(BinaryFormatsConfig.APPLICATION_SMILE)
+                .header("If-None-Match", "\"3-smile\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals("Vary", "Accept");
+    }
+
+    @Test
+    void getPatientById_WithMatchingIfNoneMatch_ShouldReturn304WithoutLoadingPatient() {
+        Patient current = Patient.builder().id("6").version(3L).updatedAt(Instant.parse("2024-05-01T10:15:30Z")).build();
+        when(service.getById("6", PatientFields.VERSION)).thenReturn(Mono.just(current));
+
+        webTestClient.get().uri("/api/patients/6")
+                .header("If-None-Match", "\"3\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals("ETag", "\"3\"")
+                .expectHeader().valueEquals("Last-Modified", "Wed, 01 May 2024 10:15:30 GMT")
+                .expectBody().isEmpty();
+
+        verify(service, never()).getById("6", PatientFields.ALL);
+    }
+
+    @Test
+    void getPatientById_WhenPatientNotExists_ShouldReturn404() {
+        when(service.getById("999", PatientFields.ALL)).thenReturn(Mono.empty());
+
+        webTestClient.get().uri("/api/patients/999")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectHeader().contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .expectBody()
+                .jsonPath("$.title").isEqualTo("Patient Not Found")
+                .jsonPath("$.detail").isEqualTo("Patient not found with id: 999")
+                .jsonPath("$.instance").isEqualTo("/api/patients/999");
+    }
+
+    @Test
+    void createPatient_WithValidData_ShouldReturnCreatedPatient() {
+        when(service.create(any(Patient.class))).thenReturn(Mono.just(testPatient));
+
+        webTestClient.post().uri("/api/patients")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(testPatient)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectHeader().valueEquals("ETag", "\"0\"")
+                .expectBody().jsonPath("$.id").isEqualTo("1");
+    }
+
+    @Test
+    void createPatient_WithInvalidData_ShouldReturn400() {
+        Patient invalidPatient = Patient.builder()
+                .firstName("")
+                .lastName("Smith")
+                .dateOfBirth(LocalDate.of(2999, 1, 1))
+                .contactNumber("123")
+                .emailAddress("invalid-email")
+                .gender("Invalid")
+                .build();
+
+        webTestClient.post().uri("/api/patients")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(invalidPatient)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.title").isEqualTo("Validation Failed")
+                .jsonPath("$.validationErrors.emailAddress").isEqualTo("Email address must be valid");
+
+        verify(service, never()).create(any(Patient.class));
+    }
+
+    @Test
+    void createPatient_WithMalformedJson_ShouldReturn400() {
+        webTestClient.post().uri("/api/patients")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{oops")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectHeader().contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .expectBody()
+                .jsonPath("$.detail").isEqualTo("Malformed request body")
+                .jsonPath("$.instance").isEqualTo("/api/patients");
+
+        verify(service, never()).create(any(Patient.class));
+    }
+
+    @Test
+    void createAndUpdatePatient_WithEmptyBody_ShouldReturn400() {
+        webTestClient.post().uri("/api/patients")
+                .contentType(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.detail").isEqualTo("Request body is required");
+        webTestClient.put().uri("/api/patients/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.detail").isEqualTo("Request body is required");
+
+        verify(service, never()).create(any(Patient.class));
+        verify(service, never()).update(any(), any(), any());
+    }
+
+    @Test
+    void createPatient_WithUnsupportedContentType_ShouldReturn415() {
+        webTestClient.post().uri("/api/patients")
+                .contentType(MediaType.TEXT_PLAIN)
+                .bodyValue("John Doe")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+                .expectHeader().contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(415)
+                .jsonPath("$.instance").isEqualTo("/api/patients");
+    }
+
+    @Test
+    void getPatientById_WithUnacceptableMediaType_ShouldReturn406() {
+        webTestClient.get().uri("/api/patients/1")
+                .accept(MediaType.APPLICATION_XML)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_ACCEPTABLE)
+                .expectHeader().contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(406)
+                .jsonPath("$.instance").isEqualTo("/api/patients/1");
+
+        verify(service, never()).getById(any(), any());
+    }
+
+    @Test
+    void createPatient_WithUnacceptableMediaType_ShouldReturn406WithoutWriting() {
+        webTestClient.post().uri("/api/patients")
+                .accept(MediaType.APPLICATION_XML)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(testPatient)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_ACCEPTABLE);
+
+        verify(service, never()).create(any());
+    }
+
+    @Test
+    void bulkCreate_WithMalformedNdjsonLine_ShouldReturn400() {
+        when(bulkService.ingest(any())).thenAnswer(invocation -> {
+            java.util.Iterator<Patient> patients = invocation.getArgument(0);
+            patients.forEachRemaining(patient -> { });
+            return new BulkResult();
+        });
+
+        webTestClient.post().uri("/api/patients/_bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue("{\"firstName\": oops}\n")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectHeader().contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .expectBody().jsonPath("$.detail").value(detail -> assertThat((String) detail)
+                        .startsWith("Malformed bulk input: "));
+    }
+
+    @Test
+    void bulkCreate_WithNdjson_ShouldReturnPerItemResults() {
+        BulkResult result = new BulkResult();
+        result.add(BulkItemResult.builder().index(0).id("1").status(BulkItemStatus.CREATED).build());
+        when(bulkService.ingest(any())).thenAnswer(invocation -> {
+            java.util.Iterator<Patient> patients = invocation.getArgument(0);
+            patients.forEachRemaining(patient -> { });
+            return result;
+        });
+
+        webTestClient.post().uri("/api/patients/_bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue("{\"firstName\":\"John\"}\n")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.created").isEqualTo(1);
+    }
+
+    @Test
+    void bulkStream_ShouldWriteChunksAndStreamResults() {
+        when(bulkService.ingestChunk(any(), eq(0))).thenAnswer(invocation -> {
+            List<Patient> chunk = invocation.getArgument(0);
+            return java.util.stream.IntStream.range(0, chunk.size())
+                    .mapToObj(i -> BulkItemResult.builder().index(i).status(BulkItemStatus.CREATED).build())
+                    .toList();
+        });
+
+        List<BulkItemResult> results = webTestClient.post().uri("/api/patients/_bulk/stream")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(Flux.just("{\"firstName\":\"John\"}\n", "{\"firstName\":\"Jane\"}\n", "{\"firstName\": oops}\n"),
+                        String.class)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(BulkItemResult.class)
+                .getResponseBody().collectList().block();
+
+        assertThat(results).extracting(BulkItemResult::getIndex).containsExactly(0, 1, 2);
+        assertThat(results.get(2).getStatus()).isEqualTo(BulkItemStatus.FAILED);
+        assertThat(results.get(2).getMessage()).startsWith("Malformed bulk input: ");
+    }
+
+    @Test
+    void bulkCreate_WithCborArray_ShouldAnswerInCbor() {
+        BulkResult result = new BulkResult();
+        result.add(BulkItemResult.builder().index(0).id("1").status(BulkItemStatus.CREATED).build());
+        when(bulkService.ingest(any())).thenAnswer(invocation -> {
+            java.util.Iterator<Patient> patients = invocation.getArgument(0);
+            assertThat(patients.next().getFirstName()).isEqualTo("John");
+            return result;
+        });
+
+        BulkResult response = webTestClient.post().uri("/api/patients/_bulk")
+                .contentType(MediaType.APPLICATION_CBOR)
+                .accept(MediaType.APPLICATION_CBOR)
+                .bodyValue(List.of(testPatient))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_CBOR)
+                .expectBody(BulkResult.class)
+                .returnResult().getResponseBody();
+
+        assertThat(response.getCreated()).isEqualTo(1);
+    }
+
+    @Test
+    void updatePatient_WithIfMatch_ShouldPassExpectedVersion() {
+        Patient saved = Patient.builder().id("1").version(4L).firstName("John").build();
+        when(service.update(eq("1"), any(Patient.class), eq(3L))).thenReturn(Mono.just(saved));
+
+        webTestClient.put().uri("/api/patients/1")
+                .header("If-Match", "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(testPatient)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"4\"");
+    }
+
+    @Test
+    void getPatientsByIds_ShouldReturnFoundPatients() {
+        when(service.getByIds(List.of("1", "missing"))).thenReturn(Flux.just(testPatient));
+
+        webTestClient.post().uri("/api/patients/_mget")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of("1", "missing"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].id").isEqualTo("1");
+    }
+
+    @Test
+    void updatePatient_WhenDuplicate_ShouldReturn409() {
+        when(service.update(eq("1"), any(Patient.class), isNull()))
+                .thenReturn(Mono.error(new PatientDuplicateException("contact number")));
+
+        webTestClient.put().uri("/api/patients/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(testPatient)
+                .exchange()
+                .expectStatus().isEqualTo(409)
+                .expectBody()
+                .jsonPath("$.title").isEqualTo("Conflict")
+                .jsonPath("$.detail").isEqualTo("A patient with the same contact number already exists");
+    }
+
+    @Test
+    void updatePatient_WhenPatientNotExists_ShouldReturn404() {
+        when(service.update(eq("999"), any(Patient.class), isNull()))
+                .thenReturn(Mono.error(new PatientNotFoundException("999")));
+
+        webTestClient.put().uri("/api/patients/999")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(testPatient)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void updatePatient_WhenVersionIsStale_ShouldReturn412() {
+        when(service.update(eq("1"), any(Patient.class), eq(2L)))
+                .thenReturn(Mono.error(new PatientPreconditionFailedException("1")));
+
+        webTestClient.put().uri("/api/patients/1")
+                .header("If-Match", "\"2\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(testPatient)
+                .exchange()
+                .expectStatus().isEqualTo(412);
+    }
+
+    @Test
+    void deletePatient_WhenPatientExists_ShouldReturn204() {
+        when(service.delete("1", null)).thenReturn(Mono.empty());
+
+        webTestClient.delete().uri("/api/patients/1")
+                .exchange()
+                .expectStatus().isNoContent();
+
+        verify(service).delete("1", null);
+    }
+
+    @Test
+    void deletePatient_WithWeakIfMatch_ShouldReturn412WithoutWriting() {
+        webTestClient.delete().uri("/api/patients/7")
+                .header("If-Match", "W/\"2\"")
+                .exchange()
+                .expectStatus().isEqualTo(412);
+
+        verify(service, never()).delete(any(), any());
+    }
+
+    @Test
+    void deletePatient_WhenPatientNotExists_ShouldReturn404() {
+        when(service.delete("999", null)).thenReturn(Mono.error(new PatientNotFoundException("999")));
+
+        webTestClient.delete().uri("/api/patients/999")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void healthCheck_ShouldReturnHealthStatus() {
+        when(service.estimatedCount()).thenReturn(Mono.just(5L));
+
+        webTestClient.get().uri("/api/patients/health")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("Patient Service is running. Total patients: 5");
+    }
+}
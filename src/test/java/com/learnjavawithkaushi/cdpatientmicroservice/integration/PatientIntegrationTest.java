@@ -2,22 +2,35 @@ package com.learnjavawithkaushi.cdpatientmicroservice.integration;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.learnjavawithkaushi.cdpatientmicroservice.CdPatientMicroserviceApplication;
 import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientChange;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientChangeType;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientTombstone;
+import com.learnjavawithkaushi.cdpatientmicroservice.repository.PatientIndexInitializer;
 import com.learnjavawithkaushi.cdpatientmicroservice.repository.PatientRepository;
+import com.learnjavawithkaushi.cdpatientmicroservice.service.PatientService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.testcontainers.containers.MongoDBContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -33,6 +46,10 @@ public class PatientIntegrationTest {
     @DynamicPropertySource
     static void configureProperties(DynamicPropertyRegistry registry) {
         registry.add("spring.data.mongodb.uri", mongoDB::getReplicaSetUrl);
+        // Idle change feed polls return after this long
+        registry.add("patient.changes.poll-wait", () -> "2s");
+        // Writes show up in the delta right away
+        registry.add("patient.changes.delta-lag", () -> "0s");
     }
 
     @Autowired
@@ -44,9 +61,19 @@ public class PatientIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private PatientIndexInitializer indexInitializer;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private PatientService patientService;
+
     @BeforeEach
     void setUp() {
         repository.deleteAll();
+        mongoTemplate.remove(new Query(), PatientTombstone.class);
     }
 
     @Test
@@ -100,6 +127,302 @@ public class PatientIntegrationTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void concurrentUpdate_WithStaleIfMatch_ShouldReturn412() throws Exception {
+        Patient patient = Patient.builder()
+                .firstName("John")
+                .lastName("Doe")
+                .dateOfBirth(LocalDate.of(1990, 1, 1))
+                .contactNumber("1234567890")
+                .emailAddress("john.doe@gmail.com")
+                .gender("Male")
+                .build();
+
+        String response = mockMvc.perform(post("/api/patients")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(patient)))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("ETag", "\"0\""))
+                .andReturn().getResponse().getContentAsString();
+        String patientId = objectMapper.readValue(response, Patient.class).getId();
+
+        // First editor wins and moves the document to version 1
+        patient.setLastName("First");
+        mockMvc.perform(put("/api/patients/" + patientId)
+                        .header("If-Match", "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(patient)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""));
+
+        // Second editor still holds version 0
+        patient.setLastName("Second");
+        mockMvc.perform(put("/api/patients/" + patientId)
+                        .header("If-Match", "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(patient)))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(delete("/api/patients/" + patientId).header("If-Match", "\"0\""))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(get("/api/patients/" + patientId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lastName").value("First"));
+    }
+
+    @Test
+    void update_WithoutAField_ShouldClearItAndKeepCreatedAt() throws Exception {
+        Patient patient = Patient.builder()
+                .firstName("John")
+                .lastName("Doe")
+                .dateOfBirth(LocalDate.of(1990, 1, 1))
+                .contactNumber("1234567890")
+                .emailAddress("john.doe@gmail.com")
+                .gender("Male")
+                .build();
+        String response = mockMvc.perform(post("/api/patients")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(patient)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        Patient created = objectMapper.readValue(response, Patient.class);
+
+        // Every field a client sends is required today, so the request validation is bypassed
+        Patient replacement = objectMapper.readValue(objectMapper.writeValueAsString(patient), Patient.class);
+        replacement.setEmailAddress(null);
+        patientService.update(created.getId(), replacement, 0L);
+
+        Patient stored = repository.findById(created.getId()).orElseThrow();
+        assertThat(stored.getEmailAddress()).isNull();
+        assertThat(stored.getFirstName()).isEqualTo("John");
+        assertThat(stored.getCreatedAt()).isEqualTo(created.getCreatedAt());
+        assertThat(stored.getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void conditionalGet_ShouldReturn304UntilThePatientChanges() throws Exception {
+        Patient saved = repository.save(Patient.builder().firstName("John").lastName("Doe")
+                .dateOfBirth(LocalDate.of(1990, 1, 1)).contactNumber("1234567890")
+                .emailAddress("john.doe@gmail.com").gender("Male").build());
+
+        mockMvc.perform(get("/api/patients/" + saved.getId()).header("If-None-Match", "\"0\""))
+                .andExpect(status().isNotModified());
+
+        saved.setLastName("Changed");
+        mockMvc.perform(put("/api/patients/" + saved.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(saved)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/patients/" + saved.getId()).header("If-None-Match", "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(header().exists("Last-Modified"))
+                .andExpect(jsonPath("$.lastName").value("Changed"));
+    }
+
+    @Test
+    void changeFeed_ShouldDeliverWritesInOrderAndResumeBehindAToken() throws Exception {
+        // An idle poll still hands out a token, so nothing written after it is missed
+        MvcResult idle = pollChanges(null);
+        assertThat(changesOf(idle)).isEmpty();
+        String start = idle.getResponse().getHeader("X-Resume-Token");
+        assertThat(start).isNotBlank();
+
+        Patient saved = repository.save(Patient.builder().firstName("John").lastName("Doe")
+                .dateOfBirth(LocalDate.of(1990, 1, 1)).contactNumber("1234567890")
+                .emailAddress("john.doe@gmail.com").gender("Male").build());
+        saved.setLastName("Changed");
+        repository.save(saved);
+        repository.deleteById(saved.getId());
+
+        // A poll returns what has arrived together; keep polling until all three writes are seen
+        List<PatientChange> changes = new ArrayList<>();
+        String token = start;
+        for (int polls = 0; polls < 5 && changes.size() < 3; polls++) {
+            MvcResult result = pollChanges(token);
+            changes.addAll(changesOf(result));
+            token = result.getResponse().getHeader("X-Resume-Token");
+        }
+        assertThat(changes).extracting(PatientChange::getType)
+                .containsExactly(PatientChangeType.CREATED, PatientChangeType.UPDATED, PatientChangeType.DELETED);
+        assertThat(changes).extracting(PatientChange::getId).containsOnly(saved.getId());
+        assertThat(changes.get(0).getPatient().getLastName()).isEqualTo("Doe");
+        assertThat(changes.get(2).getPatient()).isNull();
+
+        // Resuming behind the update replays only the delete
+        List<PatientChange> resumed = changesOf(pollChanges(changes.get(1).getToken()));
+        assertThat(resumed).extracting(PatientChange::getType).containsExactly(PatientChangeType.DELETED);
+
+        mockMvc.perform(get("/api/patients/changes/poll").param("after", "not-a-token"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void delta_ShouldPageThroughWritesAndTombstonesSinceATime() throws Exception {
+        Instant since = Instant.now().minusSeconds(1);
+        Patient kept = createPatient("John", "john.doe@gmail.com", "1234567890");
+        Patient removed = createPatient("Jane", "jane.doe@gmail.com", "1234567891");
+        kept.setLastName("Changed");
+        mockMvc.perform(put("/api/patients/" + kept.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(kept)))
+                .andExpect(status().isOk());
+        // The update keeps the creation time
+        Patient stored = repository.findById(kept.getId()).orElseThrow();
+        assertThat(stored.getCreatedAt()).isNotNull().isBeforeOrEqualTo(stored.getUpdatedAt());
+        mockMvc.perform(delete("/api/patients/" + removed.getId()))
+                .andExpect(status().isNoContent());
+
+        MvcResult first = mockMvc.perform(get("/api/patients/changes")
+                        .param("since", since.toString()).param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andReturn();
+        List<PatientChange> changes = new ArrayList<>(changesOf(first));
+        changes.addAll(changesOf(mockMvc.perform(get("/api/patients/changes").param("since", since.toString())
+                        .param("after", first.getResponse().getHeader("X-Next-Cursor")))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andReturn()));
+
+        // One entry per patient in write order: the latest state of one, the tombstone of the other.
+        // Created after `since`, the updated patient is still reported as created.
+        assertThat(changes).extracting(PatientChange::getId).containsExactly(kept.getId(), removed.getId());
+        assertThat(changes).extracting(PatientChange::getType)
+                .containsExactly(PatientChangeType.CREATED, PatientChangeType.DELETED);
+        assertThat(changes.get(0).getPatient().getLastName()).isEqualTo("Changed");
+        assertThat(changes.get(1).getPatient()).isNull();
+
+        mockMvc.perform(get("/api/patients/changes").param("since", Instant.now().plusSeconds(60).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    private Patient createPatient(String firstName, String email, String contactNumber) throws Exception {
+        Patient patient = Patient.builder().firstName(firstName).lastName("Doe")
+                .dateOfBirth(LocalDate.of(1990, 1, 1)).contactNumber(contactNumber)
+                .emailAddress(email).gender("Male").build();
+        String response = mockMvc.perform(post("/api/patients")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(patient)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(response, Patient.class);
+    }
+
+    private MvcResult pollChanges(String after) throws Exception {
+        MockHttpServletRequestBuilder request = get("/api/patients/changes/poll");
+        if (after != null) {
+            request.param("after", after);
+        }
+        MvcResult started = mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn();
+    }
+
+    private List<PatientChange> changesOf(MvcResult result) throws Exception {
+        return List.of(objectMapper.readValue(result.getResponse().getContentAsByteArray(), PatientChange[].class));
+    }
+
+    @Test
+    void bulkCreate_ShouldInsertValidItemsAndReportInvalidOnes() throws Exception {
+        Patient valid = Patient.builder()
+                .firstName("Jane")
+                .lastName("Smith")
+                .dateOfBirth(LocalDate.of(1985, 5, 15))
+                .contactNumber("9876543210")
+                .emailAddress("jane.smith@gmail.com")
+                .gender("Female")
+                .build();
+        Patient invalid = Patient.builder()
+                .firstName("Jack")
+                .lastName("Smith")
+                .dateOfBirth(LocalDate.of(1985, 5, 15))
+                .contactNumber("123")
+                .emailAddress("jack.smith@gmail.com")
+                .gender("Male")
+                .build();
+
+        mockMvc.perform(post("/api/patients/_bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(valid, invalid))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.items[1].validationErrors.contactNumber").exists());
+
+        mockMvc.perform(get("/api/patients"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].firstName").value("Jane"));
+    }
+
+    @Test
+    void create_WithDuplicateEmailOrContact_ShouldReturn409AndFlagSameNameAndBirthDate() throws Exception {
+        indexInitializer.ensureIndexes();
+        Patient original = Patient.builder()
+                .firstName("John")
+                .lastName("Doe")
+                .dateOfBirth(LocalDate.of(1990, 1, 1))
+                .contactNumber("1234567890")
+                .emailAddress("john.doe@gmail.com")
+                .gender("Male")
+                .build();
+        String originalId = objectMapper.readValue(mockMvc.perform(post("/api/patients")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(original)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.possibleDuplicateOf").doesNotExist())
+                .andReturn().getResponse().getContentAsString(), Patient.class).getId();
+
+        original.setEmailAddress("JOHN.DOE@gmail.com");
+        original.setContactNumber("1987654321");
+        mockMvc.perform(post("/api/patients")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(original)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.detail").value("A patient with the same email address already exists"));
+
+        original.setEmailAddress("johnny@gmail.com");
+        original.setContactNumber("+1234567890");
+        mockMvc.perform(post("/api/patients")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(original)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.detail").value("A patient with the same contact number already exists"));
+
+        original.setFirstName("JOHN");
+        original.setContactNumber("1987654321");
+        mockMvc.perform(post("/api/patients")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(original)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.possibleDuplicateOf").value(originalId));
+    }
+
+    @Test
+    void mget_ShouldReturnStoredPatientsInRequestOrder() throws Exception {
+        List<Patient> saved = repository.saveAll(List.of(
+                Patient.builder().firstName("John").lastName("Doe").dateOfBirth(LocalDate.of(1990, 1, 1))
+                        .contactNumber("1234567890").emailAddress("john.doe@gmail.com").gender("Male").build(),
+                Patient.builder().firstName("Jane").lastName("Doe").dateOfBirth(LocalDate.of(1991, 2, 2))
+                        .contactNumber("1234567891").emailAddress("jane.doe@gmail.com").gender("Female").build()));
+        List<String> ids = List.of(saved.get(1).getId(), "000000000000000000000000", saved.get(0).getId());
+
+        mockMvc.perform(post("/api/patients/_mget")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(ids)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].firstName").value("Jane"))
+                .andExpect(jsonPath("$[1].firstName").value("John"));
+    }
+
     @Test
     void healthEndpoint_ShouldReturnHealthStatus() throws Exception {
         mockMvc.perform(get("/api/patients/health"))
@@ -0,0 +1,196 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.integration;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.CdPatientMicroserviceApplication;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientFields;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientSearchCriteria;
+import com.learnjavawithkaushi.cdpatientmicroservice.repository.PatientIndexInitializer;
+import com.learnjavawithkaushi.cdpatientmicroservice.repository.PatientProjection;
+import com.learnjavawithkaushi.cdpatientmicroservice.repository.PatientRepository;
+import com.learnjavawithkaushi.cdpatientmicroservice.repository.PatientSearchQuery;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(classes = CdPatientMicroserviceApplication.class, properties = "patient.indexes.create-on-startup=false")
+@AutoConfigureMockMvc
+@Testcontainers
+public class PatientSearchIntegrationTest {
+
+    @Container
+    static MongoDBContainer mongoDB = new MongoDBContainer("mongo:6.0")
+            .withExposedPorts(27017);
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", mongoDB::getReplicaSetUrl);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PatientRepository repository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private PatientIndexInitializer indexInitializer;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+        indexInitializer.ensureIndexes();
+        repository.saveAll(List.of(
+                patient("John", "Smith", LocalDate.of(1990, 1, 1), "Male", "john.smith@gmail.com", "1234567890"),
+                patient("Jane", "smithson", LocalDate.of(1985, 6, 15), "Female", "jane@yahoo.com", "1234567891"),
+                patient("Bob", "Jones", LocalDate.of(1970, 3, 3), "Male", "bob@gmail.com", "1234567892")));
+    }
+
+    @Test
+    void search_ByLastNamePrefix_ShouldMatchCaseInsensitively() throws Exception {
+        mockMvc.perform(get("/api/patients/search?lastName=SMI"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[*].firstName", containsInAnyOrder("John", "Jane")));
+    }
+
+    @Test
+    void search_ByDateOfBirthRangeAndGender_ShouldCombineFilters() throws Exception {
+        mockMvc.perform(get("/api/patients/search?dateOfBirthFrom=1980-01-01&gender=male"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].firstName").value("John"));
+    }
+
+    @Test
+    void search_ByEmail_ShouldIgnoreCase() throws Exception {
+        mockMvc.perform(get("/api/patients/search?emailAddress=BOB@GMAIL.COM"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].lastName").value("Jones"));
+    }
+
+    @Test
+    void search_WithLimit_ShouldPageWithCursor() throws Exception {
+        String cursor = mockMvc.perform(get("/api/patients/search?gender=male&limit=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+
+        mockMvc.perform(get("/api/patients/search?gender=male&limit=1&after=" + cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    void search_WithoutFilters_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/patients/search"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void search_EverySupportedFilter_ShouldBeServedByAnIndex() {
+        List<PatientSearchCriteria> searches = List.of(
+                PatientSearchCriteria.builder().lastName("smi").build(),
+                PatientSearchCriteria.builder().lastName("smi").firstName("j").build(),
+                PatientSearchCriteria.builder().firstName("ja").build(),
+                PatientSearchCriteria.builder().dateOfBirthFrom(LocalDate.of(1980, 1, 1)).build(),
+                PatientSearchCriteria.builder().dateOfBirthTo(LocalDate.of(1980, 1, 1)).build(),
+                PatientSearchCriteria.builder().gender("male").build(),
+                PatientSearchCriteria.builder().gender("male").dateOfBirthFrom(LocalDate.of(1980, 1, 1)).build(),
+                PatientSearchCriteria.builder().emailAddress("bob@gmail.com").build(),
+                PatientSearchCriteria.builder().contactNumber("1234567890").build());
+
+        for (PatientSearchCriteria criteria : searches) {
+            List<String> stages = new ArrayList<>();
+            collectStages(explain(PatientSearchQuery.of(criteria, null, 10)), stages);
+            assertThat(stages).as("winning plan for %s", criteria).contains("IXSCAN").doesNotContain("COLLSCAN");
+        }
+    }
+
+    @Test
+    void list_WithSummaryFields_ShouldBeCoveredByTheListSummaryIndex() throws Exception {
+        mockMvc.perform(get("/api/patients?limit=2&fields=firstName,lastName,dateOfBirth"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id").exists())
+                .andExpect(jsonPath("$[0].lastName").exists())
+                .andExpect(jsonPath("$[0].emailAddress").doesNotExist());
+
+        Query page = PatientProjection.page(null, 2, PatientFields.parse(String.join(",", PatientFields.SUMMARY)));
+        List<String> stages = new ArrayList<>();
+        collectStages(explain(find(page)), stages);
+        assertThat(stages).contains("PROJECTION_COVERED", "IXSCAN").doesNotContain("FETCH", "COLLSCAN");
+    }
+
+    private Document explain(Query query) {
+        return explain(find(query).append("collation", PatientSearchQuery.COLLATION.toDocument()));
+    }
+
+    private Document find(Query query) {
+        MongoPersistentEntity<?> entity = mongoTemplate.getConverter().getMappingContext()
+                .getPersistentEntity(Patient.class);
+        QueryMapper mapper = new QueryMapper(mongoTemplate.getConverter());
+        return new Document("find", mongoTemplate.getCollectionName(Patient.class))
+                .append("filter", mapper.getMappedObject(query.getQueryObject(), entity))
+                .append("sort", mapper.getMappedSort(query.getSortObject(), entity))
+                .append("limit", query.getLimit())
+                .append("projection", mapper.getMappedFields(query.getFieldsObject(), entity));
+    }
+
+    private Document explain(Document find) {
+        Document explain = mongoTemplate.executeCommand(new Document("explain", find).append("verbosity", "queryPlanner"));
+        return explain.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+    }
+
+    private static void collectStages(Document plan, List<String> stages) {
+        stages.add(plan.getString("stage"));
+        Object input = plan.get("inputStage");
+        if (input instanceof Document child) {
+            collectStages(child, stages);
+        }
+        Object inputs = plan.get("inputStages");
+        if (inputs instanceof List<?> children) {
+            children.forEach(child -> collectStages((Document) child, stages));
+        }
+    }
+
+    private static Patient patient(String firstName, String lastName, LocalDate dateOfBirth, String gender,
+                                   String email, String contactNumber) {
+        return Patient.builder()
+                .firstName(firstName)
+                .lastName(lastName)
+                .dateOfBirth(dateOfBirth)
+                .gender(gender)
+                .emailAddress(email)
+                .contactNumber(contactNumber)
+                .build();
+    }
+}
@@ -0,0 +1,114 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.integration;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.CdPatientMicroserviceApplication;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import com.learnjavawithkaushi.cdpatientmicroservice.repository.ReactivePatientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+
+/**
+ * {@link PatientIntegrationTest} scenarios against the reactive execution mode.
+ */
+@SpringBootTest(classes = CdPatientMicroserviceApplication.class,
+        properties = "spring.main.web-application-type=reactive")
+@AutoConfigureWebTestClient
+@Testcontainers
+public class ReactivePatientIntegrationTest {
+
+    @Container
+    static MongoDBContainer mongoDB = new MongoDBContainer("mongo:6.0")
+            .withExposedPorts(27017);
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", mongoDB::getReplicaSetUrl);
+    }
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ReactivePatientRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll().block();
+    }
+
+    @Test
+    void fullPatientLifecycle_ShouldWorkEndToEnd() {
+        Patient patient = Patient.builder()
+                .firstName("John")
+                .lastName("Doe")
+                .dateOfBirth(LocalDate.of(1990, 1, 1))
+                .contactNumber("1234567890")
+                .emailAddress("john.doe@gmail.com")
+                .gender("Male")
+                .build();
+
+        Patient createdPatient = webTestClient.post().uri("/api/patients")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(patient)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectHeader().valueEquals("ETag", "\"0\"")
+                .expectBody(Patient.class)
+                .returnResult().getResponseBody();
+        String patientId = createdPatient.getId();
+
+        webTestClient.get().uri("/api/patients/" + patientId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.firstName").isEqualTo("John");
+
+        webTestClient.get().uri("/api/patients")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.length()").isEqualTo(1);
+
+        patient.setLastName("Updated");
+        webTestClient.put().uri("/api/patients/" + patientId)
+                .header("If-Match", "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(patient)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"1\"")
+                .expectBody().jsonPath("$.lastName").isEqualTo("Updated");
+
+        webTestClient.put().uri("/api/patients/" + patientId)
+                .header("If-Match", "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(patient)
+                .exchange()
+                .expectStatus().isEqualTo(412);
+
+        webTestClient.delete().uri("/api/patients/" + patientId)
+                .exchange()
+                .expectStatus().isNoContent();
+
+        webTestClient.get().uri("/api/patients/" + patientId)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void healthEndpoint_ShouldReturnHealthStatus() {
+        webTestClient.get().uri("/api/patients/health")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("Patient Service is running. Total patients: 0");
+    }
+}
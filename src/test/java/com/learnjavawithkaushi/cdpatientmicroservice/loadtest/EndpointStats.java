@@ -0,0 +1,53 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies (in microseconds, 3 significant digits) and error count of one endpoint. Safe for
+ * the concurrent completions of an asynchronous HTTP client.
+ */
+final class EndpointStats {
+
+    private final String name;
+    /** Due time to completion: what a caller arriving on schedule experiences. */
+    private final Histogram responseTime = new ConcurrentHistogram(3);
+    /** Actual send to completion: what a closed-loop tool would report. */
+    private final Histogram serviceTime = new ConcurrentHistogram(3);
+    private final LongAdder errors = new LongAdder();
+
+    EndpointStats(String name) {
+        this.name = name;
+    }
+
+    void record(long responseNanos, long serviceNanos, boolean success) {
+        responseTime.recordValue(TimeUnit.NANOSECONDS.toMicros(responseNanos));
+        serviceTime.recordValue(TimeUnit.NANOSECONDS.toMicros(serviceNanos));
+        if (!success) {
+            errors.increment();
+        }
+    }
+
+    String name() {
+        return name;
+    }
+
+    Histogram responseTime() {
+        return responseTime;
+    }
+
+    Histogram serviceTime() {
+        return serviceTime;
+    }
+
+    long requests() {
+        return responseTime.getTotalCount();
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+}
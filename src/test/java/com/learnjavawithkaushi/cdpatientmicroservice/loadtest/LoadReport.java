@@ -0,0 +1,103 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of an {@link OpenLoopLoadGenerator} run. {@link #write(Path)} produces
+ * {@code summary.json} (percentiles, throughput and error rate per endpoint, meant to be
+ * diffed between versions) and one {@code <endpoint>.hgrm} percentile distribution per
+ * endpoint, which HdrHistogram's plotter can overlay across runs.
+ */
+record LoadReport(double ratePerSecond, Duration duration, List<EndpointStats> endpoints,
+                  int unfinished, Duration maxDispatchLag) {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    double errorRate() {
+        long requests = endpoints.stream().mapToLong(EndpointStats::requests).sum();
+        long errors = endpoints.stream().mapToLong(EndpointStats::errors).sum() + unfinished;
+        return requests + unfinished == 0 ? 0 : (double) errors / (requests + unfinished);
+    }
+
+    void write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("timestamp", Instant.now().toString());
+        summary.put("targetRatePerSecond", ratePerSecond);
+        summary.put("durationSeconds", duration.toSeconds());
+        summary.put("unfinishedRequests", unfinished);
+        summary.put("maxDispatchLagMs", maxDispatchLag.toNanos() / 1_000_000.0);
+        summary.put("errorRate", errorRate());
+        Map<String, Object> perEndpoint = new LinkedHashMap<>();
+        for (EndpointStats stats : endpoints) {
+            perEndpoint.put(stats.name(), summarize(stats));
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(stats.name() + ".hgrm")))) {
+                stats.responseTime().outputPercentileDistribution(out, MICROS_PER_MILLI);
+            }
+        }
+        summary.put("endpoints", perEndpoint);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(directory.resolve("summary.json").toFile(), summary);
+    }
+
+    /**
+     * Human-readable table of the same numbers, response times first.
+     */
+    String format() {
+        StringBuilder table = new StringBuilder(String.format(
+                "Open-loop load: %.0f req/s for %ds, max dispatch lag %.1f ms, %d unfinished%n",
+                ratePerSecond, duration.toSeconds(), maxDispatchLag.toNanos() / 1_000_000.0, unfinished));
+        table.append(String.format("%-12s %8s %8s %8s %9s %9s %9s %9s %9s%n", "endpoint", "requests",
+                "req/s", "errors", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "svc p99"));
+        for (EndpointStats stats : endpoints) {
+            Histogram response = stats.responseTime();
+            table.append(String.format("%-12s %8d %8.1f %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n", stats.name(),
+                    stats.requests(), throughput(stats), stats.errors(),
+                    millis(response, 50), millis(response, 99), millis(response, 99.9),
+                    response.getMaxValue() / MICROS_PER_MILLI, millis(stats.serviceTime(), 99)));
+        }
+        return table.toString();
+    }
+
+    private Map<String, Object> summarize(EndpointStats stats) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", stats.requests());
+        summary.put("throughputPerSecond", throughput(stats));
+        summary.put("errors", stats.errors());
+        summary.put("errorRate", stats.requests() == 0 ? 0 : (double) stats.errors() / stats.requests());
+        summary.put("responseTimeMs", percentiles(stats.responseTime()));
+        summary.put("serviceTimeMs", percentiles(stats.serviceTime()));
+        return summary;
+    }
+
+    private double throughput(EndpointStats stats) {
+        return stats.requests() / (duration.toNanos() / 1_000_000_000.0);
+    }
+
+    private static Map<String, Double> percentiles(Histogram histogram) {
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        for (double percentile : PERCENTILES) {
+            percentiles.put("p" + (percentile % 1 == 0 ? String.valueOf((int) percentile) : String.valueOf(percentile)),
+                    millis(histogram, percentile));
+        }
+        percentiles.put("max", histogram.getMaxValue() / MICROS_PER_MILLI);
+        return percentiles;
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI;
+    }
+}
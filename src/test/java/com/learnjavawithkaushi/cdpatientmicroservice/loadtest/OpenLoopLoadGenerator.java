@@ -0,0 +1,104 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Sends requests at a fixed arrival rate, whether or not earlier requests have completed
+ * (open loop). Request {@code i} is due at {@code start + i / rate}; its response time is
+ * measured from that due time rather than from when it was actually sent, so a stalled
+ * server or a generator that fell behind shows up in the tail instead of being hidden by
+ * coordinated omission. Service time (actual send to completion) is recorded next to it.
+ *
+ * <p>Requests are chosen and built on the single dispatcher thread from a seeded random, so a
+ * run with the same seed, rate and mix sends the same request sequence.
+ */
+final class OpenLoopLoadGenerator {
+
+    /**
+     * One entry of the request mix, picked with probability {@code weight / total weight}.
+     */
+    record Endpoint(String name, int weight, Function<SplittableRandom, HttpRequest> request) {
+    }
+
+    private final HttpClient client;
+    private final List<Endpoint> endpoints;
+    private final int totalWeight;
+    private final double ratePerSecond;
+    private final long seed;
+
+    OpenLoopLoadGenerator(HttpClient client, List<Endpoint> endpoints, double ratePerSecond, long seed) {
+        this.client = client;
+        this.endpoints = List.copyOf(endpoints);
+        this.totalWeight = endpoints.stream().mapToInt(Endpoint::weight).sum();
+        this.ratePerSecond = ratePerSecond;
+        this.seed = seed;
+    }
+
+    /**
+     * Runs {@code warmup} and then {@code duration} at the configured rate, waits up to
+     * {@code drainTimeout} for outstanding requests, and reports on the requests that were due
+     * after the warmup.
+     */
+    LoadReport run(Duration warmup, Duration duration, Duration drainTimeout) throws InterruptedException {
+        Map<String, EndpointStats> stats = new LinkedHashMap<>();
+        endpoints.forEach(endpoint -> stats.put(endpoint.name(), new EndpointStats(endpoint.name())));
+        SplittableRandom random = new SplittableRandom(seed);
+        AtomicInteger outstanding = new AtomicInteger();
+        long maxDispatchLagNanos = 0;
+
+        long intervalNanos = Math.round(1_000_000_000d / ratePerSecond);
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+
+        for (long due = start; due < end; due += intervalNanos) {
+            long wait;
+            while ((wait = due - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Endpoint endpoint = pick(random);
+            HttpRequest request = endpoint.request().apply(random);
+            EndpointStats endpointStats = due >= measureFrom ? stats.get(endpoint.name()) : null;
+            long dueAt = due;
+            long sentAt = System.nanoTime();
+            maxDispatchLagNanos = Math.max(maxDispatchLagNanos, sentAt - dueAt);
+            outstanding.incrementAndGet();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                long completedAt = System.nanoTime();
+                if (endpointStats != null) {
+                    endpointStats.record(completedAt - dueAt, completedAt - sentAt,
+                            error == null && response.statusCode() < 400);
+                }
+                outstanding.decrementAndGet();
+            });
+        }
+
+        long drainDeadline = System.nanoTime() + drainTimeout.toNanos();
+        while (outstanding.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        return new LoadReport(ratePerSecond, duration, List.copyOf(stats.values()),
+                outstanding.get(), Duration.ofNanos(maxDispatchLagNanos));
+    }
+
+    private Endpoint pick(SplittableRandom random) {
+        int ticket = random.nextInt(totalWeight);
+        for (Endpoint endpoint : endpoints) {
+            ticket -= endpoint.weight();
+            if (ticket < 0) {
+                return endpoint;
+            }
+        }
+        throw new IllegalStateException("Empty request mix");
+    }
+}
@@ -0,0 +1,183 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learnjavawithkaushi.cdpatientmicroservice.CdPatientMicroserviceApplication;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientIdentity;
+import com.learnjavawithkaushi.cdpatientmicroservice.repository.PatientIndexInitializer;
+import com.learnjavawithkaushi.cdpatientmicroservice.repository.PatientRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives a weighted mix of the patient endpoints at a fixed arrival rate against the full
+ * application and a Testcontainers Mongo. Excluded from the default build; run it with
+ * {@code mvn -Pload-test test} and tune it with system properties:
+ * <ul>
+ *     <li>{@code load.rate} - requests per second (default 200)</li>
+ *     <li>{@code load.warmup} / {@code load.duration} - e.g. {@code 10s} / {@code 60s}</li>
+ *     <li>{@code load.mix} - endpoint weights, default
+ *     {@code getById=50,getPage=10,search=10,mget=5,create=15,update=10}</li>
+ *     <li>{@code load.patients} - patients seeded before the run (default 10000)</li>
+ *     <li>{@code load.seed} - seed of the request sequence (default 42)</li>
+ *     <li>{@code load.report-dir} - where the report is written (default {@code target/load-report})</li>
+ *     <li>{@code load.max-error-rate} - fails the run above this error rate (default 0.01)</li>
+ * </ul>
+ */
+@Tag("load")
+@SpringBootTest(classes = CdPatientMicroserviceApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Testcontainers
+class PatientLoadTest {
+
+    private static final String DEFAULT_MIX = "getById=50,getPage=10,search=10,mget=5,create=15,update=10";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    @Container
+    static MongoDBContainer mongoDB = new MongoDBContainer("mongo:6.0")
+            .withExposedPorts(27017);
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", mongoDB::getReplicaSetUrl);
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private PatientRepository repository;
+
+    @Autowired
+    private PatientIndexInitializer indexInitializer;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private List<String> ids;
+    private long created;
+
+    @Test
+    void endpointMix_AtFixedArrivalRate() throws Exception {
+        repository.deleteAll();
+        indexInitializer.ensureIndexes();
+        int seeded = Integer.getInteger("load.patients", 10_000);
+        ids = repository.saveAll(IntStream.range(0, seeded).mapToObj(i -> patient("seed" + i, i)).toList())
+                .stream().map(Patient::getId).toList();
+        created = seeded;
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        OpenLoopLoadGenerator generator = new OpenLoopLoadGenerator(client,
+                endpoints(System.getProperty("load.mix", DEFAULT_MIX)),
+                Double.parseDouble(System.getProperty("load.rate", "200")),
+                Long.getLong("load.seed", 42));
+
+        LoadReport report = generator.run(
+                DurationStyle.detectAndParse(System.getProperty("load.warmup", "10s")),
+                DurationStyle.detectAndParse(System.getProperty("load.duration", "60s")),
+                REQUEST_TIMEOUT);
+        report.write(Path.of(System.getProperty("load.report-dir", "target/load-report")));
+        System.out.println(report.format());
+
+        assertThat(report.errorRate())
+                .isLessThanOrEqualTo(Double.parseDouble(System.getProperty("load.max-error-rate", "0.01")));
+    }
+
+    private List<OpenLoopLoadGenerator.Endpoint> endpoints(String mix) {
+        Map<String, Function<SplittableRandom, HttpRequest>> requests = Map.of(
+                "getById", random -> get("/" + randomId(random)),
+                "getPage", random -> get("?limit=50"),
+                "search", random -> get("/search?lastName=Last" + random.nextInt(100)),
+                "mget", random -> post("/_mget", json(IntStream.range(0, 20).mapToObj(i -> randomId(random)).toList())),
+                "create", random -> post("", json(patient("load" + created, created++))),
+                "update", random -> {
+                    int index = random.nextInt(ids.size());
+                    return request("/" + ids.get(index)).PUT(body(json(patient("seed" + index, index)))).build();
+                });
+        List<OpenLoopLoadGenerator.Endpoint> endpoints = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String[] nameAndWeight = entry.trim().split("=");
+            Function<SplittableRandom, HttpRequest> request = requests.get(nameAndWeight[0]);
+            if (request == null) {
+                throw new IllegalArgumentException("Unknown endpoint in load.mix: " + nameAndWeight[0]
+                        + " (expected one of " + requests.keySet() + ")");
+            }
+            endpoints.add(new OpenLoopLoadGenerator.Endpoint(nameAndWeight[0], Integer.parseInt(nameAndWeight[1]), request));
+        }
+        return endpoints;
+    }
+
+    private String randomId(SplittableRandom random) {
+        return ids.get(random.nextInt(ids.size()));
+    }
+
+    private HttpRequest get(String path) {
+        return request(path).GET().build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return request(path).POST(body(json)).build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/patients" + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json");
+    }
+
+    private static HttpRequest.BodyPublisher body(String json) {
+        return HttpRequest.BodyPublishers.ofString(json);
+    }
+
+    private String json(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A valid patient whose email address and contact number are unique per {@code n}, so
+     * creates and updates never trip the unique indexes.
+     */
+    private static Patient patient(String emailPrefix, long n) {
+        Patient patient = Patient.builder()
+                .firstName("First" + n % 1000)
+                .lastName("Last" + n % 1000)
+                .dateOfBirth(LocalDate.of(1950, 1, 1).plusDays(n % 20_000))
+                .contactNumber(String.format("+1%012d", n))
+                .emailAddress(emailPrefix + "@example.com")
+                .gender(n % 2 == 0 ? "Female" : "Male")
+                .build();
+        PatientIdentity.apply(patient);
+        return patient;
+    }
+}
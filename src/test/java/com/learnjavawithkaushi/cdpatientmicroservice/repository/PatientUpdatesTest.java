@@ -0,0 +1,71 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.repository;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PatientUpdatesTest {
+
+    private final MappingMongoConverter converter = converter();
+
+    @Test
+    void replacementOf_ShouldSetPresentFieldsAndBumpTheVersion() {
+        Patient patient = patient();
+        patient.setId("1");
+        patient.setVersion(3L);
+
+        Document update = PatientUpdates.replacementOf(patient, converter).getUpdateObject();
+
+        assertThat(update.get("$set", Document.class)).containsEntry("firstName", "John")
+                .containsEntry("emailAddress", "john.doe@gmail.com")
+                .doesNotContainKeys("_id", "version");
+        assertThat(update.get("$inc", Document.class)).containsEntry("version", 1);
+    }
+
+    @Test
+    void replacementOf_WithoutAField_ShouldUnsetItButKeepCreationFields() {
+        Patient patient = patient();
+        patient.setEmailAddress(null);
+        patient.setFingerprint(null);
+
+        Document update = PatientUpdates.replacementOf(patient, converter).getUpdateObject();
+
+        assertThat(update.get("$set", Document.class)).doesNotContainKeys("emailAddress", "fingerprint");
+        assertThat(update.get("$unset", Document.class)).containsOnlyKeys("emailAddress", "fingerprint",
+                "normalizedContactNumber");
+    }
+
+    private static Patient patient() {
+        return Patient.builder()
+                .firstName("John")
+                .lastName("Doe")
+                .dateOfBirth(LocalDate.of(1990, 1, 1))
+                .contactNumber("1234567890")
+                .emailAddress("john.doe@gmail.com")
+                .gender("Male")
+                .fingerprint("doe|john|1990-01-01")
+                .updatedAt(Instant.parse("2026-01-01T00:00:00Z"))
+                .build();
+    }
+
+    private static MappingMongoConverter converter() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        return converter;
+    }
+}
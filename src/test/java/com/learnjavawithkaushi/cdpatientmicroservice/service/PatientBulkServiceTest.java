@@ -0,0 +1,220 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.service;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.config.PatientProperties;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.BulkItemResult;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.BulkItemStatus;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.BulkResult;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.mongodb.bulk.WriteConcernError;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PatientBulkServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    private PatientProperties properties;
+    private PatientBulkService service;
+
+    @BeforeEach
+    void setUp() {
+        properties = new PatientProperties();
+        properties.getBulk().setBatchSize(2);
+        service = new PatientBulkService(mongoTemplate,
+                new PatientValidator(Validation.buildDefaultValidatorFactory().getValidator()),
+                new PatientCache(properties, new SimpleMeterRegistry()), properties);
+    }
+
+    @Test
+    void ingest_ShouldWriteValidItemsInBatchesAndReportIds() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Patient.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(BulkWriteResult.acknowledged(2, 0, 0, 0, List.of(), List.of()))
+                .thenReturn(BulkWriteResult.acknowledged(1, 0, 0, 0, List.of(), List.of()));
+
+        BulkResult result = service.ingest(List.of(patient("John"), patient("Jane"), patient("Jack")).iterator());
+
+        assertThat(result.getCreated()).isEqualTo(3);
+        assertThat(result.getFailed()).isZero();
+        assertThat(result.getItems()).extracting(BulkItemResult::getIndex).containsExactly(0, 1, 2);
+        assertThat(result.getItems()).allSatisfy(item -> assertThat(item.getId()).isNotNull());
+        verify(mongoTemplate, times(2)).bulkOps(BulkOperations.BulkMode.UNORDERED, Patient.class);
+        verify(bulkOperations, times(3)).insert(any(Patient.class));
+    }
+
+    @Test
+    void ingest_ShouldReportInvalidItemsWithoutFailingBatch() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Patient.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(BulkWriteResult.acknowledged(1, 0, 0, 0, List.of(), List.of()));
+        Patient invalid = patient("John");
+        invalid.setEmailAddress("invalid-email");
+
+        BulkResult result = service.ingest(List.of(invalid, patient("Jane")).iterator());
+
+        assertThat(result.getCreated()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(1);
+        BulkItemResult first = result.getItems().get(0);
+        assertThat(first.getIndex()).isZero();
+        assertThat(first.getStatus()).isEqualTo(BulkItemStatus.INVALID);
+        assertThat(first.getValidationErrors()).containsEntry("emailAddress", "Email address must be valid");
+        verify(bulkOperations, times(1)).insert(any(Patient.class));
+    }
+
+    @Test
+    void ingest_WhenNothingValid_ShouldNotTouchMongo() {
+        Patient invalid = patient("J");
+
+        BulkResult result = service.ingest(List.of(invalid).iterator());
+
+        assertThat(result.getFailed()).isEqualTo(1);
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void ingest_WithIds_ShouldUpsertAndDistinguishCreatedFromUpdated() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Patient.class)).thenReturn(bulkOperations);
+        when(mongoTemplate.getConverter()).thenReturn(converter());
+        when(bulkOperations.execute()).thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1,
+                List.of(new BulkWriteUpsert(1, new BsonString("b"))), List.of()));
+        Patient existing = patient("John");
+        existing.setId("a");
+        Patient upserted = patient("Jane");
+        upserted.setId("b");
+
+        BulkResult result = service.ingest(List.of(existing, upserted).iterator());
+
+        assertThat(result.getItems()).extracting(BulkItemResult::getStatus)
+                .containsExactly(BulkItemStatus.UPDATED, BulkItemStatus.CREATED);
+        verify(bulkOperations, times(2)).upsert(any(Query.class), any(Update.class));
+        verify(bulkOperations, never()).insert(any(Patient.class));
+    }
+
+    @Test
+    void ingest_WhenBulkWritePartiallyFails_ShouldReportFailedItems() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Patient.class)).thenReturn(bulkOperations);
+        BulkWriteError duplicate = new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 1);
+        when(bulkOperations.execute()).thenThrow(new BulkOperationException("bulk failed",
+                new com.mongodb.MongoBulkWriteException(BulkWriteResult.acknowledged(1, 0, 0, 0, List.of(), List.of()),
+                        List.of(duplicate), (WriteConcernError) null, new ServerAddress(), java.util.Set.of())));
+
+        BulkResult result = service.ingest(List.of(patient("John"), patient("Jane")).iterator());
+
+        assertThat(result.getCreated()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.getItems().get(1).getStatus()).isEqualTo(BulkItemStatus.DUPLICATE);
+        assertThat(result.getItems().get(1).getMessage()).isEqualTo("A patient with the same id already exists");
+        assertThat(result.getItems().get(0).getId()).isNotNull();
+        assertThat(result.getItems().get(1).getId()).isNull();
+    }
+
+    @Test
+    void ingest_ShouldFlagFingerprintMatchesAgainstStoredAndEarlierItems() {
+        properties.getBulk().setBatchSize(3);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Patient.class)).thenReturn(bulkOperations);
+        when(mongoTemplate.find(any(Query.class), eq(Patient.class)))
+                .thenReturn(List.of(Patient.builder().id("stored").fingerprint("doe|john|1990-01-01").build()));
+        when(bulkOperations.execute()).thenReturn(BulkWriteResult.acknowledged(3, 0, 0, 0, List.of(), List.of()));
+        Patient twin = patient("Jane");
+        twin.setEmailAddress("jane.twin@gmail.com");
+        twin.setContactNumber("1234567899");
+
+        BulkResult result = service.ingest(List.of(patient("John"), patient("Jane"), twin).iterator());
+
+        assertThat(result.getItems().get(0).getPossibleDuplicateOf()).isEqualTo("stored");
+        assertThat(result.getItems().get(1).getPossibleDuplicateOf()).isNull();
+        assertThat(result.getItems().get(2).getPossibleDuplicateOf()).isEqualTo(result.getItems().get(1).getId());
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(Patient.class));
+    }
+
+    @Test
+    void ingest_WithSink_ShouldHandBackEachChunkBeforeReadingTheNext() throws Exception {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Patient.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(BulkWriteResult.acknowledged(2, 0, 0, 0, List.of(), List.of()))
+                .thenReturn(BulkWriteResult.acknowledged(1, 0, 0, 0, List.of(), List.of()));
+        Patient invalid = patient("Jane");
+        invalid.setGender("Unknown");
+        Iterator<Patient> source = List.of(patient("John"), invalid, patient("Jack"), patient("Jill")).iterator();
+        AtomicInteger pulled = new AtomicInteger();
+        Iterator<Patient> patients = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return source.hasNext();
+            }
+
+            @Override
+            public Patient next() {
+                pulled.incrementAndGet();
+                return source.next();
+            }
+        };
+        List<Integer> pulledAtChunk = new ArrayList<>();
+        List<BulkItemResult> results = new ArrayList<>();
+
+        service.ingest(patients, chunk -> {
+            pulledAtChunk.add(pulled.get());
+            results.addAll(chunk);
+        });
+
+        assertThat(pulledAtChunk).containsExactly(2, 4);
+        assertThat(results).extracting(BulkItemResult::getIndex).containsExactly(0, 1, 2, 3);
+        assertThat(results).extracting(BulkItemResult::getStatus).containsExactly(BulkItemStatus.CREATED,
+                BulkItemStatus.INVALID, BulkItemStatus.CREATED, BulkItemStatus.CREATED);
+    }
+
+    private static MappingMongoConverter converter() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        return converter;
+    }
+
+    private Patient patient(String firstName) {
+        return Patient.builder()
+                .firstName(firstName)
+                .lastName("Doe")
+                .dateOfBirth(LocalDate.of(1990, 1, 1))
+                .contactNumber("1234567890")
+                .emailAddress(firstName.toLowerCase() + ".doe@gmail.com")
+                .gender("Male")
+                .build();
+    }
+}
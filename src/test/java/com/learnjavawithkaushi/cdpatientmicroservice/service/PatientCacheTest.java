@@ -0,0 +1,119 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.service;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.config.PatientProperties;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PatientCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PatientCache cache;
+    private Patient testPatient;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new PatientCache(new PatientProperties(), meterRegistry);
+        testPatient = Patient.builder().id("1").firstName("John").build();
+    }
+
+    @Test
+    void get_ShouldLoadOnceAndRecordHitsAndMisses() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("1", id -> {
+            loads.incrementAndGet();
+            return Optional.of(testPatient);
+        });
+        Optional<Patient> result = cache.get("1", id -> {
+            loads.incrementAndGet();
+            return Optional.of(testPatient);
+        });
+
+        assertThat(result).contains(testPatient);
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "patients").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void getAll_ShouldLoadOnlyUncachedIdsInOneCallAndCacheMisses() {
+        cache.put(testPatient);
+        List<Set<String>> loads = new ArrayList<>();
+        Patient second = Patient.builder().id("2").build();
+
+        Map<String, Patient> result = cache.getAll(List.of("2", "1", "missing", "2"), ids -> {
+            loads.add(Set.copyOf(ids));
+            return Map.of("2", second);
+        });
+        Map<String, Patient> again = cache.getAll(List.of("missing", "2"), ids -> {
+            loads.add(Set.copyOf(ids));
+            return Map.of();
+        });
+
+        assertThat(result.keySet()).containsExactly("2", "1");
+        assertThat(again).containsOnlyKeys("2");
+        assertThat(loads).containsExactly(Set.of("2", "missing"));
+    }
+
+    @Test
+    void get_WhenLoaderFails_ShouldNotCacheFailure() {
+        assertThatThrownBy(() -> cache.get("1", id -> {
+            throw new IllegalStateException("mongo down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(cache.get("1", id -> Optional.of(testPatient))).contains(testPatient);
+    }
+
+    @Test
+    void getAsync_WhenLoaderThrows_ShouldFailAndLetTheNextCallerRetry() {
+        CompletableFuture<Optional<Patient>> failed = cache.getAsync("1", id -> {
+            throw new IllegalStateException("mongo down");
+        });
+
+        assertThat(failed).isCompletedExceptionally();
+        assertThat(cache.getAsync("1", id -> CompletableFuture.completedFuture(Optional.of(testPatient))))
+                .succeedsWithin(1, TimeUnit.SECONDS).isEqualTo(Optional.of(testPatient));
+    }
+
+    @Test
+    void invalidate_DuringInFlightLoad_ShouldNotResurrectDeletedPatient() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch deleted = new CountDownLatch(1);
+
+        // A reader fetches the patient just before a concurrent delete lands
+        CompletableFuture<Optional<Patient>> reader = CompletableFuture.supplyAsync(() -> cache.get("1", id -> {
+            loading.countDown();
+            await(deleted);
+            return Optional.of(testPatient);
+        }));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        cache.invalidate("1");
+        deleted.countDown();
+
+        assertThat(reader.get(5, TimeUnit.SECONDS)).contains(testPatient);
+        assertThat(cache.get("1", id -> Optional.empty())).isEmpty();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,17 +1,33 @@
 package com.learnjavawithkaushi.cdpatientmicroservice.service;
+import com.learnjavawithkaushi.cdpatientmicroservice.config.PatientProperties;
+import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientDuplicateException;
 import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientNotFoundException;
+import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientPreconditionFailedException;
+import com.learnjavawithkaushi.cdpatientmicroservice.exception.PatientValidationException;
 import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientChange;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientChangePage;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientChangeType;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientFields;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientPage;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientSearchCriteria;
+import com.learnjavawithkaushi.cdpatientmicroservice.model.PatientTombstone;
 import com.learnjavawithkaushi.cdpatientmicroservice.repository.PatientRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -21,13 +37,14 @@ class PatientServiceTest {
     @Mock
     private PatientRepository repository;
 
-    @InjectMocks
     private PatientService service;
 
     private Patient testPatient;
 
     @BeforeEach
     void setUp() {
+        PatientProperties properties = new PatientProperties();
+        service = new PatientService(repository, new PatientCache(properties, new SimpleMeterRegistry()), properties);
         testPatient = Patient.builder()
                 .id("1")
                 .firstName("John")
@@ -40,14 +57,138 @@ class PatientServiceTest {
     }
 
     @Test
-    void getAll_ShouldReturnAllPatients() {
-        when(repository.findAll()).thenReturn(List.of(testPatient));
+    void getPage_WhenLastPage_ShouldReturnPatientsWithoutCursor() {
+        when(repository.findPage(null, 3, PatientFields.ALL)).thenReturn(List.of(testPatient));
 
-        List<Patient> patients = service.getAll();
+        PatientPage page = service.getPage(null, 2, PatientFields.ALL);
 
-        assertThat(patients).hasSize(1);
-        assertThat(patients.get(0)).isEqualTo(testPatient);
-        verify(repository).findAll();
+        assertThat(page.getPatients()).containsExactly(testPatient);
+        assertThat(page.hasNext()).isFalse();
+        verify(repository).findPage(null, 3, PatientFields.ALL);
+        verify(repository, never()).findAll();
+    }
+
+    @Test
+    void getPage_WhenMoreResults_ShouldTrimAndReturnCursorOfLastId() {
+        Patient second = Patient.builder().id("2").build();
+        Patient third = Patient.builder().id("3").build();
+        when(repository.findPage(null, 3, PatientFields.ALL)).thenReturn(List.of(testPatient, second, third));
+
+        PatientPage page = service.getPage(null, 2, PatientFields.ALL);
+
+        assertThat(page.getPatients()).containsExactly(testPatient, second);
+        assertThat(PatientCursor.decode(page.getNextCursor())).isEqualTo("2");
+    }
+
+    @Test
+    void getPage_WithCursor_ShouldQueryAfterDecodedId() {
+        when(repository.findPage("1", 11, PatientFields.ALL)).thenReturn(List.of());
+
+        PatientPage page = service.getPage(PatientCursor.encode("1"), 10, PatientFields.ALL);
+
+        assertThat(page.getPatients()).isEmpty();
+        assertThat(page.hasNext()).isFalse();
+        verify(repository).findPage("1", 11, PatientFields.ALL);
+    }
+
+    @Test
+    void getPage_WithMalformedCursor_ShouldThrowValidationException() {
+        assertThatThrownBy(() -> service.getPage("%%%", 10, PatientFields.ALL))
+                .isInstanceOf(PatientValidationException.class);
+
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void search_ShouldQueryAfterDecodedCursorAndTrimExtraResult() {
+        PatientSearchCriteria criteria = PatientSearchCriteria.builder().lastName("do").build();
+        Patient second = Patient.builder().id("2").build();
+        when(repository.search(criteria, "1", 2, PatientFields.ALL)).thenReturn(List.of(testPatient, second));
+
+        PatientPage page = service.search(criteria, PatientCursor.encode("1"), 1, PatientFields.ALL);
+
+        assertThat(page.getPatients()).containsExactly(testPatient);
+        assertThat(PatientCursor.decode(page.getNextCursor())).isEqualTo("1");
+    }
+
+    @Test
+    void search_WithoutFilters_ShouldThrowValidationException() {
+        assertThatThrownBy(() -> service.search(PatientSearchCriteria.builder().lastName(" ").build(), null, 10, PatientFields.ALL))
+                .isInstanceOf(PatientValidationException.class);
+
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void search_WithInvertedDateOfBirthRange_ShouldThrowValidationException() {
+        PatientSearchCriteria criteria = PatientSearchCriteria.builder()
+                .dateOfBirthFrom(LocalDate.of(2000, 1, 1))
+                .dateOfBirthTo(LocalDate.of(1990, 1, 1))
+                .build();
+
+        assertThatThrownBy(() -> service.search(criteria, null, 10, PatientFields.ALL))
+                .isInstanceOf(PatientValidationException.class);
+
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void getChanges_ShouldMergePatientsAndTombstonesInTimeOrderAndPageAfterLastChange() {
+        Instant since = Instant.parse("2024-05-01T00:00:00Z");
+        Patient created = Patient.builder().id("b").createdAt(since.plusSeconds(10)).updatedAt(since.plusSeconds(20)).build();
+        Patient updated = Patient.builder().id("a").createdAt(since.minusSeconds(60)).updatedAt(since.plusSeconds(30)).build();
+        PatientTombstone deleted = new PatientTombstone("c", 4L, since.plusSeconds(20));
+        when(repository.findModified(eq(since), any(Instant.class), isNull(), isNull(), eq(3)))
+                .thenReturn(List.of(created, updated));
+        when(repository.findDeleted(eq(since), any(Instant.class), isNull(), isNull(), eq(3)))
+                .thenReturn(List.of(deleted));
+
+        PatientChangePage page = service.getChanges("2024-05-01T00:00:00Z", null, 2);
+
+        assertThat(page.getChanges()).extracting(PatientChange::getId, PatientChange::getType)
+                .containsExactly(tuple("b", PatientChangeType.CREATED), tuple("c", PatientChangeType.DELETED));
+        assertThat(page.getChanges().get(0).getPatient()).isSameAs(created);
+        assertThat(page.getChanges().get(1).getPatient()).isNull();
+        assertThat(PatientDeltaCursor.decode(page.getNextCursor()))
+                .isEqualTo(new PatientDeltaCursor(since.plusSeconds(20), "c"));
+    }
+
+    @Test
+    void getChanges_WithCursor_ShouldQueryBothSourcesAfterItAndLeaveOutTheLag() {
+        Instant since = Instant.parse("2024-05-01T00:00:00Z");
+        Patient updated = Patient.builder().id("a").createdAt(since.minusSeconds(60)).updatedAt(since.plusSeconds(30)).build();
+        when(repository.findModified(eq(since), any(Instant.class), eq(since.plusSeconds(20)), eq("c"), eq(11)))
+                .thenReturn(List.of(updated));
+        when(repository.findDeleted(eq(since), any(Instant.class), eq(since.plusSeconds(20)), eq("c"), eq(11)))
+                .thenReturn(List.of());
+
+        PatientChangePage page = service.getChanges("2024-05-01T00:00:00Z",
+                new PatientDeltaCursor(since.plusSeconds(20), "c").encode(), 10);
+
+        assertThat(page.getChanges()).extracting(PatientChange::getType).containsExactly(PatientChangeType.UPDATED);
+        assertThat(page.hasNext()).isFalse();
+        verify(repository).findModified(eq(since), argThat(until -> until.isBefore(Instant.now().minusSeconds(4))),
+                any(), any(), anyInt());
+    }
+
+    @Test
+    void getChanges_WithMissingOrMalformedSinceOrCursor_ShouldThrowValidationException() {
+        assertThatThrownBy(() -> service.getChanges(null, null, 10)).isInstanceOf(PatientValidationException.class);
+        assertThatThrownBy(() -> service.getChanges("yesterday", null, 10))
+                .isInstanceOf(PatientValidationException.class);
+        assertThatThrownBy(() -> service.getChanges("2024-05-01T00:00:00Z", PatientCursor.encode("1"), 10))
+                .isInstanceOf(PatientValidationException.class);
+
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void streamAll_ShouldDelegateToRepositoryCursor() {
+        when(repository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(testPatient));
+
+        try (Stream<Patient> patients = service.streamAll()) {
+            assertThat(patients).containsExactly(testPatient);
+        }
     }
 
     @Test
@@ -71,6 +212,119 @@ class PatientServiceTest {
         verify(repository).findById("999");
     }
 
+    @Test
+    void getById_ShouldServeRepeatedLookupsFromCache() {
+        when(repository.findById("1")).thenReturn(Optional.of(testPatient));
+
+        service.getById("1");
+        Optional<Patient> result = service.getById("1");
+
+        assertThat(result).contains(testPatient);
+        verify(repository, times(1)).findById("1");
+    }
+
+    @Test
+    void getById_ShouldCacheMisses() {
+        when(repository.findById("999")).thenReturn(Optional.empty());
+
+        service.getById("999");
+        Optional<Patient> result = service.getById("999");
+
+        assertThat(result).isEmpty();
+        verify(repository, times(1)).findById("999");
+    }
+
+    @Test
+    void getById_WithFields_ShouldProjectCachedPatient() {
+        when(repository.findById("1")).thenReturn(Optional.of(testPatient));
+        service.getById("1");
+
+        Optional<Patient> result = service.getById("1", PatientFields.parse("lastName"));
+
+        assertThat(result).contains(Patient.builder().id("1").lastName("Doe").build());
+        verify(repository, never()).findById(eq("1"), any(PatientFields.class));
+    }
+
+    @Test
+    void getById_WithFields_ShouldLoadOnlySelectedFieldsWithoutCaching() {
+        PatientFields fields = PatientFields.parse("firstName");
+        Patient projected = Patient.builder().id("1").firstName("John").build();
+        when(repository.findById("1", fields)).thenReturn(Optional.of(projected));
+        when(repository.findById("1")).thenReturn(Optional.of(testPatient));
+
+        assertThat(service.getById("1", fields)).contains(projected);
+        assertThat(service.getById("1")).contains(testPatient);
+    }
+
+    @Test
+    void getPage_WithFields_ShouldPushProjectionToRepository() {
+        PatientFields fields = PatientFields.parse("firstName,lastName");
+        when(repository.findPage("1", 3, fields)).thenReturn(List.of(testPatient));
+
+        PatientPage page = service.getPage(PatientCursor.encode("1"), 2, fields);
+
+        assertThat(page.getPatients()).containsExactly(testPatient);
+    }
+
+    @Test
+    void fields_ShouldAlwaysSelectIdAndRejectUnknownFields() {
+        assertThat(PatientFields.parse(" lastName , dateOfBirth").names())
+                .containsExactly("id", "lastName", "dateOfBirth");
+        assertThat(PatientFields.parse(" ").isAll()).isTrue();
+        assertThatThrownBy(() -> PatientFields.parse("firstName,fingerprint"))
+                .isInstanceOf(PatientValidationException.class)
+                .hasMessage("Unknown field: fingerprint");
+    }
+
+    @Test
+    void getByIds_ShouldQueryUncachedIdsOnceAndKeepRequestOrder() {
+        Patient second = Patient.builder().id("2").build();
+        when(repository.findById("1")).thenReturn(Optional.of(testPatient));
+        service.getById("1");
+        when(repository.findAllById(Set.of("2", "3"))).thenReturn(List.of(second));
+
+        List<Patient> result = service.getByIds(List.of("2", "1", "3"));
+
+        assertThat(result).containsExactly(second, testPatient);
+        verify(repository).findAllById(Set.of("2", "3"));
+    }
+
+    @Test
+    void create_ShouldPopulateCache() {
+        Patient saved = Patient.builder().id("2").version(0L).firstName("Jane").build();
+        when(repository.save(any(Patient.class))).thenReturn(saved);
+
+        service.create(Patient.builder().firstName("Jane").build());
+        Optional<Patient> result = service.getById("2");
+
+        assertThat(result).contains(saved);
+        verify(repository, never()).findById(any());
+    }
+
+    @Test
+    void update_ShouldInvalidateCachedPatient() {
+        Patient updated = Patient.builder().id("1").version(1L).lastName("Updated").build();
+        when(repository.findById("1")).thenReturn(Optional.of(testPatient), Optional.of(updated));
+        when(repository.replaceById("1", testPatient, null)).thenReturn(Optional.of(updated));
+
+        service.getById("1");
+        service.update("1", testPatient, null);
+
+        assertThat(service.getById("1")).contains(updated);
+        verify(repository, times(2)).findById("1");
+    }
+
+    @Test
+    void delete_ShouldInvalidateCachedPatient() {
+        when(repository.findById("1")).thenReturn(Optional.of(testPatient), Optional.empty());
+        when(repository.removeById("1", null)).thenReturn(true);
+
+        service.getById("1");
+        service.delete("1", null);
+
+        assertThat(service.getById("1")).isEmpty();
+    }
+
     @Test
     void create_ShouldSaveAndReturnPatient() {
         Patient newPatient = Patient.builder()
@@ -102,59 +356,151 @@ class PatientServiceTest {
     }
 
     @Test
-    void update_WhenPatientExists_ShouldUpdateAndReturnPatient() {
-        when(repository.existsById("1")).thenReturn(true);
+    void create_ShouldClearClientSuppliedIdAndVersion() {
+        Patient newPatient = Patient.builder().id("client-id").version(7L).firstName("Jane").build();
+        when(repository.save(any(Patient.class))).thenReturn(testPatient);
+
+        service.create(newPatient);
+
+        verify(repository).save(argThat(p -> p.getId() == null && p.getVersion() == null));
+    }
+
+    @Test
+    void createAndUpdate_ShouldStampUpdateTimeInMilliseconds() {
+        Patient client = Patient.builder().firstName("Jane").updatedAt(Instant.EPOCH).build();
         when(repository.save(any(Patient.class))).thenReturn(testPatient);
+        when(repository.replaceById(eq("1"), any(Patient.class), isNull())).thenReturn(Optional.of(testPatient));
+
+        service.create(client);
+        Instant created = client.getUpdatedAt();
+        assertThat(client.getCreatedAt()).isEqualTo(created);
+        service.update("1", client, null);
 
-        Patient result = service.update("1", testPatient);
+        assertThat(created).isAfter(Instant.EPOCH).isEqualTo(created.truncatedTo(ChronoUnit.MILLIS));
+        assertThat(client.getUpdatedAt()).isAfterOrEqualTo(created);
+        // Left out of the replacement, so the stored creation time survives the update
+        assertThat(client.getCreatedAt()).isNull();
+    }
+
+    @Test
+    void create_ShouldDeriveIdentityKeysAndFlagFingerprintMatch() {
+        Patient existing = Patient.builder().id("7").build();
+        when(repository.findFirstByFingerprint("doe|john|1990-01-01")).thenReturn(Optional.of(existing));
+        when(repository.save(any(Patient.class))).thenAnswer(invocation -> {
+            Patient toSave = invocation.getArgument(0);
+            toSave.setId("2");
+            return toSave;
+        });
+        testPatient.setFirstName(" Jöhn");
+        testPatient.setContactNumber("+1234567890");
+
+        Patient created = service.create(testPatient);
+
+        assertThat(created.getPossibleDuplicateOf()).isEqualTo("7");
+        assertThat(created.getNormalizedContactNumber()).isEqualTo("1234567890");
+        assertThat(created.getFingerprint()).isEqualTo("doe|john|1990-01-01");
+    }
+
+    @Test
+    void create_WhenUniqueIndexRejectsWrite_ShouldThrowDuplicateException() {
+        when(repository.save(any(Patient.class))).thenThrow(new DuplicateKeyException(
+                "E11000 duplicate key error collection: patientdb.patients index: patient_unique_email dup key"));
+
+        assertThatThrownBy(() -> service.create(testPatient))
+                .isInstanceOf(PatientDuplicateException.class)
+                .hasMessage("A patient with the same email address already exists");
+    }
+
+    @Test
+    void update_WhenUniqueIndexRejectsWrite_ShouldThrowDuplicateException() {
+        when(repository.replaceById("1", testPatient, null)).thenThrow(new DuplicateKeyException(
+                "E11000 duplicate key error collection: patientdb.patients index: patient_unique_contact dup key"));
+
+        assertThatThrownBy(() -> service.update("1", testPatient, null))
+                .isInstanceOf(PatientDuplicateException.class)
+                .hasMessage("A patient with the same contact number already exists");
+    }
+
+    @Test
+    void update_WhenPatientExists_ShouldUpdateAndReturnPatient() {
+        when(repository.replaceById("1", testPatient, null)).thenReturn(Optional.of(testPatient));
+
+        Patient result = service.update("1", testPatient, null);
 
         assertThat(result).isEqualTo(testPatient);
         assertThat(result.getId()).isEqualTo("1");
-        verify(repository).existsById("1");
-        verify(repository).save(testPatient);
+        verify(repository).replaceById("1", testPatient, null);
+        verify(repository, never()).existsById(any());
+        verify(repository, never()).save(any());
     }
 
     @Test
     void update_WhenPatientNotExists_ShouldThrowException() {
-        when(repository.existsById("999")).thenReturn(false);
+        when(repository.replaceById("999", testPatient, null)).thenReturn(Optional.empty());
 
-        assertThatThrownBy(() -> service.update("999", testPatient))
+        assertThatThrownBy(() -> service.update("999", testPatient, null))
                 .isInstanceOf(PatientNotFoundException.class)
                 .hasMessage("Patient not found with id: 999");
 
-        verify(repository).existsById("999");
+        verify(repository, never()).existsById(any());
         verify(repository, never()).save(any());
     }
 
     @Test
-    void delete_WhenPatientExists_ShouldDeletePatient() {
+    void update_WhenVersionIsStale_ShouldThrowPreconditionFailed() {
+        when(repository.replaceById("1", testPatient, 3L)).thenReturn(Optional.empty());
         when(repository.existsById("1")).thenReturn(true);
 
-        service.delete("1");
+        assertThatThrownBy(() -> service.update("1", testPatient, 3L))
+                .isInstanceOf(PatientPreconditionFailedException.class);
+    }
+
+    @Test
+    void update_WithVersionWhenPatientNotExists_ShouldThrowNotFound() {
+        when(repository.replaceById("999", testPatient, 3L)).thenReturn(Optional.empty());
+        when(repository.existsById("999")).thenReturn(false);
 
-        verify(repository).existsById("1");
-        verify(repository).deleteById("1");
+        assertThatThrownBy(() -> service.update("999", testPatient, 3L))
+                .isInstanceOf(PatientNotFoundException.class);
+    }
+
+    @Test
+    void delete_WhenPatientExists_ShouldDeletePatient() {
+        when(repository.removeById("1", null)).thenReturn(true);
+
+        service.delete("1", null);
+
+        verify(repository).removeById("1", null);
+        verify(repository, never()).existsById(any());
     }
 
     @Test
     void delete_WhenPatientNotExists_ShouldThrowException() {
-        when(repository.existsById("999")).thenReturn(false);
+        when(repository.removeById("999", null)).thenReturn(false);
 
-        assertThatThrownBy(() -> service.delete("999"))
+        assertThatThrownBy(() -> service.delete("999", null))
                 .isInstanceOf(PatientNotFoundException.class)
                 .hasMessage("Patient not found with id: 999");
 
-        verify(repository).existsById("999");
-        verify(repository, never()).deleteById(any());
+        verify(repository, never()).existsById(any());
+    }
+
+    @Test
+    void delete_WhenVersionIsStale_ShouldThrowPreconditionFailed() {
+        when(repository.removeById("1", 2L)).thenReturn(false);
+        when(repository.existsById("1")).thenReturn(true);
+
+        assertThatThrownBy(() -> service.delete("1", 2L))
+                .isInstanceOf(PatientPreconditionFailedException.class);
     }
 
     @Test
-    void count_ShouldReturnTotalPatients() {
-        when(repository.count()).thenReturn(10L);
+    void estimatedCount_ShouldNotCountDocuments() {
+        when(repository.estimatedCount()).thenReturn(10L);
 
-        long result = service.count();
+        long result = service.estimatedCount();
 
         assertThat(result).isEqualTo(10L);
-        verify(repository).count();
+        verify(repository, never()).count();
     }
 }
@@ -0,0 +1,138 @@
+package com.learnjavawithkaushi.cdpatientmicroservice.service;
+
+import com.learnjavawithkaushi.cdpatientmicroservice.model.Patient;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks {@link PatientValidator} against Bean Validation of the {@link Patient} annotations:
+ * the same invalid fields, each reported with one of the messages Bean Validation gives it.
+ */
+class PatientValidatorTest {
+
+    private static final List<String> NAMES = List.of("", " ", "   ", "\t\n", "A", " A", "Al", "Jo", "Élise",
+            "  ", "x".repeat(50), "x".repeat(51), " ".repeat(60) + "x");
+
+    private static final List<String> CONTACT_NUMBERS = List.of("", " ", "1234567890", "+1234567890", "123456789",
+            "+123456789", "123456789012345", "1234567890123456", "+123456789012345", "++1234567890", "+",
+            "12345 67890", "1234567890\n", "١٢٣٤٥٦٧٨٩٠",
+            " 1234567890", "12-345-67890");
+
+    private static final List<String> EMAIL_ADDRESSES = List.of("", " ", "john.doe@gmail.com", "JOHN@EXAMPLE.ORG",
+            "john+tag@mail.example-clinic.org", "john", "@gmail.com", "john@", "john@@gmail.com", "jo@hn@gmail.com",
+            ".john@gmail.com", "john.@gmail.com", "jo..hn@gmail.com", "john@gmail..com", "john@gmail.com.",
+            "john@.gmail.com", "john@-gmail.com", "john@gmail-.com", "john@gm--ail.com", "john@localhost",
+            "john@123.45.67.89", "john@[123.45.67.89]", "john@[IPv6:::1]", "\"john doe\"@gmail.com",
+            "jörg@müller.de", "john@müller.de", "john doe@gmail.com", "john@gmail com",
+            "john@g_mail.com", "{john}@gmail.com", "x".repeat(64) + "@gmail.com", "x".repeat(65) + "@gmail.com",
+            "john@" + "a".repeat(63) + ".com", "john@" + "a".repeat(64) + ".com",
+            "john@" + ("a".repeat(49) + ".").repeat(5) + "com", "john@" + ("a".repeat(50) + ".").repeat(5) + "com");
+
+    private static final List<String> GENDERS = List.of("", " ", "Male", "Female", "Other", "male", "MALE",
+            "Male ", " Male", "Unknown", "Male\n");
+
+    private static final List<LocalDate> DATES_OF_BIRTH = List.of(LocalDate.of(1990, 1, 1),
+            LocalDate.now().minusDays(1), LocalDate.now(), LocalDate.now().plusDays(1), LocalDate.of(2999, 1, 1));
+
+    private final Validator beanValidator = Validation.buildDefaultValidatorFactory().getValidator();
+    private final PatientValidator validator = new PatientValidator(beanValidator);
+
+    @Test
+    void validate_ValidPatient_ShouldReturnNoErrors() {
+        assertThat(validator.validate(valid())).isEmpty();
+    }
+
+    @Test
+    void validate_MissingFields_ShouldMatchBeanValidation() {
+        assertParity(new Patient());
+    }
+
+    @Test
+    void validate_FirstAndLastNames_ShouldMatchBeanValidation() {
+        assertParity(NAMES, Patient::setFirstName);
+        assertParity(NAMES, Patient::setLastName);
+    }
+
+    @Test
+    void validate_DatesOfBirth_ShouldMatchBeanValidation() {
+        assertParity(DATES_OF_BIRTH, Patient::setDateOfBirth);
+    }
+
+    @Test
+    void validate_ContactNumbers_ShouldMatchBeanValidation() {
+        assertParity(CONTACT_NUMBERS, Patient::setContactNumber);
+    }
+
+    @Test
+    void validate_EmailAddresses_ShouldMatchBeanValidation() {
+        assertParity(EMAIL_ADDRESSES, Patient::setEmailAddress);
+    }
+
+    @Test
+    void validate_Genders_ShouldMatchBeanValidation() {
+        assertParity(GENDERS, Patient::setGender);
+    }
+
+    @Test
+    void validate_RandomContactNumbersAndEmailAddresses_ShouldMatchBeanValidation() {
+        Random random = new Random(42);
+        for (int i = 0; i < 5_000; i++) {
+            Patient patient = valid();
+            patient.setContactNumber(randomString(random, "+0123456789 -a", 18));
+            patient.setEmailAddress(randomString(random, "ab1.-_+@\"[]:ü ", 20));
+            assertParity(patient);
+        }
+    }
+
+    private <T> void assertParity(List<T> values, BiConsumer<Patient, T> setter) {
+        for (T value : values) {
+            Patient patient = valid();
+            setter.accept(patient, value);
+            assertParity(patient);
+        }
+    }
+
+    private void assertParity(Patient patient) {
+        Map<String, Set<String>> expected = beanValidator.validate(patient).stream()
+                .collect(Collectors.groupingBy(v -> v.getPropertyPath().toString(),
+                        Collectors.mapping(ConstraintViolation::getMessage, Collectors.toSet())));
+
+        Map<String, String> actual = validator.validate(patient);
+
+        assertThat(actual.keySet()).as("invalid fields of %s", patient).isEqualTo(expected.keySet());
+        actual.forEach((field, message) -> assertThat(expected.get(field)).as("%s of %s", field, patient)
+                .contains(message));
+    }
+
+    private static String randomString(Random random, String alphabet, int maxLength) {
+        StringBuilder value = new StringBuilder();
+        int length = random.nextInt(maxLength + 1);
+        for (int i = 0; i < length; i++) {
+            value.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return value.toString();
+    }
+
+    private static Patient valid() {
+        return Patient.builder()
+                .firstName("John")
+                .lastName("Doe")
+                .dateOfBirth(LocalDate.of(1990, 1, 1))
+                .contactNumber("1234567890")
+                .emailAddress("john.doe@gmail.com")
+                .gender("Male")
+                .build();
+    }
+}